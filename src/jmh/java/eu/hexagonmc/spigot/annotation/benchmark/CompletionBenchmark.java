@@ -0,0 +1,91 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.benchmark;
+
+import eu.hexagonmc.spigot.annotation.meta.CompletionTrie;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks completing command names with a {@link CompletionTrie} against
+ * filtering the names with a case insensitive starts with check like
+ * {@code StringUtil.copyPartialMatches} of Bukkit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompletionBenchmark {
+
+    @Param({"TINY", "COMMANDS"})
+    public Corpus corpus;
+
+    /**
+     * The typed prefix, matching all words, a few words or none.
+     */
+    @Param({"", "benchcmd4", "BenchC12", "x"})
+    public String prefix;
+
+    private List<String> _words;
+    private CompletionTrie _trie;
+
+    @Setup
+    public void setup() {
+        PluginMetadata meta = corpus.create("bench");
+        _words = new ArrayList<>();
+        meta.getCommands().forEach(command -> {
+            _words.add(command.getName());
+            _words.addAll(command.getAliases());
+        });
+        _trie = CompletionTrie.of(meta);
+    }
+
+    @Benchmark
+    public List<String> filter() {
+        return _words.stream()
+                .filter(word -> word.regionMatches(true, 0, prefix, 0, prefix.length()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> trie() {
+        return _trie.complete(prefix);
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.benchmark;
+
+import eu.hexagonmc.spigot.annotation.meta.DependencyType;
+import eu.hexagonmc.spigot.annotation.meta.LoadOn;
+import eu.hexagonmc.spigot.annotation.meta.PermissionDefault;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginDependency;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Plugin metadata corpora used by the benchmarks.
+ */
+public enum Corpus {
+    /**
+     * A plugin with one command, one permission and one dependency.
+     */
+    TINY(1, 1),
+    /**
+     * A plugin with 500 commands.
+     */
+    COMMANDS(500, 10),
+    /**
+     * A plugin with 10000 permissions.
+     */
+    PERMISSIONS(10, 10000);
+
+    private final int _commands;
+    private final int _permissions;
+
+    Corpus(int commands, int permissions) {
+        _commands = commands;
+        _permissions = permissions;
+    }
+
+    /**
+     * Creates the metadata of this corpus.
+     *
+     * @param name The name of the plugin
+     * @return The created metadata
+     */
+    public PluginMetadata create(String name) {
+        PluginMetadata meta = new PluginMetadata(name);
+        meta.setMain("eu.hexagonmc." + name + ".Main");
+        meta.setVersion("1.0.0");
+        meta.setDescription("Benchmark plugin " + name);
+        meta.setLoadOn(LoadOn.POSTWORLD);
+        meta.setWebsite("https://hexagonmc.eu");
+        meta.addAuthor("Zartec");
+        PluginDependency dependency = new PluginDependency("dependency");
+        dependency.setType(DependencyType.SOFTDEPEND);
+        meta.addDependency(dependency);
+        for (int i = 0; i < _commands; i++) {
+            PluginCommand command = new PluginCommand(name + "cmd" + i);
+            command.setDescription("Command number " + i);
+            command.addAlias(name + "c" + i);
+            command.setPermission(name + ".command." + i);
+            command.setUsage("/<command> [player]");
+            meta.addCommand(command);
+        }
+        for (int i = 0; i < _permissions; i++) {
+            PluginPermission permission = new PluginPermission(name + ".node." + i);
+            permission.setDescription("Permission number " + i);
+            permission.setDefault(PermissionDefault.values()[i % PermissionDefault.values().length]);
+            if (i > 0) {
+                permission.addChild(name + ".node." + (i - 1) / 2, i % 3 != 0);
+            }
+            meta.addPermission(permission);
+        }
+        return meta;
+    }
+
+    /**
+     * Creates the yaml of this corpus.
+     *
+     * @param name The name of the plugin
+     * @return The created yaml
+     */
+    public String yaml(String name) {
+        StringWriter writer = new StringWriter();
+        try {
+            PluginYml.write(writer, create(name), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.benchmark;
+
+import eu.hexagonmc.spigot.annotation.meta.MetadataInterner;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataSnapshot;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Locale;
+
+/**
+ * Measures the retained heap per plugin of {@link PluginMetadata} and
+ * {@link PluginMetadataSnapshot}.
+ *
+ * </p> A catalog of plugins is read from yaml like a plugin repository would
+ * do, so no strings are shared between the plugins. The heap used after a
+ * full garbage collection is compared before and after the catalog is built.
+ *
+ * </p> The strings of the mutable metadata are interned with the interner
+ * selected by {@code --interner none|weak|bounded}, see
+ * {@link MetadataInterner}.
+ *
+ * </p> Arguments: {@code --plugins 40000}, {@code --corpus TINY},
+ * {@code --interner none}. Only one
+ * corpus is measured per run as the shared string interner of the snapshots
+ * keeps growing between runs in the same JVM.
+ */
+public class FootprintBenchmark {
+
+    private static final int BOUNDED_SIZE = 1 << 16;
+
+    /**
+     * Throw exception if used. Utility classes should not be instanced.
+     *
+     * @throws RuntimeException if someone tries to call this constructor this
+     *         class.
+     */
+    public FootprintBenchmark() {
+        throw new RuntimeException("Utility class should not be instanced");
+    }
+
+    public static void main(String[] args) {
+        int plugins = 40000;
+        Corpus corpus = Corpus.TINY;
+        String interner = "none";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--plugins":
+                    plugins = Integer.parseInt(args[++i]);
+                    break;
+                case "--corpus":
+                    corpus = Corpus.valueOf(args[++i]);
+                    break;
+                case "--interner":
+                    interner = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        switch (interner) {
+            case "none":
+                MetadataInterner.setInterner(MetadataInterner.NONE);
+                break;
+            case "weak":
+                MetadataInterner.setInterner(MetadataInterner.weak());
+                break;
+            case "bounded":
+                MetadataInterner.setInterner(MetadataInterner.bounded(BOUNDED_SIZE));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown interner " + interner);
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-12s %-8s %8s %16s %16s %8s", "corpus", "interner", "plugins",
+                "mutable B/plugin", "snapshot B/plugin", "saved"));
+        String[] yaml = new String[plugins];
+        for (int i = 0; i < plugins; i++) {
+            yaml[i] = corpus.yaml("plugin" + i);
+        }
+
+        long before = usedHeap();
+        PluginMetadata[] catalog = new PluginMetadata[plugins];
+        for (int i = 0; i < plugins; i++) {
+            catalog[i] = PluginYml.read(new StringReader(yaml[i]));
+        }
+        long mutable = usedHeap() - before;
+
+        PluginMetadataSnapshot[] snapshots = new PluginMetadataSnapshot[plugins];
+        for (int i = 0; i < plugins; i++) {
+            snapshots[i] = catalog[i].freeze();
+            catalog[i] = null;
+        }
+        long frozen = usedHeap() - before;
+
+        System.out.println(String.format(Locale.ROOT, "%-12s %-8s %8d %16d %16d %7.1f%%", corpus, interner, plugins, mutable / plugins,
+                frozen / plugins, 100.0 * (mutable - frozen) / mutable));
+        // Keep the catalog reachable until measured
+        if (snapshots[plugins - 1] == null || yaml[plugins - 1] == null) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        // Collect several times so weak references and finalizers are done
+        for (int i = 0; i < 5; i++) {
+            memory.gc();
+            System.runFinalization();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.benchmark;
+
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks merging metadata with {@link PluginMetadata#accept}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PluginMetadataBenchmark {
+
+    @Param({"TINY", "COMMANDS", "PERMISSIONS"})
+    public Corpus corpus;
+
+    private PluginMetadata _base;
+    private PluginMetadata _extra;
+
+    @Setup
+    public void setup() {
+        _base = corpus.create("bench");
+        // Same names as the base so the merge replaces existing entries
+        _extra = corpus.create("bench");
+        _extra.setVersion("2.0.0");
+    }
+
+    @Benchmark
+    public PluginMetadata accept() {
+        PluginMetadata meta = new PluginMetadata("bench");
+        meta.accept(_base);
+        meta.accept(_extra);
+        return meta;
+    }
+}
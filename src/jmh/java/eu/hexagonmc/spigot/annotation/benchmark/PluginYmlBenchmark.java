@@ -0,0 +1,84 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.benchmark;
+
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading and writing yaml files with {@link PluginYml}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PluginYmlBenchmark {
+
+    @Param({"TINY", "COMMANDS", "PERMISSIONS"})
+    public Corpus corpus;
+
+    private PluginMetadata _meta;
+    private String _yaml;
+
+    @Setup
+    public void setup() {
+        _meta = corpus.create("bench");
+        _yaml = corpus.yaml("bench");
+    }
+
+    @Benchmark
+    public PluginMetadata read() {
+        return PluginYml.read(new BufferedReader(new StringReader(_yaml)));
+    }
+
+    @Benchmark
+    public String readLazy() throws IOException {
+        return PluginYml.readLazy(new StringReader(_yaml)).getMain();
+    }
+
+    @Benchmark
+    public String write() throws IOException {
+        StringWriter writer = new StringWriter(_yaml.length());
+        PluginYml.write(writer, _meta, null);
+        return writer.toString();
+    }
+}
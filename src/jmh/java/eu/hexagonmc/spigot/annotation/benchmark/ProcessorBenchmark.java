@@ -0,0 +1,234 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.benchmark;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import eu.hexagonmc.spigot.annotation.AnnotationProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaFileObject;
+
+/**
+ * Measures the compile time overhead of the {@link AnnotationProcessor}.
+ *
+ * </p> Synthetic projects of different sizes are compiled without the
+ * processor, with the processor and a small {@code @Plugin} annotation and
+ * with the processor and a large {@code @Plugin} annotation. For each run the
+ * total javac time and the time spent in the processor per round is reported.
+ *
+ * </p> Arguments: {@code --sizes 10,1000,10000}, {@code --runs 3},
+ * {@code --warmup 1}. All arguments starting with {@code -A} are passed to
+ * javac as processor options.
+ */
+public class ProcessorBenchmark {
+
+    /**
+     * The compiled variants of each project.
+     */
+    private enum Variant {
+        NONE, PLUGIN, LARGE_PLUGIN
+    }
+
+    private static final int CLASSES_PER_PACKAGE = 100;
+    private static final int LARGE_COMMANDS = 500;
+    private static final int LARGE_PERMISSIONS = 2000;
+
+    /**
+     * Throw exception if used. Utility classes should not be instanced.
+     *
+     * @throws RuntimeException if someone tries to call this constructor this
+     *         class.
+     */
+    public ProcessorBenchmark() {
+        throw new RuntimeException("Utility class should not be instanced");
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {10, 1000, 10000};
+        int runs = 3;
+        int warmup = 1;
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    if (!args[i].startsWith("-A")) {
+                        throw new IllegalArgumentException("Unknown argument " + args[i]);
+                    }
+                    options.add(args[i]);
+                    break;
+            }
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%8s %-13s %12s %12s %12s  %s",
+                "classes", "variant", "javac ms", "processor ms", "overhead ms", "rounds ms"));
+        for (int size : sizes) {
+            long baseline = 0;
+            for (Variant variant : Variant.values()) {
+                List<JavaFileObject> sources = createSources(size, variant);
+                for (int i = 0; i < warmup; i++) {
+                    compile(sources, variant, options);
+                }
+                List<Result> results = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    results.add(compile(sources, variant, options));
+                }
+                results.sort((a, b) -> Long.compare(a._javac, b._javac));
+                Result median = results.get(results.size() / 2);
+                if (variant == Variant.NONE) {
+                    baseline = median._javac;
+                }
+                System.out.println(String.format(Locale.ROOT, "%8d %-13s %12.1f %12.1f %12.1f  %s",
+                        size, variant, millis(median._javac), millis(median._processor), millis(median._javac - baseline),
+                        formatRounds(median._rounds)));
+            }
+        }
+    }
+
+    private static Result compile(List<JavaFileObject> sources, Variant variant, List<String> options) {
+        Compiler compiler = Compiler.javac();
+        TimingProcessor processor = null;
+        if (variant == Variant.NONE) {
+            compiler = compiler.withOptions("-proc:none");
+        } else {
+            processor = new TimingProcessor(new AnnotationProcessor());
+            compiler = compiler.withProcessors(processor).withOptions(options);
+        }
+        long start = System.nanoTime();
+        Compilation compilation = compiler.compile(sources);
+        long javac = System.nanoTime() - start;
+        if (compilation.status() != Compilation.Status.SUCCESS) {
+            throw new IllegalStateException("Compilation failed: " + compilation.errors());
+        }
+        return processor == null ? new Result(javac, 0, Collections.emptyList())
+                : new Result(javac, processor.getTotal(), processor.getRounds());
+    }
+
+    private static List<JavaFileObject> createSources(int size, Variant variant) {
+        List<JavaFileObject> sources = new ArrayList<>(size + 1);
+        for (int i = 0; i < size; i++) {
+            String pkg = "bench.p" + i / CLASSES_PER_PACKAGE;
+            String name = "Class" + i;
+            sources.add(JavaFileObjects.forSourceString(pkg + "." + name, "package " + pkg + ";\n\n"
+                    + "public class " + name + " {\n"
+                    + "    private int _value;\n"
+                    + "    public int getValue() {\n"
+                    + "        return _value + " + i + ";\n"
+                    + "    }\n"
+                    + "    public void setValue(int value) {\n"
+                    + "        _value = value;\n"
+                    + "    }\n"
+                    + "}\n"));
+        }
+        if (variant != Variant.NONE) {
+            sources.add(JavaFileObjects.forSourceString("bench.BenchPlugin", createPlugin(variant == Variant.LARGE_PLUGIN)));
+        }
+        return sources;
+    }
+
+    private static String createPlugin(boolean large) {
+        StringBuilder builder = new StringBuilder()
+                .append("package bench;\n\n")
+                .append("import eu.hexagonmc.spigot.annotation.meta.PermissionDefault;\n")
+                .append("import eu.hexagonmc.spigot.annotation.plugin.Command;\n")
+                .append("import eu.hexagonmc.spigot.annotation.plugin.Dependency;\n")
+                .append("import eu.hexagonmc.spigot.annotation.plugin.Permission;\n")
+                .append("import eu.hexagonmc.spigot.annotation.plugin.PermissionChild;\n")
+                .append("import eu.hexagonmc.spigot.annotation.plugin.Plugin;\n")
+                .append("import eu.hexagonmc.spigot.annotation.plugin.Plugin.Spigot;\n")
+                .append("import org.bukkit.plugin.java.JavaPlugin;\n\n")
+                .append("@Plugin(name = \"bench\", version = \"1.0.0\", description = \"Benchmark plugin\",\n")
+                .append("        dependencies = @Dependency(name = \"other\"),\n")
+                .append("        spigot = @Spigot(authors = \"Zartec\", website = \"https://hexagonmc.eu\"");
+        if (large) {
+            builder.append(",\n        commands = {");
+            for (int i = 0; i < LARGE_COMMANDS; i++) {
+                builder.append(i == 0 ? "\n" : ",\n")
+                        .append("            @Command(name = \"cmd").append(i).append("\", aliases = \"c").append(i)
+                        .append("\", permission = \"bench.node.").append(i).append("\", usage = \"/<command>\")");
+            }
+            builder.append("},\n        permissions = {");
+            for (int i = 0; i < LARGE_PERMISSIONS; i++) {
+                builder.append(i == 0 ? "\n" : ",\n")
+                        .append("            @Permission(name = \"bench.node.").append(i).append("\", description = \"Node ").append(i)
+                        .append("\", def = PermissionDefault.OP");
+                if (i > 0) {
+                    builder.append(", children = @PermissionChild(name = \"bench.node.").append((i - 1) / 2).append("\", value = true)");
+                }
+                builder.append(")");
+            }
+            builder.append("}");
+        }
+        return builder.append("))\n")
+                .append("public class BenchPlugin extends JavaPlugin {\n")
+                .append("}\n")
+                .toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static String formatRounds(List<Long> rounds) {
+        StringBuilder builder = new StringBuilder();
+        for (long round : rounds) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(String.format(Locale.ROOT, "%.1f", millis(round)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The measured times of a single compilation.
+     */
+    private static class Result {
+
+        private final long _javac;
+        private final long _processor;
+        private final List<Long> _rounds;
+
+        Result(long javac, long processor, List<Long> rounds) {
+            _javac = javac;
+            _processor = processor;
+            _rounds = rounds;
+        }
+    }
+}
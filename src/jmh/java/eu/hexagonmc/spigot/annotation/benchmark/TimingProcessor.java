@@ -0,0 +1,126 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Wraps a processor and measures the time spent in it per round.
+ */
+public class TimingProcessor implements Processor {
+
+    private final Processor _delegate;
+    private long _init;
+    private final List<Long> _rounds = new ArrayList<>();
+
+    /**
+     * Creates a new timing processor.
+     *
+     * @param delegate The processor to measure
+     */
+    public TimingProcessor(Processor delegate) {
+        _delegate = delegate;
+    }
+
+    /**
+     * Returns the time spent in {@link Processor#init}.
+     *
+     * @return The time in nanoseconds
+     */
+    public long getInit() {
+        return _init;
+    }
+
+    /**
+     * Returns the time spent in {@link Processor#process} per round.
+     *
+     * @return The times in nanoseconds
+     */
+    public List<Long> getRounds() {
+        return Collections.unmodifiableList(_rounds);
+    }
+
+    /**
+     * Returns the total time spent in the processor.
+     *
+     * @return The time in nanoseconds
+     */
+    public long getTotal() {
+        long total = _init;
+        for (long round : _rounds) {
+            total += round;
+        }
+        return total;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return _delegate.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return _delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return _delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+        long start = System.nanoTime();
+        _delegate.init(processingEnv);
+        _init = System.nanoTime() - start;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        long start = System.nanoTime();
+        try {
+            return _delegate.process(annotations, roundEnv);
+        } finally {
+            _rounds.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation, ExecutableElement member,
+            String userText) {
+        return _delegate.getCompletions(element, annotation, member, userText);
+    }
+}
@@ -26,8 +26,11 @@ import static javax.tools.Diagnostic.Kind.ERROR;
 import static javax.tools.Diagnostic.Kind.NOTE;
 
 import com.google.common.base.Splitter;
+import eu.hexagonmc.spigot.annotation.event.Listen;
 import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataOverlay;
 import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+import eu.hexagonmc.spigot.annotation.plugin.Command;
 import eu.hexagonmc.spigot.annotation.plugin.Plugin;
 
 import java.io.IOException;
@@ -56,13 +59,21 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
 
 @SupportedAnnotationTypes({
+        "eu.hexagonmc.spigot.annotation.event.Listen",
+        "eu.hexagonmc.spigot.annotation.plugin.Command",
         "eu.hexagonmc.spigot.annotation.plugin.Dependency",
         "eu.hexagonmc.spigot.annotation.plugin.Plugin"})
 @SupportedOptions({
         AnnotationProcessor.EXTRA_FILES_SPIGOT_OPTION,
         AnnotationProcessor.EXTRA_FILES_BUNGEE_OPTION,
+        AnnotationProcessor.EXTRA_FILES_CACHE_OPTION,
         AnnotationProcessor.OUTPUT_FILE_SPIGOT_OPTION,
-        AnnotationProcessor.OUTPUT_FILE_BUNGEE_OPTION})
+        AnnotationProcessor.OUTPUT_FILE_BUNGEE_OPTION,
+        AnnotationProcessor.OUTPUT_DETERMINISTIC_OPTION,
+        AnnotationProcessor.OUTPUT_CLASS_OPTION,
+        AnnotationProcessor.OUTPUT_PERMISSIONS_OPTION,
+        AnnotationProcessor.OUTPUT_COMPLETIONS_OPTION,
+        AnnotationProcessor.OUTPUT_BINARY_OPTION})
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
 public class AnnotationProcessor extends AbstractProcessor {
 
@@ -74,6 +85,11 @@ public class AnnotationProcessor extends AbstractProcessor {
      * Extra BungeeCord metadata files option for gradle plugin.
      */
     public static final String EXTRA_FILES_BUNGEE_OPTION = "extraMetaFilesBungee";
+    /**
+     * Cache directory for parsed extra metadata files option for gradle
+     * plugin. The cache is disabled if not set.
+     */
+    public static final String EXTRA_FILES_CACHE_OPTION = "extraMetaCache";
     /**
      * Spigot yaml file location option for gradle plugin.
      */
@@ -82,6 +98,31 @@ public class AnnotationProcessor extends AbstractProcessor {
      * BungeeCord yaml file location option for gradle plugin.
      */
     public static final String OUTPUT_FILE_BUNGEE_OPTION = "metaOutputFileBungee";
+    /**
+     * Deterministic yaml output option for gradle plugin. If true the yaml
+     * header contains no wall-clock timestamp.
+     */
+    public static final String OUTPUT_DETERMINISTIC_OPTION = "metaDeterministic";
+    /**
+     * Generated metadata class option for gradle plugin. If true a class
+     * building the metadata without parsing yaml is generated.
+     */
+    public static final String OUTPUT_CLASS_OPTION = "metaGenerateClass";
+    /**
+     * Generated permissions class option for gradle plugin. If true a class
+     * with a constant for each spigot permission node is generated.
+     */
+    public static final String OUTPUT_PERMISSIONS_OPTION = "metaGeneratePermissions";
+    /**
+     * Generated completions class option for gradle plugin. If true a class
+     * with tab completion tries of the spigot commands is generated.
+     */
+    public static final String OUTPUT_COMPLETIONS_OPTION = "metaGenerateCompletions";
+    /**
+     * Binary metadata option for gradle plugin. If true a binary metadata file
+     * is written next to the yaml file.
+     */
+    public static final String OUTPUT_BINARY_OPTION = "metaBinary";
 
     /**
      * Splitter for splitting strings by ';'.
@@ -96,17 +137,31 @@ public class AnnotationProcessor extends AbstractProcessor {
      * The {@link MetadataProcessor} for BungeeCord.
      */
     private final MetadataProcessor _processorBungee = new MetadataProcessor();
+    /**
+     * The {@link EventRegistrationGenerator} for methods annotated with
+     * {@link Listen}.
+     */
+    private EventRegistrationGenerator _eventRegistration;
+    /**
+     * The {@link AnnotationReader} for checking the annotations of elements.
+     */
+    private AnnotationReader _reader;
 
+    /**
+     * The cache for parsed extra metadata from
+     * {@link AnnotationProcessor#EXTRA_FILES_CACHE_OPTION}.
+     */
+    private MetadataCache _cache;
     /**
      * The parsed extra metadata from
      * {@link AnnotationProcessor#EXTRA_FILES_SPIGOT_OPTION}.
      */
-    private PluginMetadata _metaSpigot;
+    private PluginMetadataOverlay _metaSpigot;
     /**
      * The parsed extra metadata from
      * {@link AnnotationProcessor#EXTRA_FILES_BUNGEE_OPTION}.
      */
-    private PluginMetadata _metaBungee;
+    private PluginMetadataOverlay _metaBungee;
     /**
      * The output path from
      * {@link AnnotationProcessor#OUTPUT_FILE_SPIGOT_OPTION}.
@@ -117,6 +172,31 @@ public class AnnotationProcessor extends AbstractProcessor {
      * {@link AnnotationProcessor#OUTPUT_FILE_BUNGEE_OPTION}.
      */
     private Path _outputPathBungee;
+    /**
+     * The deterministic flag from
+     * {@link AnnotationProcessor#OUTPUT_DETERMINISTIC_OPTION}.
+     */
+    private boolean _deterministic;
+    /**
+     * The generate class flag from
+     * {@link AnnotationProcessor#OUTPUT_CLASS_OPTION}.
+     */
+    private boolean _generateClass;
+    /**
+     * The generate permissions flag from
+     * {@link AnnotationProcessor#OUTPUT_PERMISSIONS_OPTION}.
+     */
+    private boolean _generatePermissions;
+    /**
+     * The generate completions flag from
+     * {@link AnnotationProcessor#OUTPUT_COMPLETIONS_OPTION}.
+     */
+    private boolean _generateCompletions;
+    /**
+     * The binary output flag from
+     * {@link AnnotationProcessor#OUTPUT_BINARY_OPTION}.
+     */
+    private boolean _binary;
 
     /**
      * {@inheritDoc}.
@@ -126,12 +206,19 @@ public class AnnotationProcessor extends AbstractProcessor {
         super.init(processingEnv);
         _processorSpigot.init(processingEnv);
         _processorBungee.init(processingEnv);
+        _reader = new AnnotationReader(processingEnv.getElementUtils());
+        _eventRegistration = new EventRegistrationGenerator(processingEnv, _reader);
+
+        String cacheDirectory = processingEnv.getOptions().get(EXTRA_FILES_CACHE_OPTION);
+        if (cacheDirectory != null && !cacheDirectory.isEmpty()) {
+            _cache = new MetadataCache(Paths.get(cacheDirectory));
+        }
 
         String extraFiles = processingEnv.getOptions().get(EXTRA_FILES_SPIGOT_OPTION);
-        _metaSpigot = initExtraFiles(extraFiles, _metaSpigot);
+        _metaSpigot = initExtraFiles(extraFiles);
 
         extraFiles = processingEnv.getOptions().get(EXTRA_FILES_BUNGEE_OPTION);
-        _metaBungee = initExtraFiles(extraFiles, _metaBungee);
+        _metaBungee = initExtraFiles(extraFiles);
 
         String outputFile = processingEnv.getOptions().get(OUTPUT_FILE_SPIGOT_OPTION);
         if (outputFile != null && !outputFile.isEmpty()) {
@@ -142,18 +229,23 @@ public class AnnotationProcessor extends AbstractProcessor {
         if (outputFile != null && !outputFile.isEmpty()) {
             _outputPathBungee = Paths.get(outputFile);
         }
+
+        _deterministic = Boolean.parseBoolean(processingEnv.getOptions().get(OUTPUT_DETERMINISTIC_OPTION));
+        _generateClass = Boolean.parseBoolean(processingEnv.getOptions().get(OUTPUT_CLASS_OPTION));
+        _generatePermissions = Boolean.parseBoolean(processingEnv.getOptions().get(OUTPUT_PERMISSIONS_OPTION));
+        _generateCompletions = Boolean.parseBoolean(processingEnv.getOptions().get(OUTPUT_COMPLETIONS_OPTION));
+        _binary = Boolean.parseBoolean(processingEnv.getOptions().get(OUTPUT_BINARY_OPTION));
     }
 
-    private PluginMetadata initExtraFiles(String extraFiles, PluginMetadata metaData) {
+    private PluginMetadataOverlay initExtraFiles(String extraFiles) {
+        PluginMetadataOverlay metaData = new PluginMetadataOverlay();
         if (extraFiles != null && !extraFiles.isEmpty()) {
             for (String extraFile : SPLITTER.split(extraFiles)) {
                 Path path = Paths.get(extraFile);
                 try {
-                    PluginMetadata meta = PluginYml.read(path);
-                    if (metaData == null) {
-                        metaData = meta;
-                    } else {
-                        metaData.accept(meta);
+                    PluginMetadata meta = _cache != null ? _cache.read(path) : PluginYml.read(path);
+                    if (meta != null) {
+                        metaData.push(meta);
                     }
                 } catch (IOException e) {
                     getMessager().printMessage(ERROR, "Failed to read extra plugin metadata from " + path + ": " + e.getMessage());
@@ -170,12 +262,20 @@ public class AnnotationProcessor extends AbstractProcessor {
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         if (roundEnv.processingOver()) {
             if (!roundEnv.errorRaised()) {
-                _processorSpigot.finish(_outputPathSpigot);
-                _processorBungee.finish(_outputPathBungee);
+                _processorSpigot.finish(_outputPathSpigot, _deterministic, _binary);
+                _processorBungee.finish(_outputPathBungee, _deterministic, _binary);
             }
             return false;
         }
 
+        _eventRegistration.process(roundEnv.getElementsAnnotatedWith(Listen.class));
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(Command.class)) {
+            if (_reader.read(element.getEnclosingElement(), Plugin.class.getName()) == null) {
+                getMessager().printMessage(ERROR, "Method annotated with @Command is not declared in a class annotated with @Plugin", element);
+            }
+        }
+
         if (!contains(annotations, Plugin.class)) {
             return false;
         }
@@ -281,6 +381,17 @@ public class AnnotationProcessor extends AbstractProcessor {
                 }
             }
         }
+
+        if (_generateClass) {
+            _processorSpigot.generateClass();
+            _processorBungee.generateClass();
+        }
+        if (_generatePermissions) {
+            _processorSpigot.generatePermissions();
+        }
+        if (_generateCompletions) {
+            _processorSpigot.generateCompletions();
+        }
         return false;
     }
 
@@ -0,0 +1,185 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.QualifiedNameable;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.SimpleAnnotationValueVisitor8;
+
+/**
+ * Reads annotations from their {@link AnnotationMirror}s.
+ *
+ * </p> Unlike {@link Element#getAnnotation(Class)} no proxy is created for
+ * the annotation and its nested annotations and no enum or class is loaded.
+ * Each mirror is visited once and converted into {@link Values}, which also
+ * keep the mirror and the explicitly set values so messages can point to the
+ * exact position in the source.
+ */
+class AnnotationReader {
+
+    private final Elements _elements;
+    private final Visitor _visitor = new Visitor();
+
+    AnnotationReader(Elements elements) {
+        _elements = elements;
+    }
+
+    /**
+     * Finds and reads the annotation of the given type on an element.
+     *
+     * @param element The annotated element
+     * @param type The qualified name of the annotation type
+     * @return The values of the annotation or null if the element is not
+     *         annotated with it
+     */
+    Values read(Element element, String type) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((QualifiedNameable) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(type)) {
+                return read(mirror);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the given annotation including its default values.
+     *
+     * @param mirror The annotation
+     * @return The values of the annotation
+     */
+    Values read(AnnotationMirror mirror) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> explicit = mirror.getElementValues();
+        Map<String, Object> values = new HashMap<>();
+        Map<String, AnnotationValue> positions = new HashMap<>();
+        _elements.getElementValuesWithDefaults(mirror).forEach((member, value) -> {
+            String name = member.getSimpleName().toString();
+            values.put(name, value.accept(_visitor, null));
+            if (explicit.containsKey(member)) {
+                positions.put(name, value);
+            }
+        });
+        return new Values(mirror, values, positions);
+    }
+
+    /**
+     * Converts annotation values into strings, boxed primitives, enum
+     * constant names, {@link Values} and lists.
+     */
+    private class Visitor extends SimpleAnnotationValueVisitor8<Object, Void> {
+
+        @Override
+        protected Object defaultAction(Object value, Void parameter) {
+            return value;
+        }
+
+        @Override
+        public Object visitEnumConstant(VariableElement constant, Void parameter) {
+            return constant.getSimpleName().toString();
+        }
+
+        @Override
+        public Object visitAnnotation(AnnotationMirror mirror, Void parameter) {
+            return read(mirror);
+        }
+
+        @Override
+        public Object visitArray(List<? extends AnnotationValue> values, Void parameter) {
+            List<Object> list = new ArrayList<>(values.size());
+            for (AnnotationValue value : values) {
+                list.add(value.accept(this, null));
+            }
+            return list;
+        }
+    }
+
+    /**
+     * The values of a read annotation.
+     */
+    static final class Values {
+
+        private final AnnotationMirror _mirror;
+        private final Map<String, Object> _values;
+        private final Map<String, AnnotationValue> _positions;
+
+        private Values(AnnotationMirror mirror, Map<String, Object> values, Map<String, AnnotationValue> positions) {
+            _mirror = mirror;
+            _values = values;
+            _positions = positions;
+        }
+
+        /**
+         * Gets the mirror the values were read from.
+         *
+         * @return The mirror
+         */
+        AnnotationMirror getMirror() {
+            return _mirror;
+        }
+
+        /**
+         * Gets the explicitly set value of a member for reporting messages.
+         *
+         * @param name The member name
+         * @return The value or null if the default value is used
+         */
+        AnnotationValue getPosition(String name) {
+            return _positions.get(name);
+        }
+
+        String getString(String name) {
+            return (String) _values.get(name);
+        }
+
+        boolean getBoolean(String name) {
+            return (Boolean) _values.get(name);
+        }
+
+        <E extends Enum<E>> E getEnum(String name, Class<E> type) {
+            return Enum.valueOf(type, (String) _values.get(name));
+        }
+
+        Values getAnnotation(String name) {
+            return (Values) _values.get(name);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> getStrings(String name) {
+            return (List<String>) _values.get(name);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Values> getAnnotations(String name) {
+            return (List<Values>) _values.get(name);
+        }
+    }
+}
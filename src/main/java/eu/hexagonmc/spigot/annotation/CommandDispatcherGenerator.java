@@ -0,0 +1,199 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation;
+
+import static eu.hexagonmc.spigot.annotation.SourceWriter.INDENT;
+import static eu.hexagonmc.spigot.annotation.SourceWriter.literal;
+
+import com.google.common.base.Joiner;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.plugin.Command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * Generates a command executor dispatching the commands of a plugin to the
+ * methods annotated with {@link Command} without reflection.
+ *
+ * </p> The executor switches over the name of the executed command, which the
+ * compiler turns into a hash code lookup switch, and calls the method
+ * directly. The aliases of a command get their own case labels so the
+ * dispatcher can also be invoked with an alias name.
+ */
+class CommandDispatcherGenerator {
+
+    /**
+     * The suffix appended to the binary name of the plugin main-class to name
+     * the generated dispatcher class.
+     */
+    static final String CLASS_SUFFIX = "$CommandDispatcher";
+
+    private static final String COMMAND_SENDER = "org.bukkit.command.CommandSender";
+    private static final String COMMAND = "org.bukkit.command.Command";
+
+    private static final Joiner JOINER = Joiner.on(", ");
+
+    private final ProcessingEnvironment _processingEnv;
+
+    CommandDispatcherGenerator(ProcessingEnvironment processingEnv) {
+        _processingEnv = processingEnv;
+    }
+
+    /**
+     * Generates the dispatcher class for the given plugin main-class.
+     *
+     * @param element The plugin main-class
+     * @param methods The validated methods annotated with {@link Command} and
+     *        their commands
+     * @throws IOException if the file can not be written
+     */
+    void generate(TypeElement element, Map<ExecutableElement, PluginCommand> methods) throws IOException {
+        PackageElement pkg = _processingEnv.getElementUtils().getPackageOf(element);
+        String binaryName = _processingEnv.getElementUtils().getBinaryName(element).toString() + CLASS_SUFFIX;
+        String simpleName = pkg.isUnnamed() ? binaryName : binaryName.substring(pkg.getQualifiedName().length() + 1);
+        String main = element.getQualifiedName().toString();
+
+        SourceWriter source = new SourceWriter();
+        if (!pkg.isUnnamed()) {
+            source.line("package " + pkg.getQualifiedName() + ";").line();
+        }
+        source.line("/**")
+                .line(" * Auto-generated command dispatcher, generated by " + AnnotationProcessor.class.getName() + ".")
+                .line(" */")
+                .open("public final class " + simpleName + " implements org.bukkit.command.CommandExecutor")
+                .line()
+                .line("private final " + main + " _plugin;")
+                .line()
+                .open("public " + simpleName + "(" + main + " plugin)")
+                .line("_plugin = plugin;")
+                .close()
+                .line()
+                .line("/**")
+                .line(" * Creates a dispatcher for the given plugin and sets it as executor of all its commands.")
+                .line(" *")
+                .line(" * @param plugin The plugin")
+                .line(" * @return The dispatcher")
+                .line(" */")
+                .open("public static " + simpleName + " register(" + main + " plugin)")
+                .line(simpleName + " dispatcher = new " + simpleName + "(plugin);");
+        for (PluginCommand command : methods.values()) {
+            source.line("plugin.getCommand(" + literal(command.getName()) + ").setExecutor(dispatcher);");
+        }
+        source.line("return dispatcher;")
+                .close()
+                .line()
+                .line("@Override")
+                .open("public boolean onCommand(" + COMMAND_SENDER + " sender, " + COMMAND + " command, String label, String[] args)")
+                .line("return dispatch(command.getName(), sender, command, label, args);")
+                .close()
+                .line()
+                .line("/**")
+                .line(" * Dispatches the command with the given name or alias.")
+                .line(" *")
+                .line(" * @param name The command name or alias")
+                .line(" * @param sender The sender of the command")
+                .line(" * @param command The executed command")
+                .line(" * @param label The used alias")
+                .line(" * @param args The passed arguments")
+                .line(" * @return false if the command is unknown or the method returned false")
+                .line(" */")
+                .open("public boolean dispatch(String name, " + COMMAND_SENDER + " sender, " + COMMAND + " command, String label, String[] args)")
+                .open("switch (name)");
+
+        Set<String> labels = new HashSet<>();
+        methods.values().forEach(command -> labels.add(command.getName()));
+        for (Map.Entry<ExecutableElement, PluginCommand> entry : methods.entrySet()) {
+            ExecutableElement method = entry.getKey();
+            source.line("case " + literal(entry.getValue().getName()) + ":");
+            for (String alias : entry.getValue().getAliases()) {
+                // An alias colliding with another label would not compile
+                if (labels.add(alias)) {
+                    source.line("case " + literal(alias) + ":");
+                }
+            }
+            String receiver = method.getModifiers().contains(Modifier.STATIC) ? main : "_plugin";
+            String call = receiver + "." + method.getSimpleName() + "(" + JOINER.join(arguments(method)) + ")";
+            if (method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+                source.line(INDENT + "return " + call + ";");
+            } else {
+                source.line(INDENT + call + ";")
+                        .line(INDENT + "return true;");
+            }
+        }
+        source.line("default:")
+                .line(INDENT + "return false;")
+                .close()
+                .close()
+                .close();
+
+        source.writeTo(_processingEnv.getFiler(), pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName, element);
+    }
+
+    /**
+     * Gets the arguments passed to the given method by the dispatcher.
+     *
+     * @param method The method annotated with {@link Command}
+     * @return The argument expressions or null if a parameter is not supported
+     *         or used twice
+     */
+    static List<String> arguments(ExecutableElement method) {
+        List<String> arguments = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            String argument;
+            switch (parameter.asType().toString()) {
+                case COMMAND_SENDER:
+                    argument = "sender";
+                    break;
+                case COMMAND:
+                    argument = "command";
+                    break;
+                case "java.lang.String":
+                    argument = "label";
+                    break;
+                case "java.lang.String[]":
+                    argument = "args";
+                    break;
+                default:
+                    return null;
+            }
+            if (arguments.contains(argument)) {
+                return null;
+            }
+            arguments.add(argument);
+        }
+        return arguments;
+    }
+}
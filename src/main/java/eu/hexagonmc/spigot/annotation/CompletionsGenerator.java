@@ -0,0 +1,191 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation;
+
+import static eu.hexagonmc.spigot.annotation.SourceWriter.INDENT;
+import static eu.hexagonmc.spigot.annotation.SourceWriter.literal;
+
+import eu.hexagonmc.spigot.annotation.meta.CompletionTrie;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Generates a class holding {@link CompletionTrie}s for the tab completion of
+ * the commands of a plugin.
+ *
+ * </p> The words are sorted and deduplicated at compile time in the order the
+ * trie stores them, so building the tries when the class is initialized is a
+ * single linear pass. Large word lists are filled into their array by
+ * generated methods of limited size, so many commands do not exceed the
+ * method size limit of the class initializer.
+ */
+class CompletionsGenerator {
+
+    /**
+     * The suffix appended to the binary name of the plugin main-class to name
+     * the generated completions class.
+     */
+    static final String CLASS_SUFFIX = "$Completions";
+    /**
+     * Maximum number of words passed inline or filled into a word array per
+     * generated method to stay below the method size limit.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private final ProcessingEnvironment _processingEnv;
+
+    CompletionsGenerator(ProcessingEnvironment processingEnv) {
+        _processingEnv = processingEnv;
+    }
+
+    /**
+     * Generates the completions class for the given plugin main-class.
+     *
+     * @param element The plugin main-class
+     * @param meta The metadata declaring the commands
+     * @param subcommands The sub-commands by command name
+     * @throws IOException if the file can not be written
+     */
+    void generate(TypeElement element, PluginMetadata meta, Map<String, String[]> subcommands) throws IOException {
+        PackageElement pkg = _processingEnv.getElementUtils().getPackageOf(element);
+        String binaryName = _processingEnv.getElementUtils().getBinaryName(element).toString() + CLASS_SUFFIX;
+        String simpleName = pkg.isUnnamed() ? binaryName : binaryName.substring(pkg.getQualifiedName().length() + 1);
+
+        SourceWriter source = new SourceWriter();
+        if (!pkg.isUnnamed()) {
+            source.line("package " + pkg.getQualifiedName() + ";").line();
+        }
+        source.line("import eu.hexagonmc.spigot.annotation.meta.CompletionTrie;")
+                .line()
+                .line("/**")
+                .line(" * Auto-generated tab completions, generated by " + AnnotationProcessor.class.getName() + ".")
+                .line(" */")
+                .open("public final class " + simpleName)
+                .line()
+                .line("/**")
+                .line(" * The names and aliases of all commands.")
+                .line(" */");
+        Map<String, List<String>> large = new LinkedHashMap<>();
+        trie(source, "public static final CompletionTrie COMMANDS", "commandWords", CompletionTrie.of(meta).getWords(), large);
+
+        List<PluginCommand> commands = meta.getCommands().stream()
+                .filter(command -> subcommands.containsKey(command.getName()))
+                .sorted(Comparator.comparing(PluginCommand::getName))
+                .collect(Collectors.toList());
+        for (int i = 0; i < commands.size(); i++) {
+            trie(source, "private static final CompletionTrie SUBCOMMANDS" + i, "subcommandWords" + i,
+                    CompletionTrie.of(subcommands.get(commands.get(i).getName())).getWords(), large);
+        }
+
+        source.line()
+                .open("private " + simpleName + "()")
+                .close()
+                .line()
+                .line("/**")
+                .line(" * Gets the sub-commands of the command with the given name or alias.")
+                .line(" *")
+                .line(" * @param command The command name or alias")
+                .line(" * @return The sub-commands, empty if the command has none")
+                .line(" */")
+                .open("public static CompletionTrie subcommands(String command)")
+                .open("switch (command)");
+        // Command names take precedence over aliases, also over the aliases
+        // of commands without sub-commands
+        Set<String> labels = new HashSet<>();
+        meta.getCommands().forEach(command -> labels.add(command.getName()));
+        for (int i = 0; i < commands.size(); i++) {
+            PluginCommand command = commands.get(i);
+            source.line("case " + literal(command.getName()) + ":");
+            for (String alias : command.getAliases()) {
+                if (labels.add(alias)) {
+                    source.line("case " + literal(alias) + ":");
+                }
+            }
+            source.line(INDENT + "return SUBCOMMANDS" + i + ";");
+        }
+        source.line("default:")
+                .line(INDENT + "return CompletionTrie.EMPTY;")
+                .close()
+                .close();
+        large.forEach((method, words) -> words(source, method, words));
+        source.close();
+
+        source.writeTo(_processingEnv.getFiler(), pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName, element);
+    }
+
+    /**
+     * Declares a trie of the given words. Word lists larger than a chunk are
+     * built by the given method, which is added to the large lists to be
+     * generated at the end of the class.
+     */
+    private static void trie(SourceWriter source, String declaration, String method, List<String> words, Map<String, List<String>> large) {
+        if (words.isEmpty()) {
+            source.line(declaration + " = CompletionTrie.EMPTY;");
+        } else if (words.size() > CHUNK_SIZE) {
+            source.line(declaration + " = CompletionTrie.of(" + method + "());");
+            large.put(method, words);
+        } else {
+            source.line(declaration + " = CompletionTrie.of(");
+            for (int i = 0; i < words.size(); i++) {
+                source.line(INDENT + INDENT + literal(words.get(i)) + (i + 1 < words.size() ? "," : ");"));
+            }
+        }
+    }
+
+    /**
+     * Generates the method building the array of the given words, filled in
+     * chunks by one method each.
+     */
+    private static void words(SourceWriter source, String method, List<String> words) {
+        int chunks = (words.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        source.line()
+                .open("private static String[] " + method + "()")
+                .line("String[] words = new String[" + words.size() + "];");
+        for (int i = 0; i < chunks; i++) {
+            source.line(method + "Part" + i + "(words);");
+        }
+        source.line("return words;")
+                .close();
+        for (int i = 0; i < chunks; i++) {
+            source.line()
+                    .open("private static void " + method + "Part" + i + "(String[] words)");
+            for (int j = i * CHUNK_SIZE; j < Math.min(words.size(), (i + 1) * CHUNK_SIZE); j++) {
+                source.line("words[" + j + "] = " + literal(words.get(j)) + ";");
+            }
+            source.close();
+        }
+    }
+}
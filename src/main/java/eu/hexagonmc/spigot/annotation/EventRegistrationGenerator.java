@@ -0,0 +1,181 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation;
+
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+import eu.hexagonmc.spigot.annotation.AnnotationReader.Values;
+import eu.hexagonmc.spigot.annotation.event.EventPriority;
+import eu.hexagonmc.spigot.annotation.event.Listen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+/**
+ * Generates classes registering the methods annotated with {@link Listen}
+ * without reflection.
+ *
+ * </p> Each handler is registered with an executor checking the event type
+ * with {@code instanceof} and calling the method directly, like the executor
+ * Bukkit creates reflectively for {@code @EventHandler} methods.
+ */
+class EventRegistrationGenerator {
+
+    /**
+     * The suffix appended to the binary name of the listener class to name
+     * the generated registration class.
+     */
+    static final String CLASS_SUFFIX = "$EventRegistration";
+
+    private static final String EVENT = "org.bukkit.event.Event";
+    private static final String LISTENER = "org.bukkit.event.Listener";
+
+    private final ProcessingEnvironment _processingEnv;
+    private final AnnotationReader _reader;
+
+    EventRegistrationGenerator(ProcessingEnvironment processingEnv, AnnotationReader reader) {
+        _processingEnv = processingEnv;
+        _reader = reader;
+    }
+
+    /**
+     * Validates the given handler methods and generates the registration
+     * classes of their declaring classes.
+     *
+     * @param elements The elements annotated with {@link Listen}
+     */
+    void process(Iterable<? extends Element> elements) {
+        Map<TypeElement, List<ExecutableElement>> listeners = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(elements)) {
+            listeners.computeIfAbsent((TypeElement) method.getEnclosingElement(), type -> new ArrayList<>()).add(method);
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        TypeElement event = _processingEnv.getElementUtils().getTypeElement(EVENT);
+        TypeElement listener = _processingEnv.getElementUtils().getTypeElement(LISTENER);
+        if (event == null || listener == null) {
+            listeners.values().forEach(methods -> methods.forEach(method ->
+                    error(EVENT + " not on classpath. Can not register event handler.", method)));
+            return;
+        }
+
+        listeners.forEach((type, methods) -> {
+            boolean valid = true;
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                error("Class declaring event handlers must not be private", type);
+                valid = false;
+            }
+            if (!_processingEnv.getTypeUtils().isAssignable(type.asType(), _processingEnv.getTypeUtils().erasure(listener.asType()))) {
+                error("Class declaring event handlers must implement " + LISTENER, type);
+                valid = false;
+            }
+            for (ExecutableElement method : methods) {
+                if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                    error("Event handler must not be private", method);
+                    valid = false;
+                } else if (method.getParameters().size() != 1
+                        || !_processingEnv.getTypeUtils().isSubtype(method.getParameters().get(0).asType(), event.asType())) {
+                    error("Event handler must have exactly one parameter extending " + EVENT, method);
+                    valid = false;
+                } else if (method.getReturnType().getKind() != TypeKind.VOID) {
+                    error("Event handler must return void", method);
+                    valid = false;
+                }
+            }
+            if (valid) {
+                try {
+                    generate(type, methods);
+                } catch (IOException e) {
+                    error("Failed to generate event registration: " + e.getMessage(), type);
+                }
+            }
+        });
+    }
+
+    private void generate(TypeElement element, List<ExecutableElement> methods) throws IOException {
+        PackageElement pkg = _processingEnv.getElementUtils().getPackageOf(element);
+        String binaryName = _processingEnv.getElementUtils().getBinaryName(element).toString() + CLASS_SUFFIX;
+        String simpleName = pkg.isUnnamed() ? binaryName : binaryName.substring(pkg.getQualifiedName().length() + 1);
+        String listener = _processingEnv.getTypeUtils().erasure(element.asType()).toString();
+
+        SourceWriter source = new SourceWriter();
+        if (!pkg.isUnnamed()) {
+            source.line("package " + pkg.getQualifiedName() + ";").line();
+        }
+        source.line("/**")
+                .line(" * Auto-generated event registration, generated by " + AnnotationProcessor.class.getName() + ".")
+                .line(" */")
+                .open("public final class " + simpleName)
+                .line()
+                .open("private " + simpleName + "()")
+                .close()
+                .line()
+                .line("/**")
+                .line(" * Registers all event handlers of the given listener.")
+                .line(" *")
+                .line(" * @param listener The listener")
+                .line(" * @param plugin The plugin registering the listener")
+                .line(" */")
+                .open("public static void register(" + listener + " listener, org.bukkit.plugin.Plugin plugin)")
+                .line("org.bukkit.plugin.PluginManager manager = plugin.getServer().getPluginManager();");
+        for (ExecutableElement method : methods) {
+            Values listen = _reader.read(method, Listen.class.getName());
+            TypeMirror type = _processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType());
+            String receiver = method.getModifiers().contains(Modifier.STATIC) ? listener : "listener";
+            EventPriority priority = listen.getEnum("priority", EventPriority.class);
+            source.open("manager.registerEvent(" + type + ".class, listener, org.bukkit.event.EventPriority." + priority.name()
+                    + ", (instance, event) ->")
+                    .open("if (event instanceof " + type + ")")
+                    .open("try")
+                    .line(receiver + "." + method.getSimpleName() + "((" + type + ") event);")
+                    .reopen("catch (Throwable t)")
+                    .line("throw new org.bukkit.event.EventException(t);")
+                    .close()
+                    .close()
+                    .close("}, plugin, " + listen.getBoolean("ignoreCancelled") + ");");
+        }
+        source.close()
+                .close();
+
+        source.writeTo(_processingEnv.getFiler(), pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName, element);
+    }
+
+    private void error(String message, Element element) {
+        _processingEnv.getMessager().printMessage(ERROR, message, element);
+    }
+}
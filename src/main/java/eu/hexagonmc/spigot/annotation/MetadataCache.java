@@ -0,0 +1,120 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation;
+
+import com.google.common.hash.Hashing;
+import eu.hexagonmc.spigot.annotation.meta.PluginBinary;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * On-disk cache for parsed extra metadata files.
+ *
+ * </p> Each yaml file is cached in its own file keyed by the absolute path,
+ * size and modification time of the source, so unchanged files are not parsed
+ * again on the next compilation. The metadata itself is stored using
+ * {@link PluginBinary}.
+ */
+class MetadataCache {
+
+    /**
+     * Magic number at the start of each cache file.
+     */
+    private static final int MAGIC = 0x48534d43;
+    /**
+     * Version of the cache file format.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The directory the cache files are stored in.
+     */
+    private final Path _directory;
+
+    /**
+     * Creates a new cache storing its files in the given directory.
+     *
+     * @param directory The cache directory
+     */
+    MetadataCache(Path directory) {
+        _directory = directory;
+    }
+
+    /**
+     * Reads metadata from the given path using the cached copy if the file is
+     * unchanged.
+     *
+     * @param path The path to read from
+     * @return The read metadata
+     * @throws IOException if the file can not be read
+     */
+    PluginMetadata read(Path path) throws IOException {
+        Path source = path.toAbsolutePath();
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Path cacheFile = _directory.resolve(Hashing.sha256().hashString(source.toString(), StandardCharsets.UTF_8) + ".bin");
+
+        if (Files.isRegularFile(cacheFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION && source.toString().equals(in.readUTF())
+                        && in.readLong() == size && in.readLong() == modified) {
+                    return PluginBinary.read(in);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Broken cache file, parse the source again
+            }
+        }
+
+        PluginMetadata meta = PluginYml.read(source);
+        if (meta != null) {
+            try {
+                Files.createDirectories(_directory);
+                Path temp = Files.createTempFile(_directory, "meta", ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeUTF(source.toString());
+                    out.writeLong(size);
+                    out.writeLong(modified);
+                    PluginBinary.write(out, meta);
+                }
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                // The cache is optional, ignore failures
+            }
+        }
+        return meta;
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation;
+
+import static eu.hexagonmc.spigot.annotation.SourceWriter.literal;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+
+import com.google.common.collect.Iterables;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginDependency;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataLoader;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.FileObject;
+
+/**
+ * Generates a class building the {@link PluginMetadata} of a plugin directly
+ * so it does not need to be parsed from yaml at runtime.
+ *
+ * @see PluginMetadataLoader
+ */
+class MetadataClassGenerator {
+
+    /**
+     * Maximum number of commands or permissions built per generated method to
+     * stay below the method size limit.
+     */
+    private static final int CHUNK_SIZE = 200;
+
+    private final ProcessingEnvironment _processingEnv;
+
+    MetadataClassGenerator(ProcessingEnvironment processingEnv) {
+        _processingEnv = processingEnv;
+    }
+
+    /**
+     * Generates the metadata class for the given plugin main-class and the
+     * index resource pointing to it.
+     *
+     * @param element The plugin main-class
+     * @param meta The metadata to generate the class for
+     * @param filename The yaml filename of the metadata
+     * @throws IOException if a file can not be written
+     */
+    void generate(TypeElement element, PluginMetadata meta, String filename) throws IOException {
+        PackageElement pkg = _processingEnv.getElementUtils().getPackageOf(element);
+        String binaryName = _processingEnv.getElementUtils().getBinaryName(element).toString() + PluginMetadataLoader.CLASS_SUFFIX;
+        String simpleName = pkg.isUnnamed() ? binaryName : binaryName.substring(pkg.getQualifiedName().length() + 1);
+
+        SourceWriter source = new SourceWriter();
+        if (!pkg.isUnnamed()) {
+            source.line("package " + pkg.getQualifiedName() + ";").line();
+        }
+        source.line("import eu.hexagonmc.spigot.annotation.meta.DependencyType;")
+                .line("import eu.hexagonmc.spigot.annotation.meta.LoadOn;")
+                .line("import eu.hexagonmc.spigot.annotation.meta.PermissionDefault;")
+                .line("import eu.hexagonmc.spigot.annotation.meta.PluginCommand;")
+                .line("import eu.hexagonmc.spigot.annotation.meta.PluginDependency;")
+                .line("import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;")
+                .line("import eu.hexagonmc.spigot.annotation.meta.PluginPermission;")
+                .line()
+                .line("import java.util.function.Supplier;")
+                .line()
+                .line("/**")
+                .line(" * Auto-generated plugin metadata, generated by " + AnnotationProcessor.class.getName() + ".")
+                .line(" */")
+                .open("public final class " + simpleName + " implements Supplier<PluginMetadata>")
+                .line()
+                .line("@Override")
+                .open("public PluginMetadata get()");
+        source.line("PluginMetadata meta = new PluginMetadata(" + literal(meta.getName()) + ");");
+        setIfPresent(source, "meta", "setVersion", meta.getVersion());
+        setIfPresent(source, "meta", "setDescription", meta.getDescription());
+        if (meta.getLoadOn() != null) {
+            source.line("meta.setLoadOn(LoadOn." + meta.getLoadOn().name() + ");");
+        }
+        for (String author : meta.getAuthors()) {
+            source.line("meta.addAuthor(" + literal(author) + ");");
+        }
+        setIfPresent(source, "meta", "setWebsite", meta.getWebsite());
+        setIfPresent(source, "meta", "setMain", meta.getMain());
+        if (meta.getDatabase() != null) {
+            source.line("meta.setDatabase(" + meta.getDatabase() + ");");
+        }
+        for (PluginDependency dependency : meta.getDependencies()) {
+            source.line("meta.addDependency(dependency(" + literal(dependency.getName()) + ", "
+                    + (dependency.getType() == null ? "null" : "DependencyType." + dependency.getType().name()) + "));");
+        }
+        setIfPresent(source, "meta", "setPrefix", meta.getPrefix());
+
+        List<List<PluginCommand>> commands = chunks(meta.getCommands(), Comparator.comparing(PluginCommand::getName));
+        for (int i = 0; i < commands.size(); i++) {
+            source.line("commands" + i + "(meta);");
+        }
+        List<List<PluginPermission>> permissions = chunks(meta.getPermissions(), Comparator.comparing(PluginPermission::getName));
+        for (int i = 0; i < permissions.size(); i++) {
+            source.line("permissions" + i + "(meta);");
+        }
+        source.line("return meta;")
+                .close();
+
+        for (int i = 0; i < commands.size(); i++) {
+            source.line().open("private static void commands" + i + "(PluginMetadata meta)")
+                    .line("PluginCommand command;");
+            for (PluginCommand command : commands.get(i)) {
+                source.line("command = new PluginCommand(" + literal(command.getName()) + ");");
+                setIfPresent(source, "command", "setDescription", command.getDescription());
+                for (String alias : command.getAliases()) {
+                    source.line("command.addAlias(" + literal(alias) + ");");
+                }
+                setIfPresent(source, "command", "setPermission", command.getPermission());
+                setIfPresent(source, "command", "setUsage", command.getUsage());
+                source.line("meta.addCommand(command);");
+            }
+            source.close();
+        }
+
+        for (int i = 0; i < permissions.size(); i++) {
+            source.line().open("private static void permissions" + i + "(PluginMetadata meta)")
+                    .line("PluginPermission permission;");
+            for (PluginPermission permission : permissions.get(i)) {
+                source.line("permission = new PluginPermission(" + literal(permission.getName()) + ");");
+                setIfPresent(source, "permission", "setDescription", permission.getDescription());
+                if (permission.getDefault() != null) {
+                    source.line("permission.setDefault(PermissionDefault." + permission.getDefault().name() + ");");
+                }
+                for (Map.Entry<String, Boolean> child : permission.getChilds().entrySet()) {
+                    source.line("permission.addChild(" + literal(child.getKey()) + ", " + child.getValue() + ");");
+                }
+                source.line("meta.addPermission(permission);");
+            }
+            source.close();
+        }
+
+        source.line()
+                .open("private static PluginDependency dependency(String name, DependencyType type)")
+                .line("PluginDependency dependency = new PluginDependency(name);")
+                .line("dependency.setType(type);")
+                .line("return dependency;")
+                .close()
+                .close();
+
+        source.writeTo(_processingEnv.getFiler(), pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName, element);
+
+        FileObject index = _processingEnv.getFiler().createResource(CLASS_OUTPUT, "", filename + PluginMetadataLoader.INDEX_SUFFIX, element);
+        try (Writer writer = index.openWriter()) {
+            writer.write(binaryName);
+            writer.write('\n');
+        }
+    }
+
+    private static void setIfPresent(SourceWriter source, String variable, String setter, String value) {
+        if (value != null) {
+            source.line(variable + "." + setter + "(" + literal(value) + ");");
+        }
+    }
+
+    private static <T> List<List<T>> chunks(Iterable<T> values, Comparator<T> order) {
+        List<T> sorted = new ArrayList<>();
+        values.forEach(sorted::add);
+        sorted.sort(order);
+        List<List<T>> chunks = new ArrayList<>();
+        Iterables.partition(sorted, CHUNK_SIZE).forEach(chunks::add);
+        return chunks;
+    }
+}
@@ -26,66 +26,109 @@ import static eu.hexagonmc.spigot.annotation.meta.PluginMetadata.NAME_PATTERN;
 import static javax.tools.StandardLocation.CLASS_OUTPUT;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 
+import eu.hexagonmc.spigot.annotation.AnnotationReader.Values;
+import eu.hexagonmc.spigot.annotation.meta.DependencyType;
 import eu.hexagonmc.spigot.annotation.meta.LoadOn;
+import eu.hexagonmc.spigot.annotation.meta.PermissionDefault;
+import eu.hexagonmc.spigot.annotation.meta.PluginBinary;
 import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
 import eu.hexagonmc.spigot.annotation.meta.PluginDependency;
 import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataOverlay;
 import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
 import eu.hexagonmc.spigot.annotation.meta.PluginYml;
 import eu.hexagonmc.spigot.annotation.plugin.Command;
-import eu.hexagonmc.spigot.annotation.plugin.Dependency;
 import eu.hexagonmc.spigot.annotation.plugin.Permission;
 import eu.hexagonmc.spigot.annotation.plugin.Plugin;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.io.Writer;
-import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
-import javax.lang.model.element.AnnotationValue;
-import javax.lang.model.element.QualifiedNameable;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic.Kind;
 import javax.tools.FileObject;
 
 class MetadataProcessor {
 
     private TypeElement _element;
-    private Plugin _annotation;
     private AnnotationMirror _mirror;
-    private ImmutableMap<String, Pair<AnnotationMirror, AnnotationValue>> _values;
     private ProcessingEnvironment _processingEnv;
+    private AnnotationReader _reader;
+    /**
+     * Whether the plugin main-class is a spigot plugin.
+     */
+    private boolean _spigot;
+    /**
+     * The layers of extra metadata files with the metadata of the annotation
+     * on top.
+     */
+    private PluginMetadataOverlay _overlay;
+    /**
+     * The metadata of the annotation, the top layer of {@link #_overlay}.
+     */
     private PluginMetadata _meta;
+    /**
+     * The merged metadata of all layers, created on first write.
+     */
+    private PluginMetadata _merged;
     private boolean _processed = false;
+    private boolean _generated = false;
+    private boolean _permissionsGenerated = false;
+    private boolean _completionsGenerated = false;
+    /**
+     * The sub-commands of the annotated commands by command name.
+     */
+    private final Map<String, String[]> _subcommands = new LinkedHashMap<>();
 
     void init(ProcessingEnvironment processingEnv) {
         _processingEnv = processingEnv;
+        _reader = new AnnotationReader(processingEnv.getElementUtils());
     }
 
-    void process(TypeElement element, PluginMetadata meta) {
+    void process(TypeElement element, PluginMetadataOverlay base) {
         _element = element;
-        _annotation = element.getAnnotation(Plugin.class);
-        _mirror = findAnnotationMirror();
-        _values = findAnnotationValues();
+        Values annotation = _reader.read(element, Plugin.class.getName());
+        if (annotation == null) {
+            throw new IllegalArgumentException("Annotation " + Plugin.class.getName() + " not found in " + _element);
+        }
+        _mirror = annotation.getMirror();
+        _spigot = isChildOf("org.bukkit.plugin.java.JavaPlugin");
 
-        final String name = _annotation.name();
+        final String name = annotation.getString("name");
         if (name.isEmpty()) {
-            error("Plugin name cannot be empty", "name");
+            error("Plugin name cannot be empty", annotation, "name");
             return;
         }
 
-        // Create new instance if not got one from gradle
-        _meta = meta;
-        if (_meta == null) {
-            _meta = new PluginMetadata(name);
-        }
+        // Layer the annotation on top of the metadata got from gradle
+        _overlay = base != null ? new PluginMetadataOverlay(base.getLayers()) : new PluginMetadataOverlay();
+        _meta = new PluginMetadata(name);
+        _overlay.push(_meta);
 
         // Set main
         final String mainName = element.getQualifiedName().toString();
@@ -93,16 +136,16 @@ class MetadataProcessor {
 
         // Match name against pattern
         if (!NAME_PATTERN.matcher(name).matches()) {
-            error("Plugin name '" + name + "' must match pattern '" + NAME_PATTERN.pattern() + "'.", "name.");
+            error("Plugin name '" + name + "' must match pattern '" + NAME_PATTERN.pattern() + "'.", annotation, "name");
             return;
         } else {
             _meta.setName(name);
         }
 
         // Parse version
-        String value = _annotation.version();
+        String value = annotation.getString("version");
         if (Strings.isNullOrEmpty(value)) {
-            if (Strings.isNullOrEmpty(_meta.getVersion())) {
+            if (Strings.isNullOrEmpty(_overlay.getVersion())) {
                 warning("Missing plugin version.");
             }
         } else {
@@ -110,9 +153,9 @@ class MetadataProcessor {
         }
 
         // Parse description
-        value = _annotation.description();
+        value = annotation.getString("description");
         if (Strings.isNullOrEmpty(value)) {
-            if (Strings.isNullOrEmpty(_meta.getDescription())) {
+            if (Strings.isNullOrEmpty(_overlay.getDescription())) {
                 warning("Missing plugin description.");
             }
         } else {
@@ -120,45 +163,41 @@ class MetadataProcessor {
         }
 
         // Parse dependencies
-        Dependency[] dependencies = _annotation.dependencies();
-        if (dependencies.length > 0) {
-            for (Dependency dependency : dependencies) {
-                String dependencyName = dependency.name();
-                if (Strings.isNullOrEmpty(dependencyName)) {
-                    error("Dependency name should not be empty.", "dependencies.name");
-                    continue;
-                }
-                _meta.replaceDependency(PluginDependency.from(dependency));
+        for (Values dependency : annotation.getAnnotations("dependencies")) {
+            String dependencyName = dependency.getString("name");
+            if (Strings.isNullOrEmpty(dependencyName)) {
+                error("Dependency name should not be empty.", dependency, "name");
+                continue;
             }
+            PluginDependency pluginDependency = new PluginDependency(dependencyName);
+            pluginDependency.setType(dependency.getEnum("type", DependencyType.class));
+            _meta.replaceDependency(pluginDependency);
         }
 
         // Parse spigot
-        if (_annotation.spigot().set() && isChildOf("org.bukkit.plugin.java.JavaPlugin")) {
+        Values spigot = annotation.getAnnotation("spigot");
+        if (spigot.getBoolean("set") && _spigot) {
             // Parse spigot loadon
-            LoadOn loadOn = _annotation.spigot().load();
-            if (_meta.getLoadOn() == null && loadOn != LoadOn.POSTWORLD) {
+            LoadOn loadOn = spigot.getEnum("load", LoadOn.class);
+            if (_overlay.getLoadOn() == null && loadOn != LoadOn.POSTWORLD) {
                 _meta.setLoadOn(loadOn);
-            } else if (_meta.getLoadOn() != null && _meta.getLoadOn() != loadOn) {
+            } else if (_overlay.getLoadOn() != null && _overlay.getLoadOn() != loadOn) {
                 _meta.setLoadOn(loadOn);
             }
 
             // Parse spigot authors
-            String[] authors = _annotation.spigot().authors();
-            if (authors.length > 0) {
-                _meta.getAuthors().clear();
-                for (String author : authors) {
-                    if (Strings.isNullOrEmpty(author)) {
-                        error("Empty author is not allowed", "spigot.authors");
-                        continue;
-                    }
-                    _meta.addAuthor(author);
+            for (String author : spigot.getStrings("authors")) {
+                if (Strings.isNullOrEmpty(author)) {
+                    error("Empty author is not allowed", spigot, "authors");
+                    continue;
                 }
+                _meta.addAuthor(author);
             }
 
             // Parse spigot website
-            value = _annotation.spigot().website();
+            value = spigot.getString("website");
             if (Strings.isNullOrEmpty(value)) {
-                if (Strings.isNullOrEmpty(_meta.getWebsite())) {
+                if (Strings.isNullOrEmpty(_overlay.getWebsite())) {
                     warning("Missing plugin website");
                 }
             } else {
@@ -166,17 +205,17 @@ class MetadataProcessor {
             }
 
             // Parse spigot database
-            boolean database = _annotation.spigot().database();
-            if (_meta.getDatabase() == null && database) {
+            boolean database = spigot.getBoolean("database");
+            if (_overlay.getDatabase() == null && database) {
                 _meta.setDatabase(true);
-            } else if (_meta.getDatabase() != null && _meta.getDatabase() != database) {
+            } else if (_overlay.getDatabase() != null && _overlay.getDatabase() != database) {
                 _meta.setDatabase(database);
             }
 
             // Parse spigot prefix
-            value = _annotation.spigot().prefix();
+            value = spigot.getString("prefix");
             if (Strings.isNullOrEmpty(value)) {
-                if (Strings.isNullOrEmpty(_meta.getPrefix())) {
+                if (Strings.isNullOrEmpty(_overlay.getPrefix())) {
                     warning("Missing plugin prefix");
                 }
             } else {
@@ -184,53 +223,190 @@ class MetadataProcessor {
             }
 
             // Parse spigot commands
-            Command[] commands = _annotation.spigot().commands();
-            if (commands.length > 0) {
-                for (Command command : commands) {
-                    String commandName = command.name();
-                    if (Strings.isNullOrEmpty(commandName)) {
-                        error("Empty command name is not allowed", "spigot.commands");
-                        continue;
-                    }
-                    _meta.replaceCommand(PluginCommand.from(command));
+            for (Values command : spigot.getAnnotations("commands")) {
+                if (Strings.isNullOrEmpty(command.getString("name"))) {
+                    error("Empty command name is not allowed", command, "name");
+                    continue;
                 }
+                _meta.replaceCommand(command(command));
             }
 
             // Parse spigot permissions
-            Permission[] permissions = _annotation.spigot().permissions();
-            if (permissions.length > 0) {
-                for (Permission permission : permissions) {
-                    String permissionName = permission.name();
-                    if (Strings.isNullOrEmpty(permissionName)) {
-                        error("Empty permission name is not allowed", "spigot.permissions");
-                        continue;
+            for (Values permission : spigot.getAnnotations("permissions")) {
+                if (Strings.isNullOrEmpty(permission.getString("name"))) {
+                    error("Empty permission name is not allowed", permission, "name");
+                    continue;
+                }
+                _meta.replacePermission(permission(permission));
+            }
+        }
+
+        // Parse command methods
+        Map<ExecutableElement, Values> methods = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            Values command = _reader.read(method, Command.class.getName());
+            if (command != null) {
+                methods.put(method, command);
+            }
+        }
+        if (!methods.isEmpty()) {
+            if (!_spigot) {
+                methods.keySet().forEach(method -> error("Command methods are only supported by spigot plugins", method));
+            } else {
+                Map<ExecutableElement, PluginCommand> commands = processCommandMethods(methods);
+                if (commands != null) {
+                    try {
+                        new CommandDispatcherGenerator(_processingEnv).generate(element, commands);
+                    } catch (IOException e) {
+                        error("Failed to generate command dispatcher: " + e.getMessage());
                     }
-                    _meta.replacePermission(PluginPermission.from(permission));
                 }
             }
         }
 
         // Parse bungee
-        if (_annotation.bungee().set() && isChildOf("net.md_5.bungee.api.plugin.Plugin")) {
+        Values bungee = annotation.getAnnotation("bungee");
+        if (bungee.getBoolean("set") && isChildOf("net.md_5.bungee.api.plugin.Plugin")) {
             // Parse bungee author
-            value = _annotation.bungee().author();
+            value = bungee.getString("author");
             if (Strings.isNullOrEmpty(value)) {
-                error("Empty author is not allowed", "bungee.author");
+                error("Empty author is not allowed", bungee, "author");
             } else {
-                _meta.getAuthors().clear();
                 _meta.addAuthor(value);
             }
         }
         _processed = true;
     }
 
-    void finish(Path output) {
+    /**
+     * Creates the command of the given {@link Command} annotation and
+     * remembers its sub-commands.
+     */
+    private PluginCommand command(Values annotation) {
+        PluginCommand command = PluginCommand.of(annotation.getString("name"), annotation.getStrings("aliases"),
+                annotation.getString("permission"), annotation.getString("usage"));
+        List<String> subcommands = annotation.getStrings("subcommands");
+        if (!subcommands.isEmpty()) {
+            _subcommands.put(command.getName(), subcommands.toArray(new String[subcommands.size()]));
+        }
+        return command;
+    }
+
+    /**
+     * Creates the permission of the given {@link Permission} annotation.
+     */
+    private static PluginPermission permission(Values annotation) {
+        List<Map.Entry<String, Boolean>> children = new ArrayList<>();
+        for (Values child : annotation.getAnnotations("children")) {
+            children.add(Maps.immutableEntry(child.getString("name"), child.getBoolean("value")));
+        }
+        return PluginPermission.of(annotation.getString("name"), annotation.getString("description"),
+                annotation.getEnum("def", PermissionDefault.class), children);
+    }
+
+    /**
+     * Validates the given command methods and adds their commands to the
+     * metadata.
+     *
+     * @param methods The methods with their {@link Command} annotations
+     * @return The commands of the methods or null if a method is invalid
+     */
+    private Map<ExecutableElement, PluginCommand> processCommandMethods(Map<ExecutableElement, Values> methods) {
+        TypeMirror runtimeException = _processingEnv.getElementUtils().getTypeElement(RuntimeException.class.getName()).asType();
+        TypeMirror error = _processingEnv.getElementUtils().getTypeElement(Error.class.getName()).asType();
+        Map<ExecutableElement, PluginCommand> commands = new LinkedHashMap<>();
+        boolean valid = true;
+        for (Map.Entry<ExecutableElement, Values> entry : methods.entrySet()) {
+            ExecutableElement method = entry.getKey();
+            String name = entry.getValue().getString("name");
+            if (Strings.isNullOrEmpty(name)) {
+                error("Empty command name is not allowed", method);
+                valid = false;
+            } else if (_meta.getCommand(name) != null) {
+                error("Duplicate command '" + name + "'", method);
+                valid = false;
+            } else if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                error("Command method must not be private", method);
+                valid = false;
+            } else if (method.getReturnType().getKind() != TypeKind.BOOLEAN && method.getReturnType().getKind() != TypeKind.VOID) {
+                error("Command method must return boolean or void", method);
+                valid = false;
+            } else if (CommandDispatcherGenerator.arguments(method) == null) {
+                error("Command method parameters must be distinct of CommandSender, Command, String and String[]", method);
+                valid = false;
+            } else if (method.getThrownTypes().stream().anyMatch(type -> !_processingEnv.getTypeUtils().isSubtype(type, runtimeException)
+                    && !_processingEnv.getTypeUtils().isSubtype(type, error))) {
+                error("Command method must not throw checked exceptions", method);
+                valid = false;
+            } else {
+                PluginCommand command = command(entry.getValue());
+                _meta.replaceCommand(command);
+                commands.put(method, command);
+            }
+        }
+        return valid ? commands : null;
+    }
+
+    void generateClass() {
+        if (_processed && !_generated) {
+            _generated = true;
+            try {
+                new MetadataClassGenerator(_processingEnv).generate(_element, merged(),
+                        _spigot ? PluginYml.FILENAME_SPIGOT : PluginYml.FILENAME_BUNGEE);
+            } catch (IOException e) {
+                error("Failed to generate plugin metadata class: " + e.getMessage());
+            }
+        }
+    }
+
+    void generatePermissions() {
+        if (_processed && !_permissionsGenerated) {
+            _permissionsGenerated = true;
+            try {
+                new PermissionConstantsGenerator(_processingEnv).generate(_element, merged());
+            } catch (IOException e) {
+                error("Failed to generate plugin permissions class: " + e.getMessage());
+            }
+        }
+    }
+
+    void generateCompletions() {
+        if (_processed && !_completionsGenerated) {
+            _completionsGenerated = true;
+            try {
+                new CompletionsGenerator(_processingEnv).generate(_element, merged(), _subcommands);
+            } catch (IOException e) {
+                error("Failed to generate plugin completions class: " + e.getMessage());
+            }
+        }
+    }
+
+    void finish(Path output, boolean deterministic, boolean binary) {
+        Path binaryOutput = output != null ? binaryPath(output) : null;
         if (_processed) {
-            try (Writer writer = buildWriter(output)) {
-                PluginYml.write(writer, _meta);
+            StringWriter content = new StringWriter();
+            try {
+                if (deterministic) {
+                    PluginYml.write(content, merged(), PluginYml.getSourceDate());
+                } else {
+                    PluginYml.write(content, merged());
+                }
+                String data = content.toString();
+                // Keep the existing file untouched if only the header changed
+                String existing = readExisting(output);
+                if (existing != null && stripHeader(existing).equals(stripHeader(data))) {
+                    info("Plugin metadata is up to date");
+                } else {
+                    try (Writer writer = buildWriter(output)) {
+                        writer.write(data);
+                    }
+                }
             } catch (IOException e) {
                 error("Failed to write plugin metadata: " + e.getMessage());
             }
+            if (binary) {
+                finishBinary(binaryOutput);
+            }
         } else {
             if (output != null) {
                 try {
@@ -238,8 +414,41 @@ class MetadataProcessor {
                 } catch (IOException e) {
                     // ignore
                 }
+                try {
+                    Files.deleteIfExists(binaryOutput);
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private void finishBinary(Path output) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            PluginBinary.write(content, merged());
+            byte[] data = content.toByteArray();
+            if (Arrays.equals(data, readExistingBinary(output))) {
+                info("Binary plugin metadata is up to date");
+                return;
             }
+            try (OutputStream out = buildBinaryStream(output)) {
+                out.write(data);
+            }
+        } catch (IOException e) {
+            error("Failed to write binary plugin metadata: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the metadata of all layers merged. Merged once after processing as
+     * the layers do not change anymore.
+     */
+    private PluginMetadata merged() {
+        if (_merged == null) {
+            _merged = _overlay.flatten();
         }
+        return _merged;
     }
 
     private void info(String message) {
@@ -254,78 +463,113 @@ class MetadataProcessor {
         _processingEnv.getMessager().printMessage(Kind.NOTE, "\r" + message, _element, _mirror);
     }
 
-    private void error(String message, String value) {
-        _processingEnv.getMessager().printMessage(Kind.WARNING, "\r" + message, _element, _values.get(value).getFirst(),
-                _values.get(value).getSecond());
+    private void error(String message, Element element) {
+        _processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+    }
+
+    private void error(String message, Values annotation, String member) {
+        _processingEnv.getMessager().printMessage(Kind.WARNING, "\r" + message, _element, annotation.getMirror(),
+                annotation.getPosition(member));
     }
 
     private Writer buildWriter(Path output) throws IOException {
-        boolean spigot = isChildOf("org.bukkit.plugin.java.JavaPlugin");
         if (output != null) {
-            info("Writing " + (spigot ? "spigot" : "bungee") + " plugin metadata to " + output);
+            info("Writing " + (_spigot ? "spigot" : "bungee") + " plugin metadata to " + output);
             return Files.newBufferedWriter(output);
         } else {
+            // Pass the annotated element as originating element so incremental
+            // builds can track the generated file against its source
             FileObject object = _processingEnv.getFiler().createResource(CLASS_OUTPUT, "",
-                    spigot ? PluginYml.FILENAME_SPIGOT : PluginYml.FILENAME_BUNGEE);
-            info("Writing " + (spigot ? "spigot" : "bungee") + " plugin metadata to " + object.toUri());
+                    _spigot ? PluginYml.FILENAME_SPIGOT : PluginYml.FILENAME_BUNGEE, _element);
+            info("Writing " + (_spigot ? "spigot" : "bungee") + " plugin metadata to " + object.toUri());
             return new BufferedWriter(object.openWriter());
         }
     }
 
-    private boolean isChildOf(String className) {
-        TypeElement element = _element;
-        while (element != null && element.getSuperclass().getKind() != TypeKind.NONE) {
-            element = _processingEnv.getElementUtils().getTypeElement(element.getSuperclass().toString());
-            if (element.getQualifiedName().contentEquals(className)) {
-                return true;
-            }
+    private OutputStream buildBinaryStream(Path output) throws IOException {
+        if (output != null) {
+            info("Writing " + (_spigot ? "spigot" : "bungee") + " binary plugin metadata to " + output);
+            return new BufferedOutputStream(Files.newOutputStream(output));
+        } else {
+            FileObject object = _processingEnv.getFiler().createResource(CLASS_OUTPUT, "",
+                    _spigot ? PluginBinary.FILENAME_SPIGOT : PluginBinary.FILENAME_BUNGEE, _element);
+            info("Writing " + (_spigot ? "spigot" : "bungee") + " binary plugin metadata to " + object.toUri());
+            return new BufferedOutputStream(object.openOutputStream());
         }
-        return false;
     }
 
-    private AnnotationMirror findAnnotationMirror() {
-        String annotationClass = Plugin.class.getName();
-        return _element.getAnnotationMirrors().stream()
-                .filter(mirror -> ((QualifiedNameable) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationClass))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Annotation " + _annotation + " not found in " + _element));
-    }
-
-    private ImmutableMap<String, Pair<AnnotationMirror, AnnotationValue>> findAnnotationValues() {
-        ImmutableMap.Builder<String, Pair<AnnotationMirror, AnnotationValue>> builder = ImmutableMap.builder();
-        _mirror.getElementValues().forEach((key, value) -> {
-            if (_processingEnv.getTypeUtils().isSubtype(key.getReturnType(),
-                    _processingEnv.getElementUtils().getTypeElement(Annotation.class.getName()).asType())) {
-                AnnotationMirror mirror = (AnnotationMirror) value.getValue();
-                mirror.getElementValues().forEach((mirrorKey, mirrorValue) ->
-                        builder.put(key.getSimpleName().toString() + "." + mirrorKey.getSimpleName().toString(), Pair.of(mirror, mirrorValue)));
+    private byte[] readExistingBinary(Path output) {
+        try {
+            if (output != null) {
+                if (!Files.isRegularFile(output)) {
+                    return null;
+                }
+                return Files.readAllBytes(output);
             } else {
-                builder.put(key.getSimpleName().toString(), Pair.of(_mirror, value));
+                FileObject object = _processingEnv.getFiler().getResource(CLASS_OUTPUT, "",
+                        _spigot ? PluginBinary.FILENAME_SPIGOT : PluginBinary.FILENAME_BUNGEE);
+                try (InputStream in = object.openInputStream()) {
+                    return ByteStreams.toByteArray(in);
+                }
             }
-        });
-        return builder.build();
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
     }
 
-    private static class Pair<F, S> {
+    /**
+     * Gets the path of the binary metadata written next to the given yaml
+     * file. The extension of the yaml file is replaced by {@code .bin}.
+     *
+     * @param output The path of the yaml file
+     * @return The path of the binary file
+     */
+    private static Path binaryPath(Path output) {
+        String name = output.getFileName().toString();
+        int index = name.lastIndexOf('.');
+        return output.resolveSibling((index > 0 ? name.substring(0, index) : name) + ".bin");
+    }
 
-        static <F, S> Pair<F, S> of(F first, S second) {
-            return new Pair<>(first, second);
+    private String readExisting(Path output) {
+        try {
+            if (output != null) {
+                if (!Files.isRegularFile(output)) {
+                    return null;
+                }
+                return new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+            } else {
+                FileObject object = _processingEnv.getFiler().getResource(CLASS_OUTPUT, "",
+                        _spigot ? PluginYml.FILENAME_SPIGOT : PluginYml.FILENAME_BUNGEE);
+                return object.getCharContent(false).toString();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
         }
+    }
 
-        private final F _first;
-        private final S _second;
-
-        private Pair(F first, S second) {
-            _first = first;
-            _second = second;
+    private static String stripHeader(String data) {
+        int index = 0;
+        while (data.startsWith("#", index)) {
+            int end = data.indexOf('\n', index);
+            if (end < 0) {
+                return "";
+            }
+            index = end + 1;
         }
-
-        F getFirst() {
-            return _first;
+        while (data.startsWith("\n", index)) {
+            index++;
         }
+        return data.substring(index);
+    }
 
-        S getSecond() {
-            return _second;
+    private boolean isChildOf(String className) {
+        TypeElement element = _element;
+        while (element != null && element.getSuperclass().getKind() != TypeKind.NONE) {
+            element = _processingEnv.getElementUtils().getTypeElement(element.getSuperclass().toString());
+            if (element.getQualifiedName().contentEquals(className)) {
+                return true;
+            }
         }
+        return false;
     }
 }
@@ -0,0 +1,198 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation;
+
+import static eu.hexagonmc.spigot.annotation.SourceWriter.literal;
+
+import eu.hexagonmc.spigot.annotation.meta.PermissionTable;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Generates a class holding a constant for each permission node of a plugin.
+ *
+ * </p> Besides the name each node gets an integer id equal to its id in a
+ * {@link PermissionTable} of the plugin, so the ids are dense and can be used
+ * to index arrays. The names are compile-time constants and therefore
+ * interned, so they can also be compared by identity.
+ */
+class PermissionConstantsGenerator {
+
+    /**
+     * The suffix appended to the binary name of the plugin main-class to name
+     * the generated permissions class.
+     */
+    static final String CLASS_SUFFIX = "$Permissions";
+    /**
+     * Maximum number of names filled into the name array per generated
+     * method to stay below the method size limit.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private final ProcessingEnvironment _processingEnv;
+
+    PermissionConstantsGenerator(ProcessingEnvironment processingEnv) {
+        _processingEnv = processingEnv;
+    }
+
+    /**
+     * Generates the permissions class for the given plugin main-class.
+     *
+     * @param element The plugin main-class
+     * @param meta The metadata declaring the permissions
+     * @throws IOException if the file can not be written
+     */
+    void generate(TypeElement element, PluginMetadata meta) throws IOException {
+        PackageElement pkg = _processingEnv.getElementUtils().getPackageOf(element);
+        String binaryName = _processingEnv.getElementUtils().getBinaryName(element).toString() + CLASS_SUFFIX;
+        String simpleName = pkg.isUnnamed() ? binaryName : binaryName.substring(pkg.getQualifiedName().length() + 1);
+
+        PermissionTable table = new PermissionTable(meta);
+        int count = table.size();
+        Set<String> used = new HashSet<>();
+        used.add("COUNT");
+        used.add("NAMES");
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = unique(constant(table.getName(i)), used);
+        }
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = unique(names[i] + "_ID", used);
+        }
+
+        SourceWriter source = new SourceWriter();
+        if (!pkg.isUnnamed()) {
+            source.line("package " + pkg.getQualifiedName() + ";").line();
+        }
+        source.line("import java.util.Arrays;")
+                .line("import java.util.Locale;")
+                .line()
+                .line("/**")
+                .line(" * Auto-generated permission constants, generated by " + AnnotationProcessor.class.getName() + ".")
+                .line(" */")
+                .open("public final class " + simpleName)
+                .line()
+                .line("/**")
+                .line(" * The number of permission nodes, all ids are below this value.")
+                .line(" */")
+                .line("public static final int COUNT = " + count + ";");
+        for (int i = 0; i < count; i++) {
+            source.line()
+                    .line("/**")
+                    .line(" * The permission node " + comment(table.getName(i)) + ".")
+                    .line(" */")
+                    .line("public static final String " + names[i] + " = " + literal(table.getName(i)) + ";")
+                    .line("/**")
+                    .line(" * The id of {@link #" + names[i] + "}.")
+                    .line(" */")
+                    .line("public static final int " + ids[i] + " = " + i + ";");
+        }
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        source.line()
+                .line("private static final String[] NAMES = names();")
+                .line()
+                .open("private " + simpleName + "()")
+                .close()
+                .line()
+                .line("/**")
+                .line(" * Gets the name of the permission node with the given id.")
+                .line(" *")
+                .line(" * @param id The id")
+                .line(" * @return The name")
+                .line(" * @throws ArrayIndexOutOfBoundsException if the id is unknown")
+                .line(" */")
+                .open("public static String name(int id)")
+                .line("return NAMES[id];")
+                .close()
+                .line()
+                .line("/**")
+                .line(" * Gets the id of the permission node with the given name ignoring case.")
+                .line(" *")
+                .line(" * @param name The name")
+                .line(" * @return The id or -1 if the node is not declared")
+                .line(" */")
+                .open("public static int id(String name)")
+                .line("int id = Arrays.binarySearch(NAMES, name.toLowerCase(Locale.ENGLISH));")
+                .line("return id < 0 ? -1 : id;")
+                .close()
+                .line()
+                .open("private static String[] names()")
+                .line("String[] names = new String[COUNT];");
+        for (int i = 0; i < chunks; i++) {
+            source.line("names" + i + "(names);");
+        }
+        source.line("return names;")
+                .close();
+        for (int i = 0; i < chunks; i++) {
+            source.line()
+                    .open("private static void names" + i + "(String[] names)");
+            for (int j = i * CHUNK_SIZE; j < Math.min(count, (i + 1) * CHUNK_SIZE); j++) {
+                source.line("names[" + j + "] = " + names[j] + ";");
+            }
+            source.close();
+        }
+        source.close();
+
+        source.writeTo(_processingEnv.getFiler(), pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName, element);
+    }
+
+    /**
+     * Converts a permission name into a constant name by upper casing it and
+     * replacing all characters not allowed in an identifier with an
+     * underscore.
+     */
+    private static String constant(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            builder.append('_');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            builder.append(c < 0x80 && Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        return builder.toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Escapes the characters of the given text that would break a doc comment.
+     */
+    private static String comment(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace("\\", "&#92;").replace("*/", "*&#47;");
+    }
+
+    private static String unique(String name, Set<String> used) {
+        while (!used.add(name)) {
+            name += "_";
+        }
+        return name;
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+
+/**
+ * Simple line based writer for generated java sources.
+ */
+class SourceWriter {
+
+    /**
+     * The indentation used per level.
+     */
+    static final String INDENT = "    ";
+
+    /**
+     * The source written so far.
+     */
+    private final StringBuilder _builder = new StringBuilder();
+    /**
+     * The current indentation level.
+     */
+    private int _indent;
+
+    /**
+     * Appends a line at the current indentation level.
+     *
+     * @param line The line to append
+     * @return This writer
+     */
+    SourceWriter line(String line) {
+        for (int i = 0; i < _indent; i++) {
+            _builder.append(INDENT);
+        }
+        _builder.append(line).append('\n');
+        return this;
+    }
+
+    /**
+     * Appends an empty line.
+     *
+     * @return This writer
+     */
+    SourceWriter line() {
+        _builder.append('\n');
+        return this;
+    }
+
+    /**
+     * Appends a line opening a block and increases the indentation.
+     *
+     * @param line The line to append without the opening brace
+     * @return This writer
+     */
+    SourceWriter open(String line) {
+        line(line + " {");
+        _indent++;
+        return this;
+    }
+
+    /**
+     * Decreases the indentation and closes a block.
+     *
+     * @return This writer
+     */
+    SourceWriter close() {
+        return close("}");
+    }
+
+    /**
+     * Decreases the indentation and appends the given closing line.
+     *
+     * @param line The closing line
+     * @return This writer
+     */
+    SourceWriter close(String line) {
+        _indent--;
+        return line(line);
+    }
+
+    /**
+     * Closes a block and opens the next one on the same line, like an else
+     * or catch block.
+     *
+     * @param line The line opening the next block without the braces
+     * @return This writer
+     */
+    SourceWriter reopen(String line) {
+        _indent--;
+        return open("} " + line);
+    }
+
+    /**
+     * Writes the source to a new source file.
+     *
+     * @param filer The filer to create the file with
+     * @param name The qualified name of the generated type
+     * @param originating The element the source is generated for
+     * @throws IOException if the file can not be written
+     */
+    void writeTo(Filer filer, String name, Element originating) throws IOException {
+        JavaFileObject object = filer.createSourceFile(name, originating);
+        try (Writer writer = object.openWriter()) {
+            writer.write(_builder.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return _builder.toString();
+    }
+
+    /**
+     * Creates a java string literal for the given value.
+     *
+     * </p> Non ascii characters are written as unicode escapes and control
+     * characters as octal escapes so the source does not depend on the
+     * encoding used by the compiler.
+     *
+     * @param value The value to quote or null
+     * @return The literal
+     */
+    static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x7f) {
+                        builder.append(String.format("\\%03o", (int) c));
+                    } else if (c > 0x7e) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                    break;
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
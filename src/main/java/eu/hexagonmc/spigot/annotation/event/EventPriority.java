@@ -0,0 +1,60 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.event;
+
+/**
+ * The priority of an event handler, mirroring
+ * {@code org.bukkit.event.EventPriority} so {@link Listen} does not depend on
+ * the spigot api.
+ *
+ * </p> Handlers are called from {@link EventPriority#LOWEST} to
+ * {@link EventPriority#MONITOR}, so the handler with the highest priority has
+ * the last word on the outcome of an event.
+ */
+public enum EventPriority {
+    /**
+     * Called first.
+     */
+    LOWEST,
+    /**
+     * Called after {@link EventPriority#LOWEST}.
+     */
+    LOW,
+    /**
+     * Called after {@link EventPriority#LOW}. Default.
+     */
+    NORMAL,
+    /**
+     * Called after {@link EventPriority#NORMAL}.
+     */
+    HIGH,
+    /**
+     * Called after {@link EventPriority#HIGH}.
+     */
+    HIGHEST,
+    /**
+     * Called last. Should only be used to observe the outcome of an event
+     * without modifying it.
+     */
+    MONITOR
+}
@@ -0,0 +1,60 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.event;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method as handler of the event it takes as only parameter.
+ *
+ * </p> For each class declaring such methods a
+ * {@code <class>$EventRegistration} class is generated. Its static
+ * {@code register(listener, plugin)} method registers every handler with the
+ * plugin manager using an executor calling the method directly, so neither
+ * the listener class is scanned nor the handler invoked using reflection. The
+ * declaring class must implement {@code org.bukkit.event.Listener}.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface Listen {
+
+    /**
+     * The priority of the handler.
+     *
+     * @return the priority
+     */
+    EventPriority priority() default EventPriority.NORMAL;
+
+    /**
+     * If true the handler is not called for cancelled events.
+     *
+     * @return true if cancelled events are ignored
+     */
+    boolean ignoreCancelled() default false;
+}
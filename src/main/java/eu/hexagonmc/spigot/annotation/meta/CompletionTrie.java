@@ -0,0 +1,288 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable prefix trie over a set of words for tab completion.
+ *
+ * </p> The trie is stored in flat arrays instead of node objects. The nodes
+ * are numbered breadth first, so the children of a node are stored next to
+ * each other sorted by their character and found by a binary search. The
+ * words are sorted, so the words below a node form a range of the sorted
+ * words. Completing a prefix therefore walks one node per character and
+ * returns a view of that range without filtering or copying the words.
+ *
+ * </p> Matching ignores the case like the completion of Bukkit does, the
+ * completed words keep their case.
+ */
+public final class CompletionTrie {
+
+    /**
+     * Orders words by their lower case key.
+     */
+    private static final Comparator<String> ORDER = Comparator.comparing(CompletionTrie::key).thenComparing(Comparator.naturalOrder());
+
+    /**
+     * The trie without any words.
+     */
+    public static final CompletionTrie EMPTY = new CompletionTrie(new String[0]);
+
+    /**
+     * Creates a trie over the given words. Duplicates are removed.
+     *
+     * @param words The words
+     * @return The trie
+     */
+    public static CompletionTrie of(String... words) {
+        checkNotNull(words, "words");
+        return words.length == 0 ? EMPTY : new CompletionTrie(words.clone());
+    }
+
+    /**
+     * Creates a trie over the given words. Duplicates are removed.
+     *
+     * @param words The words
+     * @return The trie
+     */
+    public static CompletionTrie of(Iterable<String> words) {
+        checkNotNull(words, "words");
+        List<String> list = new ArrayList<>();
+        words.forEach(list::add);
+        return of(list.toArray(new String[list.size()]));
+    }
+
+    /**
+     * Creates a trie over the names and aliases of the commands of the given
+     * plugin.
+     *
+     * @param meta The plugin metadata
+     * @return The trie
+     */
+    public static CompletionTrie of(PluginMetadata meta) {
+        checkNotNull(meta, "meta");
+        List<String> words = new ArrayList<>();
+        for (PluginCommand command : meta.getCommands()) {
+            words.add(command.getName());
+            words.addAll(command.getAliases());
+        }
+        return of(words);
+    }
+
+    /**
+     * The words sorted by {@link #ORDER}.
+     */
+    private final ImmutableList<String> _words;
+    /**
+     * The character of the edge leading to each node, unused for the root.
+     */
+    private final char[] _chars;
+    /**
+     * The index of the first child of each node, the children of node
+     * {@code i} are the nodes {@code _first[i]} to {@code _first[i + 1] - 1}.
+     */
+    private final int[] _first;
+    /**
+     * The index of the first word below each node.
+     */
+    private final int[] _start;
+    /**
+     * The index after the last word below each node.
+     */
+    private final int[] _end;
+
+    private CompletionTrie(String[] words) {
+        for (String word : words) {
+            checkNotNull(word, "word");
+        }
+        Arrays.sort(words, ORDER);
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (i == 0 || !words[i].equals(words[count - 1])) {
+                words[count++] = words[i];
+            }
+        }
+        _words = ImmutableList.copyOf(Arrays.asList(words).subList(0, count));
+        String[] keys = new String[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            keys[i] = key(words[i]);
+            length += keys[i].length();
+        }
+
+        // At most one node per character plus the root
+        char[] chars = new char[length + 1];
+        int[] first = new int[length + 2];
+        int[] start = new int[length + 1];
+        int[] end = new int[length + 1];
+        int[] depths = new int[length + 1];
+        int nodes = 1;
+        end[0] = count;
+        for (int node = 0; node < nodes; node++) {
+            first[node] = nodes;
+            int depth = depths[node];
+            int index = start[node];
+            // Words ending at this node are sorted first
+            while (index < end[node] && keys[index].length() == depth) {
+                index++;
+            }
+            while (index < end[node]) {
+                char c = keys[index].charAt(depth);
+                int next = index;
+                while (next < end[node] && keys[next].charAt(depth) == c) {
+                    next++;
+                }
+                chars[nodes] = c;
+                start[nodes] = index;
+                end[nodes] = next;
+                depths[nodes] = depth + 1;
+                nodes++;
+                index = next;
+            }
+        }
+        first[nodes] = nodes;
+        _chars = Arrays.copyOf(chars, nodes);
+        _first = Arrays.copyOf(first, nodes + 1);
+        _start = Arrays.copyOf(start, nodes);
+        _end = Arrays.copyOf(end, nodes);
+    }
+
+    /**
+     * Gets the number of words.
+     *
+     * @return The number of words
+     */
+    public int size() {
+        return _words.size();
+    }
+
+    /**
+     * Gets all words sorted ignoring the case.
+     *
+     * @return The words
+     */
+    public List<String> getWords() {
+        return _words;
+    }
+
+    /**
+     * Gets the number of words starting with the given prefix ignoring the
+     * case.
+     *
+     * @param prefix The prefix
+     * @return The number of matching words
+     */
+    public int count(CharSequence prefix) {
+        int node = find(prefix);
+        return node < 0 ? 0 : _end[node] - _start[node];
+    }
+
+    /**
+     * Gets the words starting with the given prefix ignoring the case.
+     *
+     * @param prefix The prefix
+     * @return A view of the matching words sorted ignoring the case
+     */
+    public List<String> complete(CharSequence prefix) {
+        int node = find(prefix);
+        return node < 0 ? ImmutableList.of() : _words.subList(_start[node], _end[node]);
+    }
+
+    /**
+     * Adds the words starting with the given prefix ignoring the case to the
+     * given collection.
+     *
+     * @param prefix The prefix
+     * @param target The collection to add the matching words to
+     * @param <C> The type of the collection
+     * @return The given collection
+     */
+    public <C extends Collection<? super String>> C complete(CharSequence prefix, C target) {
+        checkNotNull(target, "target");
+        int node = find(prefix);
+        if (node >= 0) {
+            for (int i = _start[node]; i < _end[node]; i++) {
+                target.add(_words.get(i));
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Walks the trie along the given prefix.
+     *
+     * @param prefix The prefix
+     * @return The node reached or -1 if no word starts with the prefix
+     */
+    private int find(CharSequence prefix) {
+        checkNotNull(prefix, "prefix");
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = Character.toLowerCase(prefix.charAt(i));
+            int low = _first[node];
+            int high = _first[node + 1] - 1;
+            node = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (_chars[middle] < c) {
+                    low = middle + 1;
+                } else if (_chars[middle] > c) {
+                    high = middle - 1;
+                } else {
+                    node = middle;
+                    break;
+                }
+            }
+            if (node < 0) {
+                return -1;
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public String toString() {
+        return "CompletionTrie" + _words;
+    }
+
+    /**
+     * Gets the key of a word used for matching, the word with each character
+     * in lower case.
+     */
+    private static String key(String word) {
+        char[] chars = word.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Finds cycles in graphs stored as adjacency arrays.
+ *
+ * </p> The outgoing edges of node {@code n} are stored in
+ * {@code targets[offsets[n]]} to {@code targets[offsets[n + 1] - 1]} sorted
+ * ascending.
+ */
+class Cycles {
+
+    /**
+     * Throw exception if used. Utility classes should not be instanced.
+     *
+     * @throws RuntimeException if someone tries to call this constructor this
+     *         class.
+     */
+    public Cycles() {
+        throw new RuntimeException("Utility class should not be instanced");
+    }
+
+    /**
+     * Finds the strongly connected components with more than one node or a
+     * self reference using an iterative version of Tarjan's algorithm.
+     *
+     * @param offsets The edge offsets per node
+     * @param targets The edge targets
+     * @param excluded The nodes to ignore
+     * @return The cycles, each sorted ascending and ordered by their first
+     *         node
+     */
+    static List<int[]> find(int[] offsets, int[] targets, BitSet excluded) {
+        int count = offsets.length - 1;
+        int[] index = new int[count];
+        int[] low = new int[count];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[count];
+        int[] stack = new int[count];
+        int stackSize = 0;
+        int[] callStack = new int[count];
+        int[] callEdge = new int[count];
+        int next = 0;
+        List<int[]> cycles = new ArrayList<>();
+
+        for (int root = 0; root < count; root++) {
+            if (index[root] >= 0 || excluded.get(root)) {
+                continue;
+            }
+            int depth = 0;
+            callStack[0] = root;
+            callEdge[0] = offsets[root];
+            index[root] = low[root] = next++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int node = callStack[depth];
+                if (callEdge[depth] < offsets[node + 1]) {
+                    int target = targets[callEdge[depth]++];
+                    if (excluded.get(target)) {
+                        continue;
+                    }
+                    if (index[target] < 0) {
+                        depth++;
+                        callStack[depth] = target;
+                        callEdge[depth] = offsets[target];
+                        index[target] = low[target] = next++;
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                    } else if (onStack[target]) {
+                        low[node] = Math.min(low[node], index[target]);
+                    }
+                    continue;
+                }
+                if (low[node] == index[node]) {
+                    int start = stackSize;
+                    do {
+                        onStack[stack[--start]] = false;
+                    } while (stack[start] != node);
+                    int[] component = Arrays.copyOfRange(stack, start, stackSize);
+                    stackSize = start;
+                    if (component.length > 1 || Arrays.binarySearch(targets, offsets[node], offsets[node + 1], node) >= 0) {
+                        Arrays.sort(component);
+                        cycles.add(component);
+                    }
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callStack[depth];
+                    low[parent] = Math.min(low[parent], low[node]);
+                }
+            }
+        }
+        cycles.sort((a, b) -> Integer.compare(a[0], b[0]));
+        return cycles;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Utility class for deduplicating the strings of plugin metadata.
+ *
+ * </p> When the metadata of many plugins is loaded the same strings like
+ * dependency names, authors, usages or permission nodes are stored once per
+ * plugin. All setters of {@link PluginMetadata}, {@link PluginCommand},
+ * {@link PluginPermission} and {@link PluginDependency}, and with them
+ * {@link PluginYml} and {@link PluginBinary}, pass their strings through the
+ * interner set with {@link #setInterner(Interner)} so equal strings share
+ * one instance.
+ *
+ * </p> By default no strings are interned. Use {@link #weak()} to intern all
+ * strings as long as they are used or {@link #bounded(int)} to deduplicate
+ * with a fixed amount of memory.
+ */
+public class MetadataInterner {
+
+    /**
+     * Interner returning the given strings unchanged.
+     */
+    public static final Interner<String> NONE = value -> value;
+
+    /**
+     * The interner used by the setters.
+     */
+    private static volatile Interner<String> _interner = NONE;
+
+    /**
+     * Throw exception if used. Utility classes should not be instanced.
+     *
+     * @throws RuntimeException if someone tries to call this constructor this
+     *         class.
+     */
+    public MetadataInterner() {
+        throw new RuntimeException("Utility class should not be instanced");
+    }
+
+    /**
+     * Creates an interner keeping each string as long as it is referenced
+     * somewhere else.
+     *
+     * @return The new interner
+     * @see Interners#newWeakInterner()
+     */
+    public static Interner<String> weak() {
+        return Interners.newWeakInterner();
+    }
+
+    /**
+     * Creates an interner with a fixed number of slots. Each string is
+     * stored in the slot of its hash and replaces the string stored before,
+     * so the memory used is bounded while frequent strings are still
+     * deduplicated.
+     *
+     * @param size The number of slots, rounded up to a power of two
+     * @return The new interner
+     */
+    public static Interner<String> bounded(int size) {
+        checkArgument(size > 0 && size <= 1 << 30, "Invalid size: %s", size);
+        int slots = Integer.highestOneBit(size);
+        return new BoundedInterner(slots == size ? slots : slots << 1);
+    }
+
+    /**
+     * Sets the interner used by the metadata setters.
+     *
+     * @param interner The interner, {@link #NONE} to disable interning
+     */
+    public static void setInterner(Interner<String> interner) {
+        _interner = checkNotNull(interner, "interner");
+    }
+
+    /**
+     * Gets the interner used by the metadata setters.
+     *
+     * @return The interner
+     */
+    public static Interner<String> getInterner() {
+        return _interner;
+    }
+
+    /**
+     * Interns the given string with the current interner.
+     *
+     * @param value The string to intern or null
+     * @return The interned string or null
+     */
+    public static String intern(String value) {
+        return value != null ? _interner.intern(value) : null;
+    }
+
+    /**
+     * Lossy interner backed by a fixed size table.
+     */
+    private static class BoundedInterner implements Interner<String> {
+
+        private final AtomicReferenceArray<String> _table;
+        private final int _mask;
+
+        BoundedInterner(int size) {
+            _table = new AtomicReferenceArray<>(size);
+            _mask = size - 1;
+        }
+
+        @Override
+        public String intern(String value) {
+            int hash = value.hashCode();
+            int index = (hash ^ hash >>> 16) & _mask;
+            String current = _table.get(index);
+            if (value.equals(current)) {
+                return current;
+            }
+            _table.lazySet(index, value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compiled and flattened permission hierarchy of one or more plugins.
+ *
+ * </p> Every permission and child name gets an id. For each permission with
+ * children the transitive closure of its children is precomputed into a set
+ * of granted and a set of denied ids, so the effective value of a permission
+ * for a holder of another permission is a constant time lookup.
+ *
+ * </p> Permission names are compared ignoring case. Like Bukkit, all names
+ * are converted to lower case using {@link Locale#ENGLISH}, both when the
+ * table is built and when it is queried, so {@link #getName(int)} returns the
+ * lower case name.
+ *
+ * </p> Child values follow the Bukkit semantics: a child with value
+ * {@code false} is denied if its parent is granted and granted if its parent
+ * is denied. Bukkit applies the children in the order it visits them, so if
+ * a permission is reachable over several paths its value depends on that
+ * order. This table resolves such permissions independent of any order
+ * instead: the shortest path wins, and if paths of the same length disagree
+ * the permission is denied. Cycles in the hierarchy are resolved the same way
+ * and reported by {@link #getCycles()}.
+ */
+public class PermissionTable {
+
+    /**
+     * The permission names sorted, the index in this array is the id of the
+     * permission.
+     */
+    private final String[] _names;
+    /**
+     * Maps the permission names to their ids.
+     */
+    private final Map<String, Integer> _ids;
+    /**
+     * The granted permission ids per permission id, null for permissions
+     * without children.
+     */
+    private final BitSet[] _granted;
+    /**
+     * The denied permission ids per permission id, null for permissions
+     * without children.
+     */
+    private final BitSet[] _denied;
+    /**
+     * The cycles in the permission hierarchy, each sorted by name.
+     */
+    private final List<List<String>> _cycles;
+
+    /**
+     * Compiles the permissions of the given plugin.
+     *
+     * @param meta The plugin metadata
+     */
+    public PermissionTable(PluginMetadata meta) {
+        this(Collections.singleton(checkNotNull(meta, "meta")));
+    }
+
+    /**
+     * Compiles the permissions of the given plugins. If a permission is
+     * declared by more than one plugin the children are merged, later
+     * declarations override the values of earlier ones.
+     *
+     * @param metas The plugin metadata
+     */
+    public PermissionTable(Collection<PluginMetadata> metas) {
+        checkNotNull(metas, "metas");
+        Map<String, Map<String, Boolean>> children = new TreeMap<>();
+        Set<String> names = new TreeSet<>();
+        for (PluginMetadata meta : metas) {
+            for (PluginPermission permission : meta.getPermissions()) {
+                String name = normalize(permission.getName());
+                Map<String, Boolean> childs = children.computeIfAbsent(name, key -> new TreeMap<>());
+                names.add(name);
+                for (Map.Entry<String, Boolean> child : permission.getChilds().entrySet()) {
+                    names.add(normalize(child.getKey()));
+                    childs.put(normalize(child.getKey()), child.getValue());
+                }
+            }
+        }
+
+        int count = names.size();
+        _names = names.toArray(new String[count]);
+        _ids = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            _ids.put(_names[i], i);
+        }
+
+        // Adjacency arrays, children are sorted by name and so by id
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            Map<String, Boolean> childs = children.get(_names[i]);
+            offsets[i + 1] = offsets[i] + (childs == null ? 0 : childs.size());
+        }
+        int[] targets = new int[offsets[count]];
+        BitSet values = new BitSet(targets.length);
+        for (int i = 0; i < count; i++) {
+            Map<String, Boolean> childs = children.get(_names[i]);
+            if (childs == null) {
+                continue;
+            }
+            int edge = offsets[i];
+            for (Map.Entry<String, Boolean> child : childs.entrySet()) {
+                targets[edge] = _ids.get(child.getKey());
+                values.set(edge, child.getValue());
+                edge++;
+            }
+        }
+
+        List<List<String>> cycles = new ArrayList<>();
+        for (int[] cycle : Cycles.find(offsets, targets, new BitSet())) {
+            List<String> cycleNames = new ArrayList<>(cycle.length);
+            for (int id : cycle) {
+                cycleNames.add(_names[id]);
+            }
+            cycles.add(Collections.unmodifiableList(cycleNames));
+        }
+        _cycles = Collections.unmodifiableList(cycles);
+
+        _granted = new BitSet[count];
+        _denied = new BitSet[count];
+        int[] level = new int[count];
+        int[] next = new int[count];
+        BitSet visited = new BitSet(count);
+        BitSet nextGranted = new BitSet(count);
+        BitSet nextDenied = new BitSet(count);
+        for (int root = 0; root < count; root++) {
+            if (offsets[root] == offsets[root + 1]) {
+                continue;
+            }
+            BitSet granted = new BitSet();
+            BitSet denied = new BitSet();
+            granted.set(root);
+            visited.clear();
+            visited.set(root);
+            level[0] = root;
+            int levelSize = 1;
+            while (levelSize > 0) {
+                int nextSize = 0;
+                for (int i = 0; i < levelSize; i++) {
+                    int node = level[i];
+                    boolean value = granted.get(node);
+                    for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                        int target = targets[edge];
+                        if (visited.get(target)) {
+                            continue;
+                        }
+                        if (!nextGranted.get(target) && !nextDenied.get(target)) {
+                            next[nextSize++] = target;
+                        }
+                        if (value == values.get(edge)) {
+                            nextGranted.set(target);
+                        } else {
+                            nextDenied.set(target);
+                        }
+                    }
+                }
+                for (int i = 0; i < nextSize; i++) {
+                    int node = next[i];
+                    visited.set(node);
+                    if (nextDenied.get(node)) {
+                        denied.set(node);
+                    } else {
+                        granted.set(node);
+                    }
+                    nextGranted.clear(node);
+                    nextDenied.clear(node);
+                }
+                int[] swap = level;
+                level = next;
+                next = swap;
+                levelSize = nextSize;
+            }
+            _granted[root] = granted;
+            _denied[root] = denied;
+        }
+    }
+
+    /**
+     * Returns the number of permissions in this table.
+     *
+     * @return The number of permissions
+     */
+    public int size() {
+        return _names.length;
+    }
+
+    /**
+     * Returns the id of the given permission.
+     *
+     * @param name The name of the permission
+     * @return The id or -1 if the permission is unknown
+     */
+    public int getId(String name) {
+        Integer id = _ids.get(normalize(name));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the name of the permission with the given id.
+     *
+     * @param id The id of the permission
+     * @return The lower case name of the permission
+     * @throws IndexOutOfBoundsException if the id is invalid
+     */
+    public String getName(int id) {
+        return _names[id];
+    }
+
+    /**
+     * Resolves the effective value of a permission for a holder of another
+     * permission.
+     *
+     * @param holder The id of the permission granted to the holder
+     * @param node The id of the permission to check
+     * @return True if the permission is granted, false if it is denied and
+     *         null if it is not affected
+     * @throws IndexOutOfBoundsException if an id is invalid
+     */
+    public Boolean resolve(int holder, int node) {
+        if (node < 0 || node >= _names.length) {
+            throw new IndexOutOfBoundsException("node " + node);
+        }
+        BitSet granted = _granted[holder];
+        if (granted == null) {
+            return holder == node ? Boolean.TRUE : null;
+        }
+        if (granted.get(node)) {
+            return Boolean.TRUE;
+        }
+        return _denied[holder].get(node) ? Boolean.FALSE : null;
+    }
+
+    /**
+     * Resolves the effective value of a permission for a holder of another
+     * permission.
+     *
+     * @param holder The name of the permission granted to the holder
+     * @param node The name of the permission to check
+     * @return True if the permission is granted, false if it is denied and
+     *         null if it is not affected
+     */
+    public Boolean resolve(String holder, String node) {
+        Integer holderId = _ids.get(normalize(holder));
+        Integer nodeId = _ids.get(normalize(node));
+        if (holderId == null || nodeId == null) {
+            return normalize(holder).equals(normalize(node)) ? Boolean.TRUE : null;
+        }
+        return resolve(holderId, nodeId);
+    }
+
+    /**
+     * Returns the names of all permissions granted to a holder of the given
+     * permission, including the permission itself.
+     *
+     * @param holder The name of the permission granted to the holder
+     * @return The sorted names of the granted permissions
+     */
+    public Set<String> getGranted(String holder) {
+        Integer id = _ids.get(normalize(holder));
+        if (id == null) {
+            return Collections.singleton(normalize(holder));
+        }
+        return names(_granted[id] == null ? single(id) : _granted[id]);
+    }
+
+    /**
+     * Returns the names of all permissions denied to a holder of the given
+     * permission.
+     *
+     * @param holder The name of the permission granted to the holder
+     * @return The sorted names of the denied permissions
+     */
+    public Set<String> getDenied(String holder) {
+        Integer id = _ids.get(normalize(holder));
+        if (id == null || _denied[id] == null) {
+            return Collections.emptySet();
+        }
+        return names(_denied[id]);
+    }
+
+    /**
+     * Returns the cycles in the permission hierarchy. Each cycle contains the
+     * names of the permissions that are part of it.
+     *
+     * @return The cycles
+     */
+    public List<List<String>> getCycles() {
+        return _cycles;
+    }
+
+    /**
+     * Converts a permission name to lower case like Bukkit does.
+     */
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+    private Set<String> names(BitSet ids) {
+        Set<String> names = new TreeSet<>();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            names.add(_names[id]);
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    private static BitSet single(int id) {
+        BitSet bits = new BitSet(id + 1);
+        bits.set(id);
+        return bits;
+    }
+}
@@ -0,0 +1,386 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Utility class for loading and saving plugin metadata in a compact binary
+ * format.
+ *
+ * </p> The format starts with a magic number, a version byte and the length of
+ * the payload. The payload holds a table of all strings used followed by the
+ * metadata itself, which references strings by their index in the table.
+ * Numbers are written as variable length integers and enum constants by their
+ * name. Commands, permissions and children are written sorted by name, so
+ * equal metadata always results in the same bytes.
+ *
+ * @see PluginYml
+ */
+public class PluginBinary {
+
+    /**
+     * The filename for Spigot plugins.
+     */
+    public static final String FILENAME_SPIGOT = "plugin.bin";
+    /**
+     * The filename for BungeeCord plugins.
+     */
+    public static final String FILENAME_BUNGEE = "bungee.bin";
+
+    /**
+     * The magic number every binary metadata file starts with.
+     */
+    public static final int MAGIC = 0x504d4446;
+    /**
+     * The current version of the binary format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The number of bytes the payload buffer starts with and grows by at
+     * least, so a corrupt length does not allocate more than is read.
+     */
+    private static final int READ_CHUNK = 8192;
+
+    /**
+     * Throw exception if used. Utility classes should not be instanced.
+     *
+     * @throws RuntimeException if someone tries to call this constructor this
+     *         class.
+     */
+    public PluginBinary() {
+        throw new RuntimeException("Utility class should not be instanced");
+    }
+
+    /**
+     * Reads metadata from the given path.
+     *
+     * @param path The path to read from
+     * @return The read metadata
+     * @throws IOException if something goes wrong during load
+     * @see PluginMetadata
+     * @see Path
+     */
+    public static PluginMetadata read(Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads metadata from the given stream. Only the bytes of the metadata are
+     * consumed, the stream is not closed.
+     *
+     * @param stream The stream to read from
+     * @return The read metadata
+     * @throws IOException if something goes wrong during load or the data is
+     *         invalid
+     * @see PluginMetadata
+     */
+    public static PluginMetadata read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid binary plugin metadata");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary plugin metadata version " + version);
+        }
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid binary plugin metadata length " + length);
+        }
+        byte[] payload = readPayload(in, length);
+        try {
+            return new Decoder(payload).decode();
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | NullPointerException e) {
+            throw new IOException("Invalid binary plugin metadata", e);
+        }
+    }
+
+    /**
+     * Reads the payload of the given length. The buffer grows with the bytes
+     * actually read instead of allocating the full length up front.
+     */
+    private static byte[] readPayload(InputStream in, int length) throws IOException {
+        byte[] payload = new byte[Math.min(length, READ_CHUNK)];
+        int position = 0;
+        while (position < length) {
+            if (position == payload.length) {
+                payload = Arrays.copyOf(payload, (int) Math.min(length, payload.length * 2L));
+            }
+            int read = in.read(payload, position, payload.length - position);
+            if (read < 0) {
+                throw new EOFException("Truncated binary plugin metadata");
+            }
+            position += read;
+        }
+        return payload;
+    }
+
+    /**
+     * Writes metadata to the given path.
+     *
+     * @param path The path to write to
+     * @param meta The metadata to write
+     * @throws IOException if something goes wrong during save
+     * @see PluginMetadata
+     * @see Path
+     */
+    public static void write(Path path, PluginMetadata meta) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            write(out, meta);
+        }
+    }
+
+    /**
+     * Writes metadata to the given stream. The stream is not closed.
+     *
+     * @param stream The stream to write to
+     * @param meta The metadata to write
+     * @throws IOException if something goes wrong during save
+     * @see PluginMetadata
+     */
+    public static void write(OutputStream stream, PluginMetadata meta) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.encode(meta);
+
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        writeVarInt(table, encoder._strings.size());
+        for (String value : encoder._strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(table, bytes.length);
+            table.write(bytes);
+        }
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(table.size() + encoder._body.size());
+        table.writeTo(out);
+        encoder._body.writeTo(out);
+        out.flush();
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Collects the string table and encodes the body of the metadata.
+     */
+    private static class Encoder {
+
+        private final Map<String, Integer> _strings = new LinkedHashMap<>();
+        private final ByteArrayOutputStream _body = new ByteArrayOutputStream();
+
+        void encode(PluginMetadata meta) {
+            string(meta.getName());
+            string(meta.getVersion());
+            string(meta.getDescription());
+            enumeration(meta.getLoadOn());
+            strings(meta.getAuthors());
+            string(meta.getWebsite());
+            string(meta.getMain());
+            _body.write(meta.getDatabase() == null ? 0 : meta.getDatabase() ? 2 : 1);
+            writeVarInt(_body, meta.getDependencies().size());
+            for (PluginDependency dependency : meta.getDependencies()) {
+                string(dependency.getName());
+                enumeration(dependency.getType());
+            }
+            string(meta.getPrefix());
+            PluginCommand[] commands = meta.getCommands().toArray(new PluginCommand[0]);
+            Arrays.sort(commands, Comparator.comparing(PluginCommand::getName));
+            writeVarInt(_body, commands.length);
+            for (PluginCommand command : commands) {
+                string(command.getName());
+                string(command.getDescription());
+                strings(command.getAliases());
+                string(command.getPermission());
+                string(command.getUsage());
+            }
+            PluginPermission[] permissions = meta.getPermissions().toArray(new PluginPermission[0]);
+            Arrays.sort(permissions, Comparator.comparing(PluginPermission::getName));
+            writeVarInt(_body, permissions.length);
+            for (PluginPermission permission : permissions) {
+                string(permission.getName());
+                string(permission.getDescription());
+                enumeration(permission.getDefault());
+                String[] children = permission.getChilds().keySet().toArray(new String[0]);
+                Arrays.sort(children);
+                writeVarInt(_body, children.length);
+                for (String child : children) {
+                    string(child);
+                    _body.write(permission.getChilds().get(child) ? 1 : 0);
+                }
+            }
+        }
+
+        private void string(String value) {
+            if (value == null) {
+                writeVarInt(_body, 0);
+            } else {
+                Integer index = _strings.get(value);
+                if (index == null) {
+                    index = _strings.size();
+                    _strings.put(value, index);
+                }
+                writeVarInt(_body, index + 1);
+            }
+        }
+
+        private void strings(Collection<String> values) {
+            writeVarInt(_body, values.size());
+            values.forEach(this::string);
+        }
+
+        private void enumeration(Enum<?> value) {
+            string(value == null ? null : value.name());
+        }
+    }
+
+    /**
+     * Decodes the payload of binary metadata.
+     */
+    private static class Decoder {
+
+        private final byte[] _data;
+        private int _position;
+        private String[] _strings;
+
+        Decoder(byte[] data) {
+            _data = data;
+        }
+
+        PluginMetadata decode() throws IOException {
+            _strings = new String[count()];
+            for (int i = 0; i < _strings.length; i++) {
+                int length = varInt();
+                if (length < 0 || length > _data.length - _position) {
+                    throw new IOException("Invalid binary plugin metadata string length " + length);
+                }
+                _strings[i] = new String(_data, _position, length, StandardCharsets.UTF_8);
+                _position += length;
+            }
+
+            PluginMetadata meta = new PluginMetadata(string());
+            meta.setVersion(string());
+            meta.setDescription(string());
+            meta.setLoadOn(enumeration(LoadOn.class));
+            for (int i = count(); i > 0; i--) {
+                meta.addAuthor(string());
+            }
+            meta.setWebsite(string());
+            String main = string();
+            if (main != null) {
+                meta.setMain(main);
+            }
+            int database = _data[_position++];
+            meta.setDatabase(database == 0 ? null : database == 2);
+            for (int i = count(); i > 0; i--) {
+                PluginDependency dependency = new PluginDependency(string());
+                dependency.setType(enumeration(DependencyType.class));
+                meta.addDependency(dependency);
+            }
+            meta.setPrefix(string());
+            for (int i = count(); i > 0; i--) {
+                PluginCommand command = new PluginCommand(string());
+                command.setDescription(string());
+                for (int j = count(); j > 0; j--) {
+                    command.addAlias(string());
+                }
+                command.setPermission(string());
+                command.setUsage(string());
+                meta.addCommand(command);
+            }
+            for (int i = count(); i > 0; i--) {
+                PluginPermission permission = new PluginPermission(string());
+                permission.setDescription(string());
+                permission.setDefault(enumeration(PermissionDefault.class));
+                for (int j = count(); j > 0; j--) {
+                    permission.addChild(string(), _data[_position++] != 0);
+                }
+                meta.addPermission(permission);
+            }
+            if (_position != _data.length) {
+                throw new IOException("Invalid binary plugin metadata, " + (_data.length - _position) + " trailing bytes");
+            }
+            return meta;
+        }
+
+        private int varInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = _data[_position++];
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid binary plugin metadata number");
+        }
+
+        /**
+         * Reads the number of following entries. Each entry takes at least
+         * one byte, so larger numbers than bytes left are invalid.
+         */
+        private int count() throws IOException {
+            int count = varInt();
+            if (count < 0 || count > _data.length - _position) {
+                throw new IOException("Invalid binary plugin metadata count " + count);
+            }
+            return count;
+        }
+
+        private String string() throws IOException {
+            int index = varInt();
+            return index == 0 ? null : _strings[index - 1];
+        }
+
+        private <T extends Enum<T>> T enumeration(Class<T> type) throws IOException {
+            String name = string();
+            return name == null ? null : Enum.valueOf(type, name);
+        }
+    }
+}
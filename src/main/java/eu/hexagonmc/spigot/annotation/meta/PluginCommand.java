@@ -24,12 +24,14 @@ package eu.hexagonmc.spigot.annotation.meta;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static eu.hexagonmc.spigot.annotation.meta.MetadataInterner.intern;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
 import eu.hexagonmc.spigot.annotation.plugin.Command;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -44,15 +46,31 @@ public class PluginCommand {
      * @see PluginCommand
      */
     public static PluginCommand from(Command annotation) {
-        PluginCommand command = new PluginCommand(annotation.name());
-        for (String alias : annotation.aliases()) {
+        return of(annotation.name(), Arrays.asList(annotation.aliases()), annotation.permission(), annotation.usage());
+    }
+
+    /**
+     * Creates command from the values of a {@link Command} annotation. Empty
+     * permission and usage values are treated as not set like the defaults of
+     * the annotation.
+     *
+     * @param name The name of the command
+     * @param aliases The aliases of the command
+     * @param permission The permission of the command or an empty string
+     * @param usage The usage of the command or an empty string
+     * @return The new command
+     * @see #from(Command)
+     */
+    public static PluginCommand of(String name, Iterable<String> aliases, String permission, String usage) {
+        PluginCommand command = new PluginCommand(name);
+        for (String alias : aliases) {
             command.addAlias(alias);
         }
-        if (!Strings.isNullOrEmpty(annotation.permission())) {
-            command.setPermission(annotation.permission());
+        if (!Strings.isNullOrEmpty(permission)) {
+            command.setPermission(permission);
         }
-        if (!Strings.isNullOrEmpty(annotation.usage())) {
-            command.setUsage(annotation.usage());
+        if (!Strings.isNullOrEmpty(usage)) {
+            command.setUsage(usage);
         }
         return command;
     }
@@ -95,7 +113,7 @@ public class PluginCommand {
     public void setName(String name) {
         checkNotNull(name);
         checkArgument(!name.isEmpty(), "Name should not be empty!");
-        _name = name;
+        _name = intern(name);
     }
 
     /**
@@ -113,7 +131,7 @@ public class PluginCommand {
      * @param description The description to set
      */
     public void setDescription(String description) {
-        _description = description;
+        _description = intern(description);
     }
 
     /**
@@ -134,7 +152,7 @@ public class PluginCommand {
         checkNotNull(alias);
         checkArgument(!alias.isEmpty(), "Alias should not be empty!");
         checkArgument(!_aliases.contains(alias), "Duplicate alias with name: " + alias);
-        _aliases.add(alias);
+        _aliases.add(intern(alias));
     }
 
     /**
@@ -162,7 +180,7 @@ public class PluginCommand {
      * @param permission The permission to set
      */
     public void setPermission(String permission) {
-        _permission = permission;
+        _permission = intern(permission);
     }
 
     /**
@@ -180,7 +198,7 @@ public class PluginCommand {
      * @param usage The usage to set
      */
     public void setUsage(String usage) {
-        _usage = usage;
+        _usage = intern(usage);
     }
 
     /**
@@ -24,6 +24,7 @@ package eu.hexagonmc.spigot.annotation.meta;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static eu.hexagonmc.spigot.annotation.meta.MetadataInterner.intern;
 
 import com.google.common.base.MoreObjects;
 import eu.hexagonmc.spigot.annotation.plugin.Dependency;
@@ -92,7 +93,7 @@ public class PluginDependency {
     public void setName(String name) {
         checkNotNull(name, "name");
         checkArgument(!name.isEmpty(), "Name should not be empty!");
-        _name = name;
+        _name = intern(name);
     }
 
     /**
@@ -0,0 +1,461 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Computes the load order of a set of plugins from their dependencies.
+ *
+ * </p> A dependency with type {@link DependencyType#DEPEND} requires the
+ * dependency to be present, otherwise the plugin and all plugins depending on
+ * it can not be loaded. Dependencies with type
+ * {@link DependencyType#SOFTDEPEND} and {@link DependencyType#LOADBEFORE} only
+ * affect the order if the other plugin is present. A dependency without a type
+ * is handled like {@link DependencyType#DEPEND}.
+ *
+ * </p> Dependency cycles are reported by {@link #getCycles()}. Plugins that
+ * are part of a cycle made of required dependencies only can not be ordered
+ * and are not loaded, just as plugins missing a required dependency. Other
+ * cycles are broken by ignoring the optional dependencies between the plugins
+ * of the cycle, like Bukkit does.
+ *
+ * </p> Besides a single load order the loadable plugins are grouped into
+ * waves. A plugin is in wave {@code n} if the longest chain of plugins that
+ * have to be loaded before it has length {@code n}. All plugins of one wave
+ * are independent of each other and may be enabled concurrently once all
+ * previous waves are done.
+ */
+public class PluginDependencyGraph {
+
+    /**
+     * The plugins sorted by name, the index in this array is the id of the
+     * plugin.
+     */
+    private final PluginMetadata[] _plugins;
+    /**
+     * Maps the plugin names to their ids.
+     */
+    private final Map<String, Integer> _ids;
+    /**
+     * Offsets into {@link #_after} per plugin id.
+     */
+    private final int[] _afterOffsets;
+    /**
+     * The ids of the plugins that have to be loaded after each plugin.
+     */
+    private final int[] _after;
+    /**
+     * Offsets into {@link #_before} per plugin id.
+     */
+    private final int[] _beforeOffsets;
+    /**
+     * The ids of the plugins that have to be loaded before each plugin.
+     */
+    private final int[] _before;
+    /**
+     * The load wave per plugin id or -1 if the plugin can not be loaded.
+     */
+    private final int[] _waves;
+    /**
+     * The loadable plugin ids in load order.
+     */
+    private final int[] _order;
+    /**
+     * The missing required dependencies per plugin name.
+     */
+    private final Map<String, Set<String>> _missing;
+    /**
+     * The dependency cycles found, each sorted by name.
+     */
+    private final List<List<String>> _cycles;
+
+    /**
+     * Builds the dependency graph of the given plugins.
+     *
+     * @param plugins The plugins to build the graph of
+     * @throws IllegalArgumentException if two plugins have the same name
+     */
+    public PluginDependencyGraph(Collection<PluginMetadata> plugins) {
+        checkNotNull(plugins, "plugins");
+        _plugins = plugins.toArray(new PluginMetadata[plugins.size()]);
+        Arrays.sort(_plugins, (a, b) -> a.getName().compareTo(b.getName()));
+        int count = _plugins.length;
+        _ids = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            checkArgument(_ids.put(_plugins[i].getName(), i) == null, "duplicate plugin %s", _plugins[i].getName());
+        }
+
+        // Collect the edges as (before << 32 | after) so they can be sorted
+        // and deduplicated without boxing
+        long[] edges = new long[16];
+        int edgeCount = 0;
+        long[] requiredEdges = new long[16];
+        int requiredCount = 0;
+        Map<String, Set<String>> missing = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            for (PluginDependency dependency : _plugins[i].getDependencies()) {
+                DependencyType type = dependency.getType() == null ? DependencyType.DEPEND : dependency.getType();
+                Integer other = _ids.get(dependency.getName());
+                if (other == null) {
+                    if (type == DependencyType.DEPEND) {
+                        missing.computeIfAbsent(_plugins[i].getName(), key -> new TreeSet<>()).add(dependency.getName());
+                    }
+                    continue;
+                }
+                if (edgeCount == edges.length) {
+                    edges = Arrays.copyOf(edges, edgeCount * 2);
+                }
+                if (type == DependencyType.LOADBEFORE) {
+                    edges[edgeCount++] = edge(i, other);
+                } else {
+                    edges[edgeCount++] = edge(other, i);
+                    if (type == DependencyType.DEPEND) {
+                        if (requiredCount == requiredEdges.length) {
+                            requiredEdges = Arrays.copyOf(requiredEdges, requiredCount * 2);
+                        }
+                        requiredEdges[requiredCount++] = edge(other, i);
+                    }
+                }
+            }
+        }
+        edges = distinct(edges, edgeCount);
+        requiredEdges = distinct(requiredEdges, requiredCount);
+
+        // Cycles of required dependencies can not be loaded at all
+        BitSet excluded = new BitSet(count);
+        for (String name : missing.keySet()) {
+            excluded.set(_ids.get(name));
+        }
+        int[][] required = adjacency(requiredEdges, count, false);
+        List<int[]> cycles = Cycles.find(required[0], required[1], excluded);
+        for (int[] cycle : cycles) {
+            for (int id : cycle) {
+                excluded.set(id);
+            }
+        }
+        excludeDependents(excluded, required);
+
+        // The remaining cycles contain optional dependencies, ignore those
+        // between the plugins of the same cycle
+        int[][] all = adjacency(edges, count, false);
+        List<int[]> optionalCycles = Cycles.find(all[0], all[1], excluded);
+        if (!optionalCycles.isEmpty()) {
+            int[] component = new int[count];
+            Arrays.fill(component, -1);
+            for (int i = 0; i < optionalCycles.size(); i++) {
+                for (int id : optionalCycles.get(i)) {
+                    component[id] = i;
+                }
+            }
+            int size = 0;
+            for (long edge : edges) {
+                if (component[from(edge)] < 0 || component[from(edge)] != component[to(edge)]
+                        || Arrays.binarySearch(requiredEdges, edge) >= 0) {
+                    edges[size++] = edge;
+                }
+            }
+            edges = Arrays.copyOf(edges, size);
+            cycles.addAll(optionalCycles);
+            cycles.sort((a, b) -> Integer.compare(a[0], b[0]));
+        }
+        List<List<String>> names = new ArrayList<>(cycles.size());
+        for (int[] cycle : cycles) {
+            List<String> cycleNames = new ArrayList<>(cycle.length);
+            for (int id : cycle) {
+                cycleNames.add(_plugins[id].getName());
+            }
+            names.add(Collections.unmodifiableList(cycleNames));
+        }
+        _cycles = Collections.unmodifiableList(names);
+
+        int[][] after = adjacency(edges, count, false);
+        _afterOffsets = after[0];
+        _after = after[1];
+        int[][] before = adjacency(edges, count, true);
+        _beforeOffsets = before[0];
+        _before = before[1];
+
+        _missing = Collections.unmodifiableMap(missing);
+        _waves = new int[count];
+        _order = sort(excluded);
+    }
+
+    /**
+     * Returns the plugins that can be loaded in load order.
+     *
+     * @return The load order
+     */
+    public List<PluginMetadata> getLoadOrder() {
+        List<PluginMetadata> order = new ArrayList<>(_order.length);
+        for (int id : _order) {
+            order.add(_plugins[id]);
+        }
+        return Collections.unmodifiableList(order);
+    }
+
+    /**
+     * Returns the plugins that can be loaded grouped into load waves. Plugins
+     * in the same wave are sorted by name.
+     *
+     * @return The load waves
+     */
+    public List<List<PluginMetadata>> getWaves() {
+        List<List<PluginMetadata>> waves = new ArrayList<>();
+        for (int id = 0; id < _plugins.length; id++) {
+            int wave = _waves[id];
+            if (wave < 0) {
+                continue;
+            }
+            while (waves.size() <= wave) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(_plugins[id]);
+        }
+        waves.replaceAll(Collections::unmodifiableList);
+        return Collections.unmodifiableList(waves);
+    }
+
+    /**
+     * Returns the load wave of the given plugin.
+     *
+     * @param name The name of the plugin
+     * @return The load wave or -1 if the plugin can not be loaded or is
+     *         unknown
+     */
+    public int getWave(String name) {
+        Integer id = _ids.get(name);
+        return id == null ? -1 : _waves[id];
+    }
+
+    /**
+     * Returns whether the given plugin can be loaded.
+     *
+     * @param name The name of the plugin
+     * @return True if the plugin is known and can be loaded
+     */
+    public boolean isLoadable(String name) {
+        return getWave(name) >= 0;
+    }
+
+    /**
+     * Returns the names of all plugins that can not be loaded, either because
+     * a required dependency is missing, they are part of a cycle of required
+     * dependencies or they require such a plugin.
+     *
+     * @return The sorted names of the plugins that can not be loaded
+     */
+    public Set<String> getUnloadable() {
+        Set<String> unloadable = new TreeSet<>();
+        for (int id = 0; id < _plugins.length; id++) {
+            if (_waves[id] < 0) {
+                unloadable.add(_plugins[id].getName());
+            }
+        }
+        return Collections.unmodifiableSet(unloadable);
+    }
+
+    /**
+     * Returns the missing required dependencies per plugin.
+     *
+     * @return The names of the missing dependencies mapped by the plugin names
+     */
+    public Map<String, Set<String>> getMissing() {
+        return _missing;
+    }
+
+    /**
+     * Returns the dependency cycles found. Each cycle contains the names of
+     * the plugins that are part of it.
+     *
+     * </p> Only the plugins of cycles made of required dependencies can not
+     * be loaded. In the other cycles the optional dependencies between the
+     * plugins of the cycle are ignored.
+     *
+     * @return The dependency cycles
+     */
+    public List<List<String>> getCycles() {
+        return _cycles;
+    }
+
+    /**
+     * Returns the names of the present plugins that have to be loaded before
+     * the given plugin.
+     *
+     * @param name The name of the plugin
+     * @return The sorted names of the plugins
+     */
+    public List<String> getLoadedBefore(String name) {
+        return names(name, _beforeOffsets, _before);
+    }
+
+    /**
+     * Returns the names of the present plugins that have to be loaded after
+     * the given plugin.
+     *
+     * @param name The name of the plugin
+     * @return The sorted names of the plugins
+     */
+    public List<String> getLoadedAfter(String name) {
+        return names(name, _afterOffsets, _after);
+    }
+
+    private List<String> names(String name, int[] offsets, int[] targets) {
+        Integer id = _ids.get(name);
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(offsets[id + 1] - offsets[id]);
+        for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+            names.add(_plugins[targets[i]].getName());
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Excludes all plugins that require an excluded plugin.
+     */
+    private void excludeDependents(BitSet excluded, int[][] required) {
+        int count = _plugins.length;
+        int[] offsets = required[0];
+        int[] targets = required[1];
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        for (int id = excluded.nextSetBit(0); id >= 0; id = excluded.nextSetBit(id + 1)) {
+            queue[tail++] = id;
+        }
+        while (head < tail) {
+            int id = queue[head++];
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if (!excluded.get(targets[i])) {
+                    excluded.set(targets[i]);
+                    queue[tail++] = targets[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts the loadable plugins topologically using Kahn's algorithm,
+     * preferring plugins with lower names, and assigns their waves.
+     */
+    private int[] sort(BitSet excluded) {
+        int count = _plugins.length;
+        int[] pending = new int[count];
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int id = 0; id < count; id++) {
+            if (excluded.get(id)) {
+                _waves[id] = -1;
+                continue;
+            }
+            for (int i = _beforeOffsets[id]; i < _beforeOffsets[id + 1]; i++) {
+                if (!excluded.get(_before[i])) {
+                    pending[id]++;
+                }
+            }
+            if (pending[id] == 0) {
+                ready.add(id);
+            }
+        }
+        int[] order = new int[count - excluded.cardinality()];
+        int size = 0;
+        while (!ready.isEmpty()) {
+            int id = ready.poll();
+            order[size++] = id;
+            for (int i = _afterOffsets[id]; i < _afterOffsets[id + 1]; i++) {
+                int target = _after[i];
+                if (excluded.get(target)) {
+                    continue;
+                }
+                _waves[target] = Math.max(_waves[target], _waves[id] + 1);
+                if (--pending[target] == 0) {
+                    ready.add(target);
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Builds the adjacency arrays of the given sorted edges, the offsets at
+     * index 0 and the targets at index 1.
+     */
+    private static int[][] adjacency(long[] edges, int count, boolean reverse) {
+        int[] offsets = new int[count + 1];
+        for (long edge : edges) {
+            offsets[(reverse ? to(edge) : from(edge)) + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[edges.length];
+        int[] fill = Arrays.copyOf(offsets, count);
+        for (long edge : edges) {
+            if (reverse) {
+                targets[fill[to(edge)]++] = from(edge);
+            } else {
+                targets[fill[from(edge)]++] = to(edge);
+            }
+        }
+        return new int[][] {offsets, targets};
+    }
+
+    private static long edge(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+
+    private static int from(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int to(long edge) {
+        return (int) edge;
+    }
+
+    private static long[] distinct(long[] edges, int count) {
+        long[] sorted = Arrays.copyOf(edges, count);
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+}
@@ -24,6 +24,7 @@ package eu.hexagonmc.spigot.annotation.meta;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static eu.hexagonmc.spigot.annotation.meta.MetadataInterner.intern;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
@@ -161,6 +162,23 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * The permissions registered with this plugin.
      */
     private final Map<String, PluginPermission> _permissions = new HashMap<>();
+    /**
+     * Loads the commands and permissions on first access if they are read
+     * lazily, null if they are already loaded.
+     */
+    private volatile Consumer<PluginMetadata> _loader;
+    /**
+     * The lock held while the loader runs.
+     */
+    private final Object _loadLock = new Object();
+    /**
+     * True while the loader runs, guarded by {@link #_loadLock}.
+     */
+    private boolean _loading;
+    /**
+     * The exception thrown by the loader, guarded by {@link #_loadLock}.
+     */
+    private RuntimeException _loadFailure;
 
     /**
      * Creates a new metadata for a plugin with the given name.
@@ -171,6 +189,57 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
         setName(name);
     }
 
+    /**
+     * Creates a new metadata without a name. Used by readers that only know
+     * the name after the other values are read.
+     */
+    PluginMetadata() {
+    }
+
+    /**
+     * Sets the loader adding the commands and permissions of this plugin on
+     * first access of them.
+     *
+     * @param loader The loader
+     */
+    void setLoader(Consumer<PluginMetadata> loader) {
+        _loader = loader;
+    }
+
+    /**
+     * Runs the loader of the commands and permissions if not done yet. Other
+     * threads wait until the loader is done, calls made by the loader itself
+     * return directly.
+     *
+     * </p> If the loader fails the commands and permissions are incomplete, so
+     * the loader is kept and every later access fails as well.
+     *
+     * @throws IllegalStateException if the loader failed on an earlier access
+     */
+    private void load() {
+        if (_loader != null) {
+            synchronized (_loadLock) {
+                Consumer<PluginMetadata> loader = _loader;
+                if (loader == null || _loading) {
+                    return;
+                }
+                if (_loadFailure != null) {
+                    throw new IllegalStateException("Loading of commands and permissions failed", _loadFailure);
+                }
+                _loading = true;
+                try {
+                    loader.accept(this);
+                    _loader = null;
+                } catch (RuntimeException e) {
+                    _loadFailure = e;
+                    throw e;
+                } finally {
+                    _loading = false;
+                }
+            }
+        }
+    }
+
     /**
      * Adds an author the the list of authors of this plugin.
      *
@@ -179,7 +248,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
     public void addAuthor(String author) {
         checkNotNull(author, "author");
         checkArgument(!author.isEmpty(), "Author should not be empty!");
-        _authors.add(author);
+        _authors.add(intern(author));
     }
 
     /**
@@ -226,6 +295,17 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
         return _dependencies.values();
     }
 
+    /**
+     * Gets the dependency on the plugin with the given name.
+     *
+     * @param name The name of the plugin depended on
+     * @return The dependency or null if not found
+     * @see PluginDependency
+     */
+    public PluginDependency getDependency(String name) {
+        return _dependencies.get(name);
+    }
+
     /**
      * Replaces or inserts a dependency of this plugin.
      *
@@ -255,6 +335,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @see PluginCommand
      */
     public void addCommand(PluginCommand command) {
+        load();
         String name = command.getName();
         checkNotNull(name, "Command name is null.");
         checkArgument(!_commands.containsKey(name), "Duplicate command with command name: " + name);
@@ -269,9 +350,22 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @see Collection
      */
     public Collection<PluginCommand> getCommands() {
+        load();
         return _commands.values();
     }
 
+    /**
+     * Gets the command with the given name.
+     *
+     * @param name The name of the command
+     * @return The command or null if not found
+     * @see PluginCommand
+     */
+    public PluginCommand getCommand(String name) {
+        load();
+        return _commands.get(name);
+    }
+
     /**
      * Replaces or inserts a command of this plugin.
      *
@@ -280,6 +374,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @see PluginCommand
      */
     public PluginCommand replaceCommand(PluginCommand command) {
+        load();
         return _commands.put(command.getName(), command);
     }
 
@@ -291,6 +386,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @see PluginCommand
      */
     public boolean removeCommand(PluginCommand command) {
+        load();
         return _commands.remove(command.getName()) != null;
     }
 
@@ -301,6 +397,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @see PluginPermission
      */
     public void addPermission(PluginPermission permission) {
+        load();
         String name = permission.getName();
         checkNotNull(name, "Permission name is null.");
         checkArgument(!_permissions.containsKey(name), "Duplicate permission with permission name: " + name);
@@ -315,9 +412,22 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @see Collection
      */
     public Collection<PluginPermission> getPermissions() {
+        load();
         return _permissions.values();
     }
 
+    /**
+     * Gets the permission with the given name.
+     *
+     * @param name The name of the permission
+     * @return The permission or null if not found
+     * @see PluginPermission
+     */
+    public PluginPermission getPermission(String name) {
+        load();
+        return _permissions.get(name);
+    }
+
     /**
      * Replaces or inserts a permission of this plugin.
      *
@@ -326,6 +436,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @see PluginPermission
      */
     public PluginPermission replacePermission(PluginPermission permission) {
+        load();
         return _permissions.put(permission.getName(), permission);
     }
 
@@ -337,6 +448,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @see PluginPermission
      */
     public boolean removePermission(PluginPermission permission) {
+        load();
         return _permissions.remove(permission.getName()) != null;
     }
 
@@ -395,7 +507,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
     public void setName(String name) {
         checkNotNull(name);
         checkArgument(!name.isEmpty(), "Name should not be empty!");
-        _name = name;
+        _name = intern(name);
     }
 
     /**
@@ -413,7 +525,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @param version The version to set
      */
     public void setVersion(String version) {
-        _version = version;
+        _version = intern(version);
     }
 
     /**
@@ -431,7 +543,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @param description The description to set
      */
     public void setDescription(String description) {
-        _description = description;
+        _description = intern(description);
     }
 
     /**
@@ -469,7 +581,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @param website The website to set
      */
     public void setWebsite(String website) {
-        _website = website;
+        _website = intern(website);
     }
 
     /**
@@ -488,7 +600,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      */
     public void setMain(String main) {
         checkNotNull(main, "main");
-        _main = main;
+        _main = intern(main);
     }
 
     /**
@@ -524,7 +636,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      * @param prefix The log prefix to set
      */
     public void setPrefix(String prefix) {
-        _prefix = prefix;
+        _prefix = intern(prefix);
     }
 
     /**
@@ -536,8 +648,20 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
         return _prefix;
     }
 
+    /**
+     * Creates an immutable and compact snapshot of this metadata. Later
+     * changes of this metadata are not reflected by the snapshot.
+     *
+     * @return The snapshot
+     * @see PluginMetadataSnapshot
+     */
+    public PluginMetadataSnapshot freeze() {
+        return PluginMetadataSnapshot.of(this);
+    }
+
     @Override
     public String toString() {
+        load();
         return MoreObjects.toStringHelper(getClass())
                 .add("name", _name)
                 .add("version", _version)
@@ -560,6 +684,7 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
      */
     @Override
     public int hashCode() {
+        load();
         final int prime = 31;
         int result = 1;
         result = prime * result + _authors.hashCode();
@@ -606,6 +731,8 @@ public class PluginMetadata implements Consumer<PluginMetadata> {
         if (!_dependencies.equals(other._dependencies)) {
             return false;
         }
+        load();
+        other.load();
         if (!_commands.equals(other._commands)) {
             return false;
         }
@@ -0,0 +1,334 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The structural differences between two versions of a
+ * {@link PluginMetadata}.
+ *
+ * </p> The plugin values like version or main-class are compared directly.
+ * Commands, permissions and dependencies are matched by name and reported as
+ * added, removed or changed together with the fields that changed. The diff
+ * is computed in linear time using the name lookups of the metadata.
+ *
+ * </p> The commands, permissions and dependencies are referenced by the diff,
+ * not copied.
+ */
+public final class PluginMetadataDiff {
+
+    /**
+     * The values of a plugin.
+     */
+    public enum Property {
+        NAME, VERSION, DESCRIPTION, LOAD, AUTHORS, WEBSITE, MAIN, DATABASE, PREFIX
+    }
+
+    /**
+     * The fields of commands, permissions and dependencies.
+     */
+    public enum Field {
+        /**
+         * The description of a command or permission.
+         */
+        DESCRIPTION,
+        /**
+         * The aliases of a command.
+         */
+        ALIASES,
+        /**
+         * The permission of a command.
+         */
+        PERMISSION,
+        /**
+         * The usage of a command.
+         */
+        USAGE,
+        /**
+         * The default value of a permission.
+         */
+        DEFAULT,
+        /**
+         * The children of a permission.
+         */
+        CHILDREN,
+        /**
+         * The type of a dependency.
+         */
+        TYPE
+    }
+
+    /**
+     * The kinds of changes.
+     */
+    public enum Kind {
+        ADDED, REMOVED, CHANGED
+    }
+
+    /**
+     * Computes the differences between two versions of a plugin.
+     *
+     * @param before The old metadata
+     * @param after The new metadata
+     * @return The differences
+     */
+    public static PluginMetadataDiff of(PluginMetadata before, PluginMetadata after) {
+        return new PluginMetadataDiff(checkNotNull(before, "before"), checkNotNull(after, "after"));
+    }
+
+    private final Set<Property> _properties = EnumSet.noneOf(Property.class);
+    private final List<Change<PluginCommand>> _commands;
+    private final List<Change<PluginPermission>> _permissions;
+    private final List<Change<PluginDependency>> _dependencies;
+
+    private PluginMetadataDiff(PluginMetadata before, PluginMetadata after) {
+        compare(Property.NAME, before.getName(), after.getName());
+        compare(Property.VERSION, before.getVersion(), after.getVersion());
+        compare(Property.DESCRIPTION, before.getDescription(), after.getDescription());
+        compare(Property.LOAD, before.getLoadOn(), after.getLoadOn());
+        compare(Property.AUTHORS, before.getAuthors(), after.getAuthors());
+        compare(Property.WEBSITE, before.getWebsite(), after.getWebsite());
+        compare(Property.MAIN, before.getMain(), after.getMain());
+        compare(Property.DATABASE, before.getDatabase(), after.getDatabase());
+        compare(Property.PREFIX, before.getPrefix(), after.getPrefix());
+
+        _commands = diff(before.getCommands(), after::getCommand, after.getCommands(), before::getCommand,
+                PluginCommand::getName, PluginMetadataDiff::compareCommands);
+        _permissions = diff(before.getPermissions(), after::getPermission, after.getPermissions(), before::getPermission,
+                PluginPermission::getName, PluginMetadataDiff::comparePermissions);
+        _dependencies = diff(before.getDependencies(), after::getDependency, after.getDependencies(), before::getDependency,
+                PluginDependency::getName, PluginMetadataDiff::compareDependencies);
+    }
+
+    /**
+     * Checks if there are no differences.
+     *
+     * @return True if both versions are equal
+     */
+    public boolean isEmpty() {
+        return _properties.isEmpty() && _commands.isEmpty() && _permissions.isEmpty() && _dependencies.isEmpty();
+    }
+
+    /**
+     * Gets the plugin values that changed.
+     *
+     * @return The changed values
+     */
+    public Set<Property> getProperties() {
+        return Collections.unmodifiableSet(_properties);
+    }
+
+    /**
+     * Gets the added, removed and changed commands.
+     *
+     * @return The command changes
+     */
+    public List<Change<PluginCommand>> getCommands() {
+        return _commands;
+    }
+
+    /**
+     * Gets the added, removed and changed permissions.
+     *
+     * @return The permission changes
+     */
+    public List<Change<PluginPermission>> getPermissions() {
+        return _permissions;
+    }
+
+    /**
+     * Gets the added, removed and changed dependencies.
+     *
+     * @return The dependency changes
+     */
+    public List<Change<PluginDependency>> getDependencies() {
+        return _dependencies;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("properties", _properties)
+                .add("commands", _commands)
+                .add("permissions", _permissions)
+                .add("dependencies", _dependencies)
+                .toString();
+    }
+
+    private void compare(Property property, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            _properties.add(property);
+        }
+    }
+
+    private static void compareCommands(PluginCommand before, PluginCommand after, Set<Field> fields) {
+        compare(fields, Field.DESCRIPTION, before.getDescription(), after.getDescription());
+        compare(fields, Field.ALIASES, before.getAliases(), after.getAliases());
+        compare(fields, Field.PERMISSION, before.getPermission(), after.getPermission());
+        compare(fields, Field.USAGE, before.getUsage(), after.getUsage());
+    }
+
+    private static void comparePermissions(PluginPermission before, PluginPermission after, Set<Field> fields) {
+        compare(fields, Field.DESCRIPTION, before.getDescription(), after.getDescription());
+        compare(fields, Field.DEFAULT, before.getDefault(), after.getDefault());
+        compare(fields, Field.CHILDREN, before.getChilds(), after.getChilds());
+    }
+
+    private static void compareDependencies(PluginDependency before, PluginDependency after, Set<Field> fields) {
+        compare(fields, Field.TYPE, before.getType(), after.getType());
+    }
+
+    private static void compare(Set<Field> fields, Field field, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            fields.add(field);
+        }
+    }
+
+    /**
+     * Matches the values of both versions by name. Values only in the old
+     * version are removed, values only in the new version are added and
+     * values in both versions are changed if a field differs.
+     */
+    private static <T> List<Change<T>> diff(Collection<T> before, Function<String, T> afterLookup, Collection<T> after,
+            Function<String, T> beforeLookup, Function<T, String> names, Comparison<T> comparison) {
+        ImmutableList.Builder<Change<T>> changes = ImmutableList.builder();
+        for (T value : before) {
+            String name = names.apply(value);
+            T other = afterLookup.apply(name);
+            if (other == null) {
+                changes.add(new Change<>(Kind.REMOVED, name, value, null, Collections.emptySet()));
+            } else if (other != value) {
+                Set<Field> changed = EnumSet.noneOf(Field.class);
+                comparison.compare(value, other, changed);
+                if (!changed.isEmpty()) {
+                    changes.add(new Change<>(Kind.CHANGED, name, value, other, Sets.immutableEnumSet(changed)));
+                }
+            }
+        }
+        for (T value : after) {
+            String name = names.apply(value);
+            if (beforeLookup.apply(name) == null) {
+                changes.add(new Change<>(Kind.ADDED, name, null, value, Collections.emptySet()));
+            }
+        }
+        return changes.build();
+    }
+
+    /**
+     * Compares the fields of two versions of a value.
+     */
+    @FunctionalInterface
+    private interface Comparison<T> {
+
+        void compare(T before, T after, Set<Field> fields);
+    }
+
+    /**
+     * A single added, removed or changed command, permission or dependency.
+     *
+     * @param <T> The type of the changed value
+     */
+    public static final class Change<T> {
+
+        private final Kind _kind;
+        private final String _name;
+        private final T _before;
+        private final T _after;
+        private final Set<Field> _fields;
+
+        private Change(Kind kind, String name, T before, T after, Set<Field> fields) {
+            _kind = kind;
+            _name = name;
+            _before = before;
+            _after = after;
+            _fields = fields;
+        }
+
+        /**
+         * Gets the kind of this change.
+         *
+         * @return The kind
+         */
+        public Kind getKind() {
+            return _kind;
+        }
+
+        /**
+         * Gets the name of the changed value.
+         *
+         * @return The name
+         */
+        public String getName() {
+            return _name;
+        }
+
+        /**
+         * Gets the old value.
+         *
+         * @return The old value or null if added
+         */
+        public T getBefore() {
+            return _before;
+        }
+
+        /**
+         * Gets the new value.
+         *
+         * @return The new value or null if removed
+         */
+        public T getAfter() {
+            return _after;
+        }
+
+        /**
+         * Gets the fields that changed.
+         *
+         * @return The changed fields, empty if added or removed
+         */
+        public Set<Field> getFields() {
+            return _fields;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("kind", _kind)
+                    .add("name", _name)
+                    .add("fields", _fields)
+                    .toString();
+        }
+    }
+}
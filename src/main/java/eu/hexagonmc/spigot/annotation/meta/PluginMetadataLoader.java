@@ -0,0 +1,116 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Utility class for loading plugin metadata at runtime.
+ *
+ * </p> If the annotation processor generated a metadata class for the plugin
+ * it is used to build the {@link PluginMetadata} directly. Otherwise the yaml
+ * file is parsed with {@link PluginYml}.
+ */
+public class PluginMetadataLoader {
+
+    /**
+     * The suffix appended to the binary name of the plugin main-class to name
+     * the generated metadata class.
+     */
+    public static final String CLASS_SUFFIX = "$Metadata";
+    /**
+     * The suffix appended to the yaml filename to name the resource holding
+     * the name of the generated metadata class.
+     */
+    public static final String INDEX_SUFFIX = ".metadata";
+
+    /**
+     * Throw exception if used. Utility classes should not be instanced.
+     *
+     * @throws RuntimeException if someone tries to call this constructor this
+     *         class.
+     */
+    public PluginMetadataLoader() {
+        throw new RuntimeException("Utility class should not be instanced");
+    }
+
+    /**
+     * Loads the metadata of a plugin from the given class loader.
+     *
+     * </p> The class loader should only see the resources of the plugin to
+     * load.
+     *
+     * @param loader The class loader of the plugin
+     * @param filename The yaml filename, either
+     *        {@link PluginYml#FILENAME_SPIGOT} or
+     *        {@link PluginYml#FILENAME_BUNGEE}
+     * @return The loaded metadata or null if none found
+     * @throws IOException if something goes wrong during load
+     */
+    public static PluginMetadata load(ClassLoader loader, String filename) throws IOException {
+        PluginMetadata meta = loadGenerated(loader, filename);
+        if (meta != null) {
+            return meta;
+        }
+        try (InputStream in = loader.getResourceAsStream(filename)) {
+            if (in == null) {
+                return null;
+            }
+            return PluginYml.read(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Loads the metadata of a plugin from its generated metadata class.
+     *
+     * @param loader The class loader of the plugin
+     * @param filename The yaml filename the class was generated for
+     * @return The metadata or null if no usable class was generated
+     * @throws IOException if the index resource can not be read
+     */
+    @SuppressWarnings("unchecked")
+    public static PluginMetadata loadGenerated(ClassLoader loader, String filename) throws IOException {
+        String className;
+        try (InputStream in = loader.getResourceAsStream(filename + INDEX_SUFFIX)) {
+            if (in == null) {
+                return null;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            className = reader.readLine();
+        }
+        if (className == null || className.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            Class<?> clazz = Class.forName(className.trim(), true, loader);
+            return ((Supplier<PluginMetadata>) clazz.newInstance()).get();
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+            return null;
+        }
+    }
+}
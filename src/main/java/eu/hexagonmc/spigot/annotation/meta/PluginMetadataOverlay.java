@@ -0,0 +1,277 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Layered view of several {@link PluginMetadata}.
+ *
+ * </p> Layers are pushed from the bottom, like shared base files, to the top,
+ * like the annotation of the plugin. Each lookup is resolved from the top
+ * layer down and returns the first value set, so pushing a layer does not copy
+ * anything. The resolution matches merging all layers in order with
+ * {@link PluginMetadata#accept(PluginMetadata)}, which is done once by
+ * {@link #flatten()} when the result is written.
+ *
+ * </p> Changes of the layers are visible through the overlay.
+ */
+public class PluginMetadataOverlay {
+
+    /**
+     * The layers from bottom to top.
+     */
+    private final List<PluginMetadata> _layers = new ArrayList<>();
+
+    /**
+     * Creates a new overlay without any layers.
+     */
+    public PluginMetadataOverlay() {
+    }
+
+    /**
+     * Creates a new overlay with the given layers.
+     *
+     * @param layers The layers from bottom to top
+     */
+    public PluginMetadataOverlay(Iterable<PluginMetadata> layers) {
+        layers.forEach(this::push);
+    }
+
+    /**
+     * Pushes a new layer on top of this overlay.
+     *
+     * @param layer The layer to push
+     */
+    public void push(PluginMetadata layer) {
+        _layers.add(checkNotNull(layer, "layer"));
+    }
+
+    /**
+     * Gets the layers of this overlay.
+     *
+     * @return The layers from bottom to top
+     */
+    public List<PluginMetadata> getLayers() {
+        return Collections.unmodifiableList(_layers);
+    }
+
+    /**
+     * Checks if this overlay has no layers.
+     *
+     * @return True if there are no layers
+     */
+    public boolean isEmpty() {
+        return _layers.isEmpty();
+    }
+
+    /**
+     * Merges all layers into a new metadata.
+     *
+     * @return The merged metadata or null if there are no layers
+     */
+    public PluginMetadata flatten() {
+        if (_layers.isEmpty()) {
+            return null;
+        }
+        PluginMetadata meta = new PluginMetadata(getName());
+        _layers.forEach(meta::accept);
+        return meta;
+    }
+
+    /**
+     * Gets the name of the plugin from the top layer.
+     *
+     * @return The name or null if there are no layers
+     */
+    public String getName() {
+        return _layers.isEmpty() ? null : _layers.get(_layers.size() - 1).getName();
+    }
+
+    /**
+     * Gets the version of the plugin.
+     *
+     * @return The version
+     */
+    public String getVersion() {
+        return find(PluginMetadata::getVersion);
+    }
+
+    /**
+     * Gets the description of the plugin.
+     *
+     * @return The description
+     */
+    public String getDescription() {
+        return find(PluginMetadata::getDescription);
+    }
+
+    /**
+     * Gets the load time of the plugin.
+     *
+     * @return The load time
+     * @see LoadOn
+     */
+    public LoadOn getLoadOn() {
+        return find(PluginMetadata::getLoadOn);
+    }
+
+    /**
+     * Gets the list of authors of the top layer having authors.
+     *
+     * @return The list of authors
+     */
+    public Collection<String> getAuthors() {
+        Collection<String> authors = find(meta -> meta.getAuthors().isEmpty() ? null : meta.getAuthors());
+        return authors != null ? Collections.unmodifiableCollection(authors) : Collections.emptyList();
+    }
+
+    /**
+     * Gets the website of the plugin.
+     *
+     * @return The website
+     */
+    public String getWebsite() {
+        return find(PluginMetadata::getWebsite);
+    }
+
+    /**
+     * Gets the main-class name of the plugin.
+     *
+     * @return The main-class name
+     */
+    public String getMain() {
+        return find(PluginMetadata::getMain);
+    }
+
+    /**
+     * Gets if the plugin should use plugin-databases.
+     *
+     * @return True if it should be used false othewise
+     */
+    public Boolean getDatabase() {
+        return find(PluginMetadata::getDatabase);
+    }
+
+    /**
+     * Gets the log prefix of the plugin.
+     *
+     * @return The log prefix
+     */
+    public String getPrefix() {
+        return find(PluginMetadata::getPrefix);
+    }
+
+    /**
+     * Gets the dependency on the plugin with the given name.
+     *
+     * @param name The name of the plugin depended on
+     * @return The dependency or null if not found
+     * @see PluginDependency
+     */
+    public PluginDependency getDependency(String name) {
+        return find(meta -> meta.getDependency(name));
+    }
+
+    /**
+     * Gets the command with the given name.
+     *
+     * @param name The name of the command
+     * @return The command or null if not found
+     * @see PluginCommand
+     */
+    public PluginCommand getCommand(String name) {
+        return find(meta -> meta.getCommand(name));
+    }
+
+    /**
+     * Gets the permission with the given name.
+     *
+     * @param name The name of the permission
+     * @return The permission or null if not found
+     * @see PluginPermission
+     */
+    public PluginPermission getPermission(String name) {
+        return find(meta -> meta.getPermission(name));
+    }
+
+    /**
+     * Gets all dependencies of all layers. Visits every dependency of every
+     * layer.
+     *
+     * @return The dependencies
+     * @see PluginDependency
+     */
+    public Collection<PluginDependency> getDependencies() {
+        Map<String, PluginDependency> dependencies = new LinkedHashMap<>();
+        _layers.forEach(meta -> meta.getDependencies().forEach(dependency -> dependencies.put(dependency.getName(), dependency)));
+        return Collections.unmodifiableCollection(dependencies.values());
+    }
+
+    /**
+     * Gets all commands of all layers. Visits every command of every layer.
+     *
+     * @return The commands
+     * @see PluginCommand
+     */
+    public Collection<PluginCommand> getCommands() {
+        Map<String, PluginCommand> commands = new HashMap<>();
+        _layers.forEach(meta -> meta.getCommands().forEach(command -> commands.put(command.getName(), command)));
+        return Collections.unmodifiableCollection(commands.values());
+    }
+
+    /**
+     * Gets all permissions of all layers. Visits every permission of every
+     * layer.
+     *
+     * @return The permissions
+     * @see PluginPermission
+     */
+    public Collection<PluginPermission> getPermissions() {
+        Map<String, PluginPermission> permissions = new HashMap<>();
+        _layers.forEach(meta -> meta.getPermissions().forEach(permission -> permissions.put(permission.getName(), permission)));
+        return Collections.unmodifiableCollection(permissions.values());
+    }
+
+    /**
+     * Gets the first non null value from the top layer down.
+     */
+    private <T> T find(Function<PluginMetadata, T> getter) {
+        for (int i = _layers.size() - 1; i >= 0; i--) {
+            T value = getter.apply(_layers.get(i));
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
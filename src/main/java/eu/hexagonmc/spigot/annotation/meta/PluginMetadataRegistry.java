@@ -0,0 +1,417 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the metadata of all plugins in a directory up to date.
+ *
+ * </p> The directory is watched with a {@link WatchService}. Plugin jars are
+ * read with {@link PluginScanner#read(Path, String)} and extracted yaml files
+ * ending with {@code .yml} are read with {@link PluginYml#read(Path)}. On each
+ * {@link #poll()} only the files changed since the last poll are read again,
+ * files with unchanged size and modification time are skipped. Registered
+ * {@link Listener}s are called for every added, removed or changed plugin
+ * with the {@link PluginMetadataDiff} of the change.
+ *
+ * </p> Only the directory itself is watched, not its sub directories. All
+ * methods are thread safe, listeners are called on the polling thread.
+ */
+public class PluginMetadataRegistry implements Closeable {
+
+    /**
+     * Listener for changes of the registry. All methods do nothing by
+     * default.
+     */
+    public interface Listener {
+
+        /**
+         * Called if a new plugin file was read.
+         *
+         * @param path The file of the plugin
+         * @param meta The read metadata
+         */
+        default void added(Path path, PluginMetadata meta) {
+        }
+
+        /**
+         * Called if a plugin file was removed or can not be read anymore.
+         *
+         * @param path The file of the plugin
+         * @param meta The metadata read before
+         */
+        default void removed(Path path, PluginMetadata meta) {
+        }
+
+        /**
+         * Called if the metadata of a plugin file changed.
+         *
+         * @param path The file of the plugin
+         * @param before The metadata read before
+         * @param after The new metadata
+         * @param diff The differences
+         */
+        default void changed(Path path, PluginMetadata before, PluginMetadata after, PluginMetadataDiff diff) {
+        }
+
+        /**
+         * Called if a plugin file can not be read.
+         *
+         * @param path The file of the plugin
+         * @param error The error
+         */
+        default void failed(Path path, Exception error) {
+        }
+    }
+
+    /**
+     * The watched directory.
+     */
+    private final Path _directory;
+    /**
+     * The yaml filename read from jars.
+     */
+    private final String _filename;
+    /**
+     * The service watching {@link #_directory}.
+     */
+    private final WatchService _watchService;
+    /**
+     * The registered listeners.
+     */
+    private final List<Listener> _listeners = new CopyOnWriteArrayList<>();
+    /**
+     * The metadata per plugin file.
+     */
+    private final Map<Path, PluginMetadata> _metadata = new HashMap<>();
+    /**
+     * The errors per plugin file which can not be read.
+     */
+    private final Map<Path, Exception> _errors = new HashMap<>();
+    /**
+     * The size and modification time per plugin file when last read.
+     */
+    private final Map<Path, Stamp> _stamps = new HashMap<>();
+
+    /**
+     * Creates a new registry watching the given directory and reads all
+     * plugin files in it.
+     *
+     * @param directory The directory to watch
+     * @param filename The yaml filename read from jars, either
+     *        {@link PluginYml#FILENAME_SPIGOT} or
+     *        {@link PluginYml#FILENAME_BUNGEE}
+     * @throws IOException if the directory can not be watched or listed
+     */
+    public PluginMetadataRegistry(Path directory, String filename) throws IOException {
+        _directory = checkNotNull(directory, "directory");
+        _filename = checkNotNull(filename, "filename");
+        _watchService = directory.getFileSystem().newWatchService();
+        try {
+            directory.register(_watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            rescan();
+        } catch (IOException | RuntimeException e) {
+            _watchService.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a listener called on changes.
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(Listener listener) {
+        _listeners.add(checkNotNull(listener, "listener"));
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener The listener to remove
+     * @return True if the listener was removed
+     */
+    public boolean removeListener(Listener listener) {
+        return _listeners.remove(listener);
+    }
+
+    /**
+     * Gets the metadata of the given plugin file.
+     *
+     * @param path The file of the plugin, relative paths are resolved against
+     *        the watched directory
+     * @return The metadata or null if not known
+     */
+    public synchronized PluginMetadata get(Path path) {
+        return _metadata.get(_directory.resolve(path));
+    }
+
+    /**
+     * Gets the metadata of the plugin with the given name.
+     *
+     * @param name The name of the plugin
+     * @return The metadata or null if not known
+     */
+    public synchronized PluginMetadata getByName(String name) {
+        for (PluginMetadata meta : _metadata.values()) {
+            if (meta.getName().equals(name)) {
+                return meta;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a copy of the metadata of all plugin files.
+     *
+     * @return The metadata per file sorted by path
+     */
+    public synchronized Map<Path, PluginMetadata> getMetadata() {
+        Map<Path, PluginMetadata> metadata = new LinkedHashMap<>();
+        new TreeSet<>(_metadata.keySet()).forEach(path -> metadata.put(path, _metadata.get(path)));
+        return Collections.unmodifiableMap(metadata);
+    }
+
+    /**
+     * Gets a copy of the errors of all plugin files which can not be read.
+     *
+     * @return The errors per file
+     */
+    public synchronized Map<Path, Exception> getErrors() {
+        return Collections.unmodifiableMap(new HashMap<>(_errors));
+    }
+
+    /**
+     * Applies all pending changes of the directory without waiting.
+     *
+     * @return The number of plugin files added, removed or changed
+     * @throws IOException if the directory can not be listed after missed
+     *         changes
+     */
+    public int poll() throws IOException {
+        return poll(_watchService.poll());
+    }
+
+    /**
+     * Waits for changes of the directory and applies them.
+     *
+     * @param timeout The maximum time to wait for the first change
+     * @param unit The unit of the timeout
+     * @return The number of plugin files added, removed or changed
+     * @throws IOException if the directory can not be listed after missed
+     *         changes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public int poll(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        return poll(_watchService.poll(timeout, unit));
+    }
+
+    /**
+     * Checks all files in the directory for changes.
+     *
+     * @return The number of plugin files added, removed or changed
+     * @throws IOException if the directory can not be listed
+     */
+    public synchronized int rescan() throws IOException {
+        Set<Path> paths = new TreeSet<>(_stamps.keySet());
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(_directory)) {
+            for (Path path : stream) {
+                if (isPluginFile(path)) {
+                    paths.add(path);
+                }
+            }
+        }
+        return refresh(paths);
+    }
+
+    /**
+     * Stops watching the directory.
+     */
+    @Override
+    public void close() throws IOException {
+        _watchService.close();
+    }
+
+    private synchronized int poll(WatchKey key) throws IOException {
+        Set<Path> paths = new TreeSet<>();
+        boolean overflow = false;
+        while (key != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    overflow = true;
+                } else {
+                    Path path = _directory.resolve((Path) event.context());
+                    if (isPluginFile(path)) {
+                        paths.add(path);
+                    }
+                }
+            }
+            key.reset();
+            key = _watchService.poll();
+        }
+        return overflow ? rescan() : refresh(paths);
+    }
+
+    private int refresh(Set<Path> paths) {
+        int changes = 0;
+        for (Path path : paths) {
+            if (refresh(path)) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Reads a plugin file again if its size or modification time changed and
+     * notifies the listeners.
+     */
+    private boolean refresh(Path path) {
+        Stamp stamp;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            stamp = new Stamp(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            stamp = null;
+        }
+        if (stamp != null && stamp.equals(_stamps.get(path))) {
+            return false;
+        }
+
+        PluginMetadata before = _metadata.get(path);
+        PluginMetadata after = null;
+        Exception error = null;
+        if (stamp == null) {
+            _stamps.remove(path);
+        } else {
+            _stamps.put(path, stamp);
+            try {
+                after = read(path);
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            }
+        }
+
+        if (error != null) {
+            _errors.put(path, error);
+            for (Listener listener : _listeners) {
+                listener.failed(path, error);
+            }
+        } else {
+            _errors.remove(path);
+        }
+
+        if (after == null) {
+            if (before == null) {
+                return error != null;
+            }
+            _metadata.remove(path);
+            for (Listener listener : _listeners) {
+                listener.removed(path, before);
+            }
+        } else if (before == null) {
+            _metadata.put(path, after);
+            for (Listener listener : _listeners) {
+                listener.added(path, after);
+            }
+        } else {
+            _metadata.put(path, after);
+            PluginMetadataDiff diff = PluginMetadataDiff.of(before, after);
+            if (diff.isEmpty()) {
+                return false;
+            }
+            for (Listener listener : _listeners) {
+                listener.changed(path, before, after, diff);
+            }
+        }
+        return true;
+    }
+
+    private PluginMetadata read(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(".jar")) {
+            return PluginScanner.read(path, _filename);
+        }
+        PluginMetadata meta = PluginYml.read(path);
+        if (meta == null) {
+            throw new IOException("Invalid plugin metadata in " + path);
+        }
+        return meta;
+    }
+
+    private static boolean isPluginFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".jar") || name.endsWith(".yml");
+    }
+
+    /**
+     * The size and modification time of a file.
+     */
+    private static class Stamp {
+
+        private final long _size;
+        private final long _modified;
+
+        Stamp(long size, long modified) {
+            _size = size;
+            _modified = modified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(_size) * 31 + Long.hashCode(_modified);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Stamp)) {
+                return false;
+            }
+            Stamp other = (Stamp) obj;
+            return _size == other._size && _modified == other._modified;
+        }
+    }
+}
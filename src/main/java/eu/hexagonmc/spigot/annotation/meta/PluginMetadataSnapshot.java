@@ -0,0 +1,640 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Immutable and compact copy of a {@link PluginMetadata}.
+ *
+ * </p> Snapshots are meant for holding the metadata of many plugins at once.
+ * All collections are immutable and empty collections are shared, commands
+ * and permissions are stored in lists sorted by name instead of hash maps.
+ * Strings and dependencies are interned so values repeated across plugins
+ * like authors, websites, usages or common dependencies are only stored once.
+ * Strings use the interner of {@link MetadataInterner} if set, otherwise a
+ * weak interner of the snapshots.
+ *
+ * @see PluginMetadata#freeze()
+ */
+public final class PluginMetadataSnapshot {
+
+    /**
+     * The interner shared by all snapshots for strings if no interner is set
+     * in {@link MetadataInterner}.
+     */
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+    /**
+     * The interner shared by all snapshots for dependencies.
+     */
+    private static final Interner<Dependency> DEPENDENCIES = Interners.newWeakInterner();
+
+    /**
+     * Creates a snapshot of the given metadata.
+     *
+     * @param meta The metadata to copy
+     * @return The snapshot
+     */
+    public static PluginMetadataSnapshot of(PluginMetadata meta) {
+        return new PluginMetadataSnapshot(meta);
+    }
+
+    private final String _name;
+    private final String _version;
+    private final String _description;
+    private final LoadOn _loadOn;
+    private final ImmutableList<String> _authors;
+    private final String _website;
+    private final String _main;
+    private final Boolean _database;
+    private final ImmutableList<Dependency> _dependencies;
+    private final String _prefix;
+    /**
+     * The commands sorted by name.
+     */
+    private final ImmutableList<Command> _commands;
+    /**
+     * The permissions sorted by name.
+     */
+    private final ImmutableList<Permission> _permissions;
+
+    private PluginMetadataSnapshot(PluginMetadata meta) {
+        _name = intern(checkNotNull(meta.getName(), "name"));
+        _version = intern(meta.getVersion());
+        _description = intern(meta.getDescription());
+        _loadOn = meta.getLoadOn();
+        _authors = list(meta.getAuthors(), PluginMetadataSnapshot::intern, null);
+        _website = intern(meta.getWebsite());
+        _main = intern(meta.getMain());
+        _database = meta.getDatabase();
+        _dependencies = list(meta.getDependencies(), dependency -> DEPENDENCIES.intern(new Dependency(dependency)), null);
+        _prefix = intern(meta.getPrefix());
+        _commands = list(meta.getCommands(), Command::new, Comparator.comparing(Command::getName));
+        _permissions = list(meta.getPermissions(), Permission::new, Comparator.comparing(Permission::getName));
+    }
+
+    /**
+     * Creates a new mutable metadata holding the values of this snapshot.
+     *
+     * @return The new metadata
+     */
+    public PluginMetadata toMetadata() {
+        PluginMetadata meta = new PluginMetadata(_name);
+        meta.setVersion(_version);
+        meta.setDescription(_description);
+        meta.setLoadOn(_loadOn);
+        _authors.forEach(meta::addAuthor);
+        meta.setWebsite(_website);
+        if (_main != null) {
+            meta.setMain(_main);
+        }
+        meta.setDatabase(_database);
+        _dependencies.forEach(dependency -> meta.addDependency(dependency.toDependency()));
+        meta.setPrefix(_prefix);
+        _commands.forEach(command -> meta.addCommand(command.toCommand()));
+        _permissions.forEach(permission -> meta.addPermission(permission.toPermission()));
+        return meta;
+    }
+
+    /**
+     * Gets the name of the plugin.
+     *
+     * @return The name
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Gets the version of the plugin.
+     *
+     * @return The version
+     */
+    public String getVersion() {
+        return _version;
+    }
+
+    /**
+     * Gets the description of the plugin.
+     *
+     * @return The description
+     */
+    public String getDescription() {
+        return _description;
+    }
+
+    /**
+     * Gets the load time of the plugin.
+     *
+     * @return The load time
+     * @see LoadOn
+     */
+    public LoadOn getLoadOn() {
+        return _loadOn;
+    }
+
+    /**
+     * Gets the list of authors of the plugin.
+     *
+     * @return The list of authors
+     */
+    public List<String> getAuthors() {
+        return _authors;
+    }
+
+    /**
+     * Gets the website of the plugin.
+     *
+     * @return The website
+     */
+    public String getWebsite() {
+        return _website;
+    }
+
+    /**
+     * Gets the main-class name of the plugin.
+     *
+     * @return The main-class name
+     */
+    public String getMain() {
+        return _main;
+    }
+
+    /**
+     * Gets if the plugin should use plugin-databases.
+     *
+     * @return True if it should be used false othewise
+     */
+    public Boolean getDatabase() {
+        return _database;
+    }
+
+    /**
+     * Gets all dependencies of the plugin in the order they were added.
+     *
+     * @return The dependencies
+     */
+    public List<Dependency> getDependencies() {
+        return _dependencies;
+    }
+
+    /**
+     * Gets the dependency on the plugin with the given name.
+     *
+     * @param name The name of the plugin depended on
+     * @return The dependency or null if not found
+     */
+    public Dependency getDependency(String name) {
+        for (Dependency dependency : _dependencies) {
+            if (dependency._name.equals(name)) {
+                return dependency;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the log prefix of the plugin.
+     *
+     * @return The log prefix
+     */
+    public String getPrefix() {
+        return _prefix;
+    }
+
+    /**
+     * Gets all commands of the plugin sorted by name.
+     *
+     * @return The commands
+     */
+    public List<Command> getCommands() {
+        return _commands;
+    }
+
+    /**
+     * Gets the command with the given name.
+     *
+     * @param name The name of the command
+     * @return The command or null if not found
+     */
+    public Command getCommand(String name) {
+        return find(_commands, name, Command::getName);
+    }
+
+    /**
+     * Gets all permissions of the plugin sorted by name.
+     *
+     * @return The permissions
+     */
+    public List<Permission> getPermissions() {
+        return _permissions;
+    }
+
+    /**
+     * Gets the permission with the given name.
+     *
+     * @param name The name of the permission
+     * @return The permission or null if not found
+     */
+    public Permission getPermission(String name) {
+        return find(_permissions, name, Permission::getName);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("name", _name)
+                .add("version", _version)
+                .add("description", _description)
+                .add("loadOn", _loadOn != null ? _loadOn.name() : null)
+                .add("authors", _authors)
+                .add("website", _website)
+                .add("main", _main)
+                .add("database", _database)
+                .add("dependencies", _dependencies)
+                .add("commands", _commands)
+                .add("permissions", _permissions)
+                .add("prefix", _prefix)
+                .toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(_name, _version, _description, _loadOn, _authors, _website, _main, _database, _dependencies, _prefix,
+                _commands, _permissions);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PluginMetadataSnapshot)) {
+            return false;
+        }
+        PluginMetadataSnapshot other = (PluginMetadataSnapshot) obj;
+        return _name.equals(other._name)
+                && Objects.equals(_version, other._version)
+                && Objects.equals(_description, other._description)
+                && _loadOn == other._loadOn
+                && _authors.equals(other._authors)
+                && Objects.equals(_website, other._website)
+                && Objects.equals(_main, other._main)
+                && Objects.equals(_database, other._database)
+                && _dependencies.equals(other._dependencies)
+                && Objects.equals(_prefix, other._prefix)
+                && _commands.equals(other._commands)
+                && _permissions.equals(other._permissions);
+    }
+
+    private static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        Interner<String> interner = MetadataInterner.getInterner();
+        return (interner != MetadataInterner.NONE ? interner : STRINGS).intern(value);
+    }
+
+    /**
+     * Searches the list sorted by name for the element with the given name.
+     */
+    private static <T> T find(List<T> sorted, String name, Function<T, String> names) {
+        int low = 0;
+        int high = sorted.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            T value = sorted.get(middle);
+            int compare = names.apply(value).compareTo(name);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies the given values into an immutable list, returning the shared
+     * empty list if there are no values.
+     */
+    private static <T, R> ImmutableList<R> list(Iterable<T> values, Function<T, R> mapper, Comparator<R> order) {
+        ImmutableList.Builder<R> builder = ImmutableList.builder();
+        values.forEach(value -> builder.add(mapper.apply(value)));
+        ImmutableList<R> list = builder.build();
+        return order != null ? ImmutableList.sortedCopyOf(order, list) : list;
+    }
+
+    /**
+     * Immutable copy of a {@link PluginDependency}.
+     */
+    public static final class Dependency {
+
+        private final String _name;
+        private final DependencyType _type;
+
+        private Dependency(PluginDependency dependency) {
+            _name = intern(dependency.getName());
+            _type = dependency.getType();
+        }
+
+        /**
+         * Gets the name of the plugin depended on.
+         *
+         * @return The name
+         */
+        public String getName() {
+            return _name;
+        }
+
+        /**
+         * Gets the type of the dependency.
+         *
+         * @return The type
+         * @see DependencyType
+         */
+        public DependencyType getType() {
+            return _type;
+        }
+
+        /**
+         * Creates a new mutable dependency holding the values of this one.
+         *
+         * @return The new dependency
+         */
+        public PluginDependency toDependency() {
+            PluginDependency dependency = new PluginDependency(_name);
+            dependency.setType(_type);
+            return dependency;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("name", _name)
+                    .add("type", _type)
+                    .toString();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * _name.hashCode() + (_type == null ? 0 : _type.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Dependency)) {
+                return false;
+            }
+            Dependency other = (Dependency) obj;
+            return _name.equals(other._name) && _type == other._type;
+        }
+    }
+
+    /**
+     * Immutable copy of a {@link PluginCommand}.
+     */
+    public static final class Command {
+
+        private final String _name;
+        private final String _description;
+        private final ImmutableList<String> _aliases;
+        private final String _permission;
+        private final String _usage;
+
+        private Command(PluginCommand command) {
+            _name = intern(command.getName());
+            _description = intern(command.getDescription());
+            _aliases = list(command.getAliases(), PluginMetadataSnapshot::intern, null);
+            _permission = intern(command.getPermission());
+            _usage = intern(command.getUsage());
+        }
+
+        /**
+         * Gets the name of the command.
+         *
+         * @return The name
+         */
+        public String getName() {
+            return _name;
+        }
+
+        /**
+         * Gets the description of the command.
+         *
+         * @return The description
+         */
+        public String getDescription() {
+            return _description;
+        }
+
+        /**
+         * Gets the list of aliases of the command.
+         *
+         * @return The list of aliases
+         */
+        public List<String> getAliases() {
+            return _aliases;
+        }
+
+        /**
+         * Gets the permission of the command.
+         *
+         * @return The permission
+         */
+        public String getPermission() {
+            return _permission;
+        }
+
+        /**
+         * Gets the usage of the command.
+         *
+         * @return The usage
+         */
+        public String getUsage() {
+            return _usage;
+        }
+
+        /**
+         * Creates a new mutable command holding the values of this one.
+         *
+         * @return The new command
+         */
+        public PluginCommand toCommand() {
+            PluginCommand command = new PluginCommand(_name);
+            command.setDescription(_description);
+            _aliases.forEach(command::addAlias);
+            command.setPermission(_permission);
+            command.setUsage(_usage);
+            return command;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("name", _name)
+                    .add("permission", _permission)
+                    .add("usage", _usage)
+                    .add("aliases", _aliases)
+                    .toString();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_name, _description, _aliases, _permission, _usage);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Command)) {
+                return false;
+            }
+            Command other = (Command) obj;
+            return _name.equals(other._name)
+                    && Objects.equals(_description, other._description)
+                    && _aliases.equals(other._aliases)
+                    && Objects.equals(_permission, other._permission)
+                    && Objects.equals(_usage, other._usage);
+        }
+    }
+
+    /**
+     * Immutable copy of a {@link PluginPermission}.
+     */
+    public static final class Permission {
+
+        private final String _name;
+        private final String _description;
+        private final PermissionDefault _default;
+        private final ImmutableMap<String, Boolean> _children;
+
+        private Permission(PluginPermission permission) {
+            _name = intern(permission.getName());
+            _description = intern(permission.getDescription());
+            _default = permission.getDefault();
+            ImmutableMap.Builder<String, Boolean> children = ImmutableMap.builder();
+            permission.getChilds().forEach((node, state) -> children.put(intern(node), state));
+            _children = children.build();
+        }
+
+        /**
+         * Gets the name of the permission.
+         *
+         * @return The name
+         */
+        public String getName() {
+            return _name;
+        }
+
+        /**
+         * Gets the description of the permission.
+         *
+         * @return The description
+         */
+        public String getDescription() {
+            return _description;
+        }
+
+        /**
+         * Gets the default value of the permission.
+         *
+         * @return The default value
+         * @see PermissionDefault
+         */
+        public PermissionDefault getDefault() {
+            return _default;
+        }
+
+        /**
+         * Gets all child permissions.
+         *
+         * @return The child permissions
+         */
+        public Map<String, Boolean> getChilds() {
+            return _children;
+        }
+
+        /**
+         * Creates a new mutable permission holding the values of this one.
+         *
+         * @return The new permission
+         */
+        public PluginPermission toPermission() {
+            PluginPermission permission = new PluginPermission(_name);
+            permission.setDescription(_description);
+            permission.setDefault(_default);
+            _children.forEach(permission::addChild);
+            return permission;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("name", _name)
+                    .add("description", _description)
+                    .add("default", _default)
+                    .add("children", _children)
+                    .toString();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_name, _description, _default, _children);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Permission)) {
+                return false;
+            }
+            Permission other = (Permission) obj;
+            return _name.equals(other._name)
+                    && Objects.equals(_description, other._description)
+                    && _default == other._default
+                    && _children.equals(other._children);
+        }
+    }
+}
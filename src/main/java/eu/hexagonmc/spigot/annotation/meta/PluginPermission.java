@@ -24,13 +24,17 @@ package eu.hexagonmc.spigot.annotation.meta;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static eu.hexagonmc.spigot.annotation.meta.MetadataInterner.intern;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
 import eu.hexagonmc.spigot.annotation.plugin.Permission;
 import eu.hexagonmc.spigot.annotation.plugin.PermissionChild;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class PluginPermission {
@@ -44,15 +48,37 @@ public class PluginPermission {
      * @see PluginPermission
      */
     public static PluginPermission from(Permission annotation) {
-        PluginPermission permission = new PluginPermission(annotation.name());
-        if (!Strings.isNullOrEmpty(annotation.description())) {
-            permission.setDescription(annotation.description());
+        List<Map.Entry<String, Boolean>> children = new ArrayList<>(annotation.children().length);
+        for (PermissionChild child : annotation.children()) {
+            children.add(Maps.immutableEntry(child.name(), child.value()));
+        }
+        return of(annotation.name(), annotation.description(), annotation.def(), children);
+    }
+
+    /**
+     * Creates permission from the values of a {@link Permission} annotation.
+     * An empty description and {@link PermissionDefault#FALSE} are treated as
+     * not set like the defaults of the annotation.
+     *
+     * @param name The name of the permission
+     * @param description The description of the permission or an empty
+     *        string
+     * @param def The default of the permission
+     * @param children The child nodes with their states
+     * @return The new permission
+     * @see #from(Permission)
+     */
+    public static PluginPermission of(String name, String description, PermissionDefault def,
+            Iterable<? extends Map.Entry<String, Boolean>> children) {
+        PluginPermission permission = new PluginPermission(name);
+        if (!Strings.isNullOrEmpty(description)) {
+            permission.setDescription(description);
         }
-        if (annotation.def() != PermissionDefault.FALSE) {
-            permission.setDefault(annotation.def());
+        if (def != PermissionDefault.FALSE) {
+            permission.setDefault(def);
         }
-        for (PermissionChild child : annotation.children()) {
-            permission.addChild(child.name(), child.value());
+        for (Map.Entry<String, Boolean> child : children) {
+            permission.addChild(child.getKey(), child.getValue());
         }
         return permission;
     }
@@ -91,7 +117,7 @@ public class PluginPermission {
     public void setName(String name) {
         checkNotNull(name);
         checkArgument(!name.isEmpty(), "Name should not be empty!");
-        _name = name;
+        _name = intern(name);
     }
 
     /**
@@ -109,7 +135,7 @@ public class PluginPermission {
      * @param description The description to set
      */
     public void setDescription(String description) {
-        _description = description;
+        _description = intern(description);
     }
 
     /**
@@ -151,7 +177,7 @@ public class PluginPermission {
         checkNotNull(node);
         checkArgument(!node.isEmpty(), "permission name should not be empty!");
         checkArgument(!_children.containsKey(node), "Duplicate child with name: " + node);
-        _children.put(node, state);
+        _children.put(intern(node), state);
     }
 
     /**
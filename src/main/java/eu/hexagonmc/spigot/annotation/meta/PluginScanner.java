@@ -0,0 +1,221 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the metadata of many plugin jars in parallel.
+ *
+ * </p> Each jar is opened and its yaml file is parsed with {@link PluginYml}.
+ * If the jar also contains the matching {@link PluginBinary} file it is used
+ * instead. Failures are collected per jar and do not abort the scan.
+ */
+public class PluginScanner {
+
+    /**
+     * The executor the jars are read on.
+     */
+    private final Executor _executor;
+
+    /**
+     * Creates a new scanner reading jars on the common
+     * {@link ForkJoinPool}.
+     */
+    public PluginScanner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new scanner reading jars on the given executor.
+     *
+     * @param executor The executor to use
+     */
+    public PluginScanner(Executor executor) {
+        _executor = checkNotNull(executor, "executor");
+    }
+
+    /**
+     * Reads the metadata of all jars in the given directory.
+     *
+     * @param directory The directory to scan for jar files
+     * @param filename The yaml filename, either
+     *        {@link PluginYml#FILENAME_SPIGOT} or
+     *        {@link PluginYml#FILENAME_BUNGEE}
+     * @return The result of the scan
+     * @throws IOException if the directory can not be listed
+     */
+    public Result scanDirectory(Path directory, String filename) throws IOException {
+        List<Path> jars = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.jar")) {
+            for (Path jar : stream) {
+                if (Files.isRegularFile(jar)) {
+                    jars.add(jar);
+                }
+            }
+        }
+        Collections.sort(jars);
+        return scan(jars, filename);
+    }
+
+    /**
+     * Reads the metadata of the given jars. Blocks until all jars are read.
+     *
+     * @param jars The jars to read
+     * @param filename The yaml filename, either
+     *        {@link PluginYml#FILENAME_SPIGOT} or
+     *        {@link PluginYml#FILENAME_BUNGEE}
+     * @return The result of the scan
+     */
+    public Result scan(Collection<Path> jars, String filename) {
+        List<Path> paths = new ArrayList<>(jars);
+        Object[] results = new Object[paths.size()];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            final int index = i;
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    results[index] = read(paths.get(index), filename);
+                } catch (Exception e) {
+                    results[index] = e;
+                }
+            }, _executor);
+        }
+        CompletableFuture.allOf(futures).join();
+
+        Map<Path, PluginMetadata> metadata = new LinkedHashMap<>();
+        Map<Path, Exception> errors = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            if (results[i] instanceof PluginMetadata) {
+                metadata.put(paths.get(i), (PluginMetadata) results[i]);
+            } else {
+                errors.put(paths.get(i), (Exception) results[i]);
+            }
+        }
+        return new Result(metadata, errors);
+    }
+
+    /**
+     * Reads the metadata of a single jar.
+     *
+     * @param jar The jar to read
+     * @param filename The yaml filename, either
+     *        {@link PluginYml#FILENAME_SPIGOT} or
+     *        {@link PluginYml#FILENAME_BUNGEE}
+     * @return The read metadata
+     * @throws IOException if the jar can not be read or does not contain
+     *         valid metadata
+     */
+    public static PluginMetadata read(Path jar, String filename) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            String binaryName = getBinaryFilename(filename);
+            ZipEntry entry = binaryName != null ? zip.getEntry(binaryName) : null;
+            if (entry != null) {
+                try (InputStream in = new BufferedInputStream(zip.getInputStream(entry))) {
+                    return PluginBinary.read(in);
+                }
+            }
+            entry = zip.getEntry(filename);
+            if (entry == null) {
+                throw new NoSuchFileException(jar + "!/" + filename);
+            }
+            PluginMetadata meta;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8))) {
+                meta = PluginYml.read(reader);
+            }
+            if (meta == null) {
+                throw new IOException("Invalid plugin metadata in " + jar + "!/" + filename);
+            }
+            return meta;
+        }
+    }
+
+    private static String getBinaryFilename(String filename) {
+        if (PluginYml.FILENAME_SPIGOT.equals(filename)) {
+            return PluginBinary.FILENAME_SPIGOT;
+        } else if (PluginYml.FILENAME_BUNGEE.equals(filename)) {
+            return PluginBinary.FILENAME_BUNGEE;
+        }
+        return null;
+    }
+
+    /**
+     * The result of a scan.
+     */
+    public static class Result {
+
+        /**
+         * The successfully read metadata per jar.
+         */
+        private final Map<Path, PluginMetadata> _metadata;
+        /**
+         * The errors per jar.
+         */
+        private final Map<Path, Exception> _errors;
+
+        private Result(Map<Path, PluginMetadata> metadata, Map<Path, Exception> errors) {
+            _metadata = Collections.unmodifiableMap(metadata);
+            _errors = Collections.unmodifiableMap(errors);
+        }
+
+        /**
+         * Gets the successfully read metadata in scan order.
+         *
+         * @return The metadata per jar
+         */
+        public Map<Path, PluginMetadata> getMetadata() {
+            return _metadata;
+        }
+
+        /**
+         * Gets the errors of jars which could not be read in scan order.
+         *
+         * @return The errors per jar
+         */
+        public Map<Path, Exception> getErrors() {
+            return _errors;
+        }
+    }
+}
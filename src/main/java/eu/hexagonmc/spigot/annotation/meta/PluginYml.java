@@ -23,13 +23,8 @@
 package eu.hexagonmc.spigot.annotation.meta;
 
 import com.google.common.base.Strings;
+import com.google.common.io.CharStreams;
 import eu.hexagonmc.spigot.annotation.AnnotationProcessor;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.DumperOptions.FlowStyle;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.constructor.Constructor;
-import org.yaml.snakeyaml.introspector.PropertyUtils;
-import org.yaml.snakeyaml.representer.Representer;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -40,14 +35,9 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Utility class for loading and saving plugin yaml files.
@@ -74,30 +64,19 @@ public class PluginYml {
     private static final Charset CHARSET = StandardCharsets.UTF_8;
 
     /**
-     * Date format used for yaml header.
+     * Environment variable holding a reproducible build timestamp in seconds
+     * since the epoch.
+     *
+     * @see <a href="https://reproducible-builds.org/specs/source-date-epoch/">
+     *      SOURCE_DATE_EPOCH</a>
      */
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+    public static final String SOURCE_DATE_EPOCH = "SOURCE_DATE_EPOCH";
 
     /**
-     * The yaml adapter for read and write.
-     *
-     * @see Yaml
+     * Date format used for yaml header. Always formats in UTC so the header
+     * does not depend on the timezone of the build machine.
      */
-    private static final Yaml _adapter;
-
-    static {
-        DumperOptions options = new DumperOptions();
-        options.setDefaultFlowStyle(FlowStyle.BLOCK);
-        options.setPrettyFlow(true);
-        options.setSplitLines(false);
-        options.setIndent(2);
-        options.setIndicatorIndent(0);
-        Constructor yamlConstructor = new Constructor();
-        PropertyUtils propertyUtils = yamlConstructor.getPropertyUtils();
-        propertyUtils.setSkipMissingProperties(true);
-        yamlConstructor.setPropertyUtils(propertyUtils);
-        _adapter = new Yaml(yamlConstructor, new Representer(), options);
-    }
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss").withZone(ZoneOffset.UTC);
 
     /**
      * Throw exception if used. Utility classes should not be instanced.
@@ -132,112 +111,46 @@ public class PluginYml {
      * @see PluginMetadata
      * @see Reader
      */
-    @SuppressWarnings("unchecked")
     public static PluginMetadata read(Reader reader) {
-        Map<String, Object> map = _adapter.load(reader);
-        if (map != null && map.containsKey("name") && map.get("name") instanceof String) {
-            PluginMetadata meta = new PluginMetadata((String) map.get("name"));
-            if (map.containsKey("version") && map.get("version") instanceof String) {
-                meta.setVersion((String) map.get("version"));
-            }
-            if (map.containsKey("description") && map.get("description") instanceof String) {
-                meta.setDescription((String) map.get("description"));
-            }
-            if (map.containsKey("load") && map.get("load") instanceof String) {
-                meta.setLoadOn(LoadOn.valueOf((String) map.get("load")));
-            }
-            if (map.containsKey("author") && map.get("author") instanceof String) {
-                meta.addAuthor((String) map.get("author"));
-            }
-            if (map.containsKey("authors") && map.get("authors") instanceof List) {
-                ((List<String>) map.get("authors")).forEach(meta::addAuthor);
-            }
-            if (map.containsKey("website") && map.get("website") instanceof String) {
-                meta.setWebsite((String) map.get("website"));
-            }
-            if (map.containsKey("main") && map.get("main") instanceof String) {
-                meta.setMain((String) map.get("main"));
-            }
-            if (map.containsKey("database") && map.get("database") instanceof Boolean) {
-                meta.setDatabase((Boolean) map.get("database"));
-            }
-            if (map.containsKey("depend") && map.get("depend") instanceof List) {
-                ((List<String>) map.get("depend")).forEach(depend -> {
-                    PluginDependency dep = new PluginDependency(depend);
-                    dep.setType(DependencyType.DEPEND);
-                    meta.addDependency(dep);
-                });
-            }
-            if (map.containsKey("softdepend") && map.get("softdepend") instanceof List) {
-                ((List<String>) map.get("softdepend")).forEach(depend -> {
-                    PluginDependency dep = new PluginDependency(depend);
-                    dep.setType(DependencyType.SOFTDEPEND);
-                    meta.addDependency(dep);
-                });
-            }
-            if (map.containsKey("loadbefore") && map.get("loadbefore") instanceof List) {
-                ((List<String>) map.get("loadbefore")).forEach(depend -> {
-                    PluginDependency dep = new PluginDependency(depend);
-                    dep.setType(DependencyType.LOADBEFORE);
-                    meta.addDependency(dep);
-                });
-            }
-            if (map.containsKey("prefix") && map.get("prefix") instanceof String) {
-                meta.setPrefix((String) map.get("prefix"));
-            }
-            if (map.containsKey("commands") && map.get("commands") instanceof Map) {
-                Map<String, Object> commands = (Map<String, Object>) map.get("commands");
-                commands.forEach((name, values) -> {
-                    PluginCommand command = new PluginCommand(name);
-                    if (values instanceof Map) {
-                        Map<String, Object> valueMap = (Map<String, Object>) values;
-                        if (valueMap.containsKey("description") && valueMap.get("description") instanceof String) {
-                            command.setDescription((String) valueMap.get("description"));
-                        }
-                        if (valueMap.containsKey("aliases") && valueMap.get("aliases") instanceof String) {
-                            command.addAlias((String) valueMap.get("aliases"));
-                        }
-                        if (valueMap.containsKey("aliases") && valueMap.get("aliases") instanceof List) {
-                            ((List<String>) valueMap.get("aliases")).forEach(command::addAlias);
-                        }
-                        if (valueMap.containsKey("permission") && valueMap.get("permission") instanceof String) {
-                            command.setPermission((String) valueMap.get("permission"));
-                        }
-                        if (valueMap.containsKey("usage") && valueMap.get("usage") instanceof String) {
-                            command.setUsage((String) valueMap.get("usage"));
-                        }
-                    }
-                    meta.addCommand(command);
-                });
-            }
-            if (map.containsKey("permissions") && map.get("permissions") instanceof Map) {
-                Map<String, Object> permissions = (Map<String, Object>) map.get("permissions");
-                permissions.forEach((name, values) -> {
-                    PluginPermission perm = new PluginPermission(name);
-                    if (values instanceof Map) {
-                        Map<String, Object> valueMap = (Map<String, Object>) values;
-                        if (valueMap.containsKey("description") && valueMap.get("description") instanceof String) {
-                            perm.setDescription((String) valueMap.get("description"));
-                        }
-                        if (valueMap.containsKey("default") && valueMap.get("default") instanceof String) {
-                            PermissionDefault def = PermissionDefault.valueOf(((String) valueMap.get("default")).toUpperCase());
-                            perm.setDefault(def);
-                        }
-                        if (valueMap.containsKey("children") && valueMap.get("children") instanceof Map) {
-                            Map<String, Boolean> childMap = (Map<String, Boolean>) valueMap.get("children");
-                            childMap.forEach((node, value) -> {
-                                if (value != null) {
-                                    perm.addChild(node, value);
-                                }
-                            });
-                        }
-                    }
-                    meta.addPermission(perm);
-                });
-            }
-            return meta;
+        return new PluginYmlReader(reader).read();
+    }
+
+    /**
+     * Reads metadata from the given path only parsing the commands and
+     * permissions when first accessed.
+     *
+     * @param path The path to read from
+     * @return The read metadata
+     * @throws IOException if something goes wrong during load
+     * @see #readLazy(Reader)
+     */
+    public static PluginMetadata readLazy(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, CHARSET)) {
+            return readLazy(reader);
         }
-        return null;
+    }
+
+    /**
+     * Reads metadata from the given reader only parsing the commands and
+     * permissions when first accessed.
+     *
+     * </p> The plugin header like the name, version, main-class and
+     * dependencies is read directly. The commands and permissions sections are
+     * only checked for valid yaml syntax and kept as text until they are
+     * accessed the first time. Errors in these sections are thrown by the
+     * first method of the returned metadata accessing the commands or
+     * permissions instead of this method.
+     *
+     * </p> Documents using anchors or aliases are read completely.
+     *
+     * @param reader The reader to read from
+     * @return The read metadata
+     * @throws IOException if the reader can not be read
+     * @see PluginMetadata
+     * @see Reader
+     */
+    public static PluginMetadata readLazy(Reader reader) throws IOException {
+        return new PluginYmlReader(CharStreams.toString(reader)).read();
     }
 
     /**
@@ -258,6 +171,9 @@ public class PluginYml {
     /**
      * Writes metadata to the given writer.
      *
+     * </p> The header is stamped with the date from {@link #getSourceDate()}
+     * if set, otherwise with the current date.
+     *
      * @param writer The writer to write to
      * @param meta The metadata to write
      * @throws IOException if something goes wrong during save
@@ -265,99 +181,47 @@ public class PluginYml {
      * @see Path
      */
     public static void write(Writer writer, PluginMetadata meta) throws IOException {
-        Map<String, Object> metaMap = new LinkedHashMap<>();
-        metaMap.put("name", meta.getName());
-        if (!Strings.isNullOrEmpty(meta.getVersion())) {
-            metaMap.put("version", meta.getVersion());
-        }
-        if (!Strings.isNullOrEmpty(meta.getDescription())) {
-            metaMap.put("description", meta.getDescription());
-        }
-        if (meta.getLoadOn() != null) {
-            metaMap.put("load", meta.getLoadOn().name());
-        }
-        if (!meta.getAuthors().isEmpty()) {
-            switch (meta.getAuthors().size()) {
-                case 1:
-                    metaMap.put("author", meta.getAuthors().iterator().next());
-                    break;
-                default:
-                    metaMap.put("authors", new ArrayList<>(meta.getAuthors()));
-                    break;
-            }
-        }
-        if (!Strings.isNullOrEmpty(meta.getWebsite())) {
-            metaMap.put("website", meta.getWebsite());
-        }
-        metaMap.put("main", meta.getMain());
-        if (meta.getDatabase() != null) {
-            metaMap.put("database", meta.getDatabase());
-        }
-        if (!meta.getDependencies().isEmpty()) {
-            List<String> depend = new ArrayList<>();
-            List<String> softdepend = new ArrayList<>();
-            List<String> loadbefore = new ArrayList<>();
-            for (PluginDependency dep : meta.getDependencies()) {
-                switch (dep.getType()) {
-                    case DEPEND:
-                        depend.add(dep.getName());
-                        break;
-                    case SOFTDEPEND:
-                        softdepend.add(dep.getName());
-                        break;
-                    case LOADBEFORE:
-                        loadbefore.add(dep.getName());
-                        break;
-                    default:
-                        break;
-                }
-            }
-            metaMap.put("depend", depend);
-            metaMap.put("softdepend", softdepend);
-            metaMap.put("loadbefore", loadbefore);
-        }
-        if (!Strings.isNullOrEmpty(meta.getPrefix())) {
-            metaMap.put("prefix", meta.getPrefix());
+        Date date = getSourceDate();
+        write(writer, meta, date != null ? date : new Date());
+    }
+
+    /**
+     * Writes metadata to the given writer.
+     *
+     * </p> Commands, permissions and permission children are written sorted
+     * by name so equal metadata always results in equal output. If the date
+     * is null the header is written without a timestamp.
+     *
+     * @param writer The writer to write to
+     * @param meta The metadata to write
+     * @param date The date to stamp into the header or null
+     * @throws IOException if something goes wrong during save
+     * @see PluginMetadata
+     */
+    public static void write(Writer writer, PluginMetadata meta, Date date) throws IOException {
+        writer.append("# Auto-generated yaml file, generated ");
+        if (date != null) {
+            writer.append("at ").append(DATE_FORMAT.format(date.toInstant())).append(" ");
         }
-        if (!meta.getCommands().isEmpty()) {
-            Map<String, Object> commands = new HashMap<>();
-            meta.getCommands().forEach(cmd -> {
-                Map<String, Object> valueMap = new HashMap<>();
-                if (!Strings.isNullOrEmpty(cmd.getDescription())) {
-                    valueMap.put("description", cmd.getDescription());
-                }
-                if (!cmd.getAliases().isEmpty()) {
-                    valueMap.put("aliases", new ArrayList<>(cmd.getAliases()));
-                }
-                if (!Strings.isNullOrEmpty(cmd.getPermission())) {
-                    valueMap.put("permission", cmd.getPermission());
-                }
-                if (!Strings.isNullOrEmpty(cmd.getUsage())) {
-                    valueMap.put("usage", cmd.getUsage());
-                }
-                commands.put(cmd.getName(), valueMap);
-            });
-            metaMap.put("commands", commands);
+        writer.append("by ").append(AnnotationProcessor.class.getName()).append("\n\n");
+        new PluginYmlWriter(writer).write(meta);
+    }
+
+    /**
+     * Gets the reproducible build date from the {@link #SOURCE_DATE_EPOCH}
+     * environment variable.
+     *
+     * @return The build date or null if not set or invalid
+     */
+    public static Date getSourceDate() {
+        String epoch = System.getenv(SOURCE_DATE_EPOCH);
+        if (Strings.isNullOrEmpty(epoch)) {
+            return null;
         }
-        if (!meta.getPermissions().isEmpty()) {
-            Map<String, Object> permissions = new HashMap<>();
-            meta.getPermissions().forEach(perm -> {
-                Map<String, Object> valueMap = new HashMap<>();
-                if (!Strings.isNullOrEmpty(perm.getDescription())) {
-                    valueMap.put("description", perm.getDescription());
-                }
-                if (perm.getDefault() != null) {
-                    valueMap.put("default", perm.getDefault().name().toLowerCase());
-                }
-                if (!perm.getChilds().isEmpty()) {
-                    valueMap.put("children", new HashMap<>(perm.getChilds()));
-                }
-                permissions.put(perm.getName(), valueMap);
-            });
-            metaMap.put("permissions", permissions);
+        try {
+            return new Date(Long.parseLong(epoch.trim()) * 1000L);
+        } catch (NumberFormatException e) {
+            return null;
         }
-        writer.append("# Auto-generated yaml file, generated at ").append(DATE_FORMAT.format(new Date())).append(" by ")
-                .append(AnnotationProcessor.class.getName()).append("\n\n");
-        _adapter.dump(metaMap, writer);
     }
 }
@@ -0,0 +1,734 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads plugin metadata directly from the yaml parse events.
+ *
+ * </p> Unlike loading the document into nested maps and lists first, the
+ * values are set on the {@link PluginMetadata}, {@link PluginCommand} and
+ * {@link PluginPermission} while parsing and unknown keys are skipped without
+ * building them. Scalars are typed with the default yaml {@link Resolver} so
+ * only values the map based reader would have seen as strings or booleans are
+ * accepted.
+ *
+ * </p> Anchors and aliases are supported by replaying the recorded events.
+ * Merge keys referring to a mapping or a sequence of mappings are applied in
+ * place. Like the map based reader, keys set explicitly in a mapping win over
+ * merged keys and earlier mappings of a merge sequence win over later ones.
+ */
+class PluginYmlReader {
+
+    /**
+     * The resolver used to type plain scalars. It is only read after
+     * construction so it can be shared.
+     */
+    private static final Resolver RESOLVER = new Resolver();
+    /**
+     * The frame of a merged mapping.
+     */
+    private static final int MERGED = -1;
+    /**
+     * The frame of a sequence of merged mappings.
+     */
+    private static final int SEQUENCE = -2;
+
+    /**
+     * The parser providing the events.
+     */
+    private final Parser _parser;
+    /**
+     * The recorded events per anchor.
+     */
+    private final Map<String, List<Event>> _anchors = new HashMap<>();
+    /**
+     * The anchored nodes currently being recorded.
+     */
+    private final List<Recording> _recordings = new ArrayList<>();
+    /**
+     * The recorded events currently replayed for aliases.
+     */
+    private final Deque<Iterator<Event>> _replay = new ArrayDeque<>();
+    /**
+     * The source of the document if commands and permissions are read
+     * lazily, otherwise null.
+     */
+    private final String _source;
+    /**
+     * The sections of the source holding the commands and permissions not yet
+     * read.
+     */
+    private final List<Section> _sections = new ArrayList<>();
+    /**
+     * The source code point index {@link #_sourceIndex} is at.
+     */
+    private int _sourcePoint;
+    /**
+     * The char index in the source matching {@link #_sourcePoint}.
+     */
+    private int _sourceIndex;
+    /**
+     * The open mappings, merged mappings and merge sequences. Mappings store
+     * the index of their first key in {@link #_keys}, merged mappings and
+     * merge sequences {@link #MERGED} and {@link #SEQUENCE}.
+     */
+    private int[] _frames = new int[8];
+    /**
+     * The rank per open frame. Merged mappings are ranked in the order they
+     * are opened, which is the order of precedence of their keys, mappings
+     * store the last rank given to a mapping merged into them.
+     */
+    private int[] _ranks = new int[8];
+    /**
+     * The number of open frames.
+     */
+    private int _frameCount;
+    /**
+     * The keys returned so far for each open mapping.
+     */
+    private final List<String> _keys = new ArrayList<>();
+    /**
+     * The rank of the frame each key in {@link #_keys} was returned from,
+     * zero for keys of the mapping itself.
+     */
+    private int[] _keyRanks = new int[8];
+    /**
+     * The end mark of the last skipped collection.
+     */
+    private Mark _lastEnd;
+
+    /**
+     * Creates a new reader reading from the given reader.
+     *
+     * @param reader The reader to read from
+     */
+    PluginYmlReader(Reader reader) {
+        _parser = new ParserImpl(new StreamReader(reader));
+        _source = null;
+    }
+
+    /**
+     * Creates a new reader reading the given document. The commands and
+     * permissions are only read when first accessed.
+     *
+     * @param source The document to read
+     */
+    PluginYmlReader(String source) {
+        _parser = new ParserImpl(new StreamReader(source));
+        _source = source;
+    }
+
+    /**
+     * Reads the metadata.
+     *
+     * @return The metadata or null if the document does not contain a plugin
+     *         name
+     * @throws YAMLException if the document is not valid yaml
+     */
+    PluginMetadata read() {
+        expect(next(), Event.ID.StreamStart);
+        Event event = next();
+        if (event.is(Event.ID.StreamEnd)) {
+            return null;
+        }
+        expect(event, Event.ID.DocumentStart);
+        event = next();
+        PluginMetadata meta = null;
+        if (event.is(Event.ID.MappingStart)) {
+            meta = readPlugin();
+        } else {
+            skip(event);
+        }
+        expect(next(), Event.ID.DocumentEnd);
+        if (!next().is(Event.ID.StreamEnd)) {
+            throw new YAMLException("expected a single document in the stream");
+        }
+        if (meta != null && !_sections.isEmpty()) {
+            if (!_anchors.isEmpty()) {
+                // Sections can not be read on their own if aliases may refer
+                // to anchors outside of them
+                return new PluginYmlReader(new StringReader(_source)).read();
+            }
+            String source = _source;
+            List<Section> sections = _sections;
+            meta.setLoader(loaded -> sections.forEach(section -> section.read(source, loaded)));
+        }
+        return meta;
+    }
+
+    private PluginMetadata readPlugin() {
+        PluginMetadata meta = new PluginMetadata();
+        String name = null;
+        String author = null;
+        List<String> authors = null;
+        List<String> depend = null;
+        List<String> softdepend = null;
+        List<String> loadbefore = null;
+        String key;
+        beginMapping();
+        while ((key = nextKey()) != null) {
+            switch (key) {
+                case "name":
+                    name = readString();
+                    break;
+                case "version":
+                    meta.setVersion(readString());
+                    break;
+                case "description":
+                    meta.setDescription(readString());
+                    break;
+                case "load":
+                    String load = readString();
+                    meta.setLoadOn(load != null ? LoadOn.valueOf(load) : null);
+                    break;
+                case "author":
+                    author = readString();
+                    break;
+                case "authors":
+                    authors = readStringList(next());
+                    break;
+                case "website":
+                    meta.setWebsite(readString());
+                    break;
+                case "main":
+                    String main = readString();
+                    if (main != null) {
+                        meta.setMain(main);
+                    }
+                    break;
+                case "database":
+                    meta.setDatabase(readBoolean());
+                    break;
+                case "depend":
+                    depend = readStringList(next());
+                    break;
+                case "softdepend":
+                    softdepend = readStringList(next());
+                    break;
+                case "loadbefore":
+                    loadbefore = readStringList(next());
+                    break;
+                case "prefix":
+                    meta.setPrefix(readString());
+                    break;
+                case "commands":
+                case "permissions":
+                    Event event = next();
+                    if (_source != null && event.is(Event.ID.MappingStart)) {
+                        int start = charIndex(event.getStartMark().getIndex());
+                        int column = event.getStartMark().getColumn();
+                        skip(event);
+                        _sections.add(new Section(key.equals("permissions"), start, charIndex(_lastEnd.getIndex()), column));
+                    } else if (key.equals("commands")) {
+                        readCommands(meta, event);
+                    } else {
+                        readPermissions(meta, event);
+                    }
+                    break;
+                default:
+                    skip(next());
+                    break;
+            }
+        }
+
+        if (name == null) {
+            return null;
+        }
+        meta.setName(name);
+        if (author != null) {
+            meta.addAuthor(author);
+        }
+        if (authors != null) {
+            authors.forEach(meta::addAuthor);
+        }
+        addDependencies(meta, depend, DependencyType.DEPEND);
+        addDependencies(meta, softdepend, DependencyType.SOFTDEPEND);
+        addDependencies(meta, loadbefore, DependencyType.LOADBEFORE);
+        return meta;
+    }
+
+    private static void addDependencies(PluginMetadata meta, List<String> names, DependencyType type) {
+        if (names != null) {
+            for (String name : names) {
+                PluginDependency dependency = new PluginDependency(name);
+                dependency.setType(type);
+                meta.addDependency(dependency);
+            }
+        }
+    }
+
+    private void readCommands(PluginMetadata meta, Event event) {
+        if (!event.is(Event.ID.MappingStart)) {
+            skip(event);
+            return;
+        }
+        String name;
+        beginMapping();
+        while ((name = nextKey()) != null) {
+            PluginCommand command = new PluginCommand(name);
+            event = next();
+            if (event.is(Event.ID.MappingStart)) {
+                readCommand(command);
+            } else {
+                skip(event);
+            }
+            meta.replaceCommand(command);
+        }
+    }
+
+    private void readCommand(PluginCommand command) {
+        List<String> aliases = null;
+        String key;
+        beginMapping();
+        while ((key = nextKey()) != null) {
+            switch (key) {
+                case "description":
+                    command.setDescription(readString());
+                    break;
+                case "aliases":
+                    Event event = next();
+                    if (event.is(Event.ID.Scalar)) {
+                        String alias = readString(event);
+                        aliases = alias != null ? Collections.singletonList(alias) : null;
+                    } else {
+                        aliases = readStringList(event);
+                    }
+                    break;
+                case "permission":
+                    command.setPermission(readString());
+                    break;
+                case "usage":
+                    command.setUsage(readString());
+                    break;
+                default:
+                    skip(next());
+                    break;
+            }
+        }
+        if (aliases != null) {
+            aliases.forEach(command::addAlias);
+        }
+    }
+
+    private void readPermissions(PluginMetadata meta, Event event) {
+        if (!event.is(Event.ID.MappingStart)) {
+            skip(event);
+            return;
+        }
+        String name;
+        beginMapping();
+        while ((name = nextKey()) != null) {
+            PluginPermission permission = new PluginPermission(name);
+            event = next();
+            if (event.is(Event.ID.MappingStart)) {
+                readPermission(permission);
+            } else {
+                skip(event);
+            }
+            meta.replacePermission(permission);
+        }
+    }
+
+    private void readPermission(PluginPermission permission) {
+        String key;
+        beginMapping();
+        while ((key = nextKey()) != null) {
+            switch (key) {
+                case "description":
+                    permission.setDescription(readString());
+                    break;
+                case "default":
+                    String def = readString();
+                    permission.setDefault(def != null ? PermissionDefault.valueOf(def.toUpperCase()) : null);
+                    break;
+                case "children":
+                    readChildren(permission);
+                    break;
+                default:
+                    skip(next());
+                    break;
+            }
+        }
+    }
+
+    private void readChildren(PluginPermission permission) {
+        Event event = next();
+        if (!event.is(Event.ID.MappingStart)) {
+            skip(event);
+            return;
+        }
+        // The children replace the ones of a previous children key
+        if (!permission.getChilds().isEmpty()) {
+            for (String node : new ArrayList<>(permission.getChilds().keySet())) {
+                permission.removeChild(node);
+            }
+        }
+        String node;
+        beginMapping();
+        while ((node = nextKey()) != null) {
+            Boolean value = readBoolean();
+            if (value != null) {
+                permission.removeChild(node);
+                permission.addChild(node, value);
+            }
+        }
+    }
+
+    private String readString() {
+        return readString(next());
+    }
+
+    private String readString(Event event) {
+        if (event.is(Event.ID.Scalar)) {
+            ScalarEvent scalar = (ScalarEvent) event;
+            return isType(scalar, Tag.STR) ? scalar.getValue() : null;
+        }
+        skip(event);
+        return null;
+    }
+
+    private Boolean readBoolean() {
+        Event event = next();
+        if (event.is(Event.ID.Scalar)) {
+            ScalarEvent scalar = (ScalarEvent) event;
+            if (isType(scalar, Tag.BOOL)) {
+                switch (scalar.getValue().toLowerCase()) {
+                    case "yes":
+                    case "true":
+                    case "on":
+                        return Boolean.TRUE;
+                    case "no":
+                    case "false":
+                    case "off":
+                        return Boolean.FALSE;
+                    default:
+                        return null;
+                }
+            }
+            return null;
+        }
+        skip(event);
+        return null;
+    }
+
+    private List<String> readStringList(Event event) {
+        if (!event.is(Event.ID.SequenceStart)) {
+            skip(event);
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        while (!(event = next()).is(Event.ID.SequenceEnd)) {
+            String value = readString(event);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static boolean isType(ScalarEvent scalar, Tag type) {
+        String tag = scalar.getTag();
+        if (tag == null || tag.equals("!")) {
+            return RESOLVER.resolve(NodeId.scalar, scalar.getValue(), scalar.getImplicit().canOmitTagInPlainScalar()).equals(type);
+        }
+        return type.getValue().equals(tag);
+    }
+
+    /**
+     * Starts reading the entries of a mapping after its start event.
+     */
+    private void beginMapping() {
+        push(_keys.size(), 0);
+    }
+
+    private void push(int frame, int rank) {
+        if (_frameCount == _frames.length) {
+            _frames = Arrays.copyOf(_frames, _frameCount * 2);
+            _ranks = Arrays.copyOf(_ranks, _frameCount * 2);
+        }
+        _frames[_frameCount] = frame;
+        _ranks[_frameCount++] = rank;
+    }
+
+    /**
+     * Opens a mapping merged into the innermost mapping.
+     */
+    private void pushMerged() {
+        push(MERGED, ++_ranks[mapping()]);
+    }
+
+    /**
+     * Returns the index of the frame of the innermost mapping.
+     */
+    private int mapping() {
+        int frame = _frameCount - 1;
+        while (_frames[frame] < 0) {
+            frame--;
+        }
+        return frame;
+    }
+
+    /**
+     * Returns the next string key of the current mapping. Entries with other
+     * keys are skipped, the entries of merged mappings are returned in place.
+     * A merged entry is skipped if its key was already returned with higher
+     * precedence, that is from the mapping itself or from a mapping merged
+     * before it.
+     *
+     * @return The key or null at the end of the mapping
+     */
+    private String nextKey() {
+        while (true) {
+            Event event = next();
+            int frame = _frames[_frameCount - 1];
+            if (frame == SEQUENCE) {
+                if (event.is(Event.ID.SequenceEnd)) {
+                    _frameCount--;
+                } else if (event.is(Event.ID.MappingStart)) {
+                    pushMerged();
+                } else {
+                    skip(event);
+                }
+                continue;
+            }
+            if (event.is(Event.ID.MappingEnd)) {
+                _frameCount--;
+                if (frame >= 0) {
+                    _keys.subList(frame, _keys.size()).clear();
+                    return null;
+                }
+                continue;
+            }
+            if (event.is(Event.ID.Scalar)) {
+                ScalarEvent key = (ScalarEvent) event;
+                if (isType(key, Tag.MERGE)) {
+                    Event value = next();
+                    if (value.is(Event.ID.MappingStart)) {
+                        pushMerged();
+                    } else if (value.is(Event.ID.SequenceStart)) {
+                        push(SEQUENCE, 0);
+                    } else {
+                        skip(value);
+                    }
+                    continue;
+                }
+                int rank = frame == MERGED ? _ranks[_frameCount - 1] : 0;
+                if (rank > 0 && isPrecededBy(key.getValue(), rank)) {
+                    skip(next());
+                    continue;
+                }
+                if (_keys.size() == _keyRanks.length) {
+                    _keyRanks = Arrays.copyOf(_keyRanks, _keys.size() * 2);
+                }
+                _keyRanks[_keys.size()] = rank;
+                _keys.add(key.getValue());
+                return key.getValue();
+            }
+            skip(event);
+            skip(next());
+        }
+    }
+
+    /**
+     * Checks whether the given key was already returned for the innermost
+     * mapping with a lower rank than the given one.
+     */
+    private boolean isPrecededBy(String key, int rank) {
+        for (int i = _frames[mapping()]; i < _keys.size(); i++) {
+            if (_keyRanks[i] < rank && _keys.get(i).equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skips the node started by the given event.
+     */
+    private void skip(Event event) {
+        if (!event.is(Event.ID.MappingStart) && !event.is(Event.ID.SequenceStart)) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            event = next();
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+        }
+        _lastEnd = event.getEndMark();
+    }
+
+    /**
+     * Converts a code point index of the source to a char index. The indices
+     * have to be increasing.
+     */
+    private int charIndex(int point) {
+        _sourceIndex = _source.offsetByCodePoints(_sourceIndex, point - _sourcePoint);
+        _sourcePoint = point;
+        return _sourceIndex;
+    }
+
+    private static void expect(Event event, Event.ID id) {
+        if (!event.is(id)) {
+            throw new YAMLException("expected " + id + " but found " + event);
+        }
+    }
+
+    /**
+     * Returns the next event. Aliases are replaced by the recorded events of
+     * their anchor.
+     */
+    private Event next() {
+        Event event = null;
+        while (event == null) {
+            Iterator<Event> replay = _replay.peek();
+            if (replay == null) {
+                event = _parser.getEvent();
+            } else if (replay.hasNext()) {
+                event = replay.next();
+            } else {
+                _replay.pop();
+                continue;
+            }
+            if (event.is(Event.ID.Alias)) {
+                String anchor = ((AliasEvent) event).getAnchor();
+                List<Event> events = _anchors.get(anchor);
+                if (events == null) {
+                    throw new YAMLException("found undefined alias " + anchor);
+                }
+                _replay.push(events.iterator());
+                event = null;
+            }
+        }
+        record(event);
+        return event;
+    }
+
+    private void record(Event event) {
+        for (int i = _recordings.size() - 1; i >= 0; i--) {
+            Recording recording = _recordings.get(i);
+            recording._events.add(event);
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                recording._depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                recording._depth--;
+            }
+            if (recording._depth == 0) {
+                _anchors.put(recording._anchor, recording._events);
+                _recordings.remove(i);
+            }
+        }
+        if (event instanceof NodeEvent && ((NodeEvent) event).getAnchor() != null) {
+            Recording recording = new Recording(((NodeEvent) event).getAnchor());
+            recording._events.add(event);
+            if (event.is(Event.ID.Scalar)) {
+                _anchors.put(recording._anchor, recording._events);
+            } else {
+                recording._depth = 1;
+                _recordings.add(recording);
+            }
+        }
+    }
+
+    /**
+     * A section of the source holding the commands or permissions mapping.
+     */
+    private static class Section {
+
+        private final boolean _permissions;
+        private final int _start;
+        private final int _end;
+        private final int _column;
+
+        Section(boolean permissions, int start, int end, int column) {
+            _permissions = permissions;
+            _start = start;
+            _end = end;
+            _column = column;
+        }
+
+        /**
+         * Reads the mapping of this section into the given metadata. The
+         * section is indented by its start column so the block structure of
+         * the mapping is kept.
+         */
+        void read(String source, PluginMetadata meta) {
+            StringBuilder builder = new StringBuilder(_column + _end - _start);
+            for (int i = 0; i < _column; i++) {
+                builder.append(' ');
+            }
+            builder.append(source, _start, _end);
+            PluginYmlReader reader = new PluginYmlReader(new StringReader(builder.toString()));
+            expect(reader.next(), Event.ID.StreamStart);
+            expect(reader.next(), Event.ID.DocumentStart);
+            if (_permissions) {
+                reader.readPermissions(meta, reader.next());
+            } else {
+                reader.readCommands(meta, reader.next());
+            }
+            expect(reader.next(), Event.ID.DocumentEnd);
+        }
+    }
+
+    /**
+     * The events of an anchored node being recorded.
+     */
+    private static class Recording {
+
+        private final String _anchor;
+        private final List<Event> _events = new ArrayList<>();
+        private int _depth;
+
+        Recording(String anchor) {
+            _anchor = anchor;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.meta;
+
+import com.google.common.base.Strings;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.DumperOptions.FlowStyle;
+import org.yaml.snakeyaml.DumperOptions.ScalarStyle;
+import org.yaml.snakeyaml.emitter.Emitter;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ImplicitTuple;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Writes plugin metadata as yaml events directly to the SnakeYAML
+ * {@link Emitter}.
+ *
+ * </p> The events are the same the SnakeYAML representer and serializer
+ * create for the equivalent tree of maps and lists, so the output is byte
+ * identical, but no intermediate tree is built. Scalars are tagged and styled
+ * like the SnakeYAML representer does: multiline strings use the literal
+ * style and strings with non printable characters are written as binary.
+ */
+class PluginYmlWriter {
+
+    /**
+     * The options of the emitter. Only read by the emitter constructor so
+     * they can be shared.
+     */
+    private static final DumperOptions OPTIONS = new DumperOptions();
+    /**
+     * The resolver used to find out whether a tag can be omitted. It is only
+     * read after construction so it can be shared.
+     */
+    private static final Resolver RESOLVER = new Resolver();
+    /**
+     * Matches strings the representer writes in the literal style.
+     */
+    private static final Pattern MULTILINE_PATTERN = Pattern.compile("\n|\u0085|\u2028|\u2029");
+
+    private static final Event MAPPING_START = new MappingStartEvent(null, Tag.MAP.getValue(), true, null, null, FlowStyle.BLOCK);
+    private static final Event MAPPING_END = new MappingEndEvent(null, null);
+    private static final Event SEQUENCE_START = new SequenceStartEvent(null, Tag.SEQ.getValue(), true, null, null, FlowStyle.BLOCK);
+    private static final Event SEQUENCE_END = new SequenceEndEvent(null, null);
+    private static final Event TRUE = scalar(Tag.BOOL, "true", ScalarStyle.PLAIN);
+    private static final Event FALSE = scalar(Tag.BOOL, "false", ScalarStyle.PLAIN);
+    private static final Event NULL = scalar(Tag.NULL, "null", ScalarStyle.PLAIN);
+
+    /**
+     * The events of the fixed keys.
+     */
+    private static final Map<String, Event> KEYS = new HashMap<>();
+
+    static {
+        OPTIONS.setDefaultFlowStyle(FlowStyle.BLOCK);
+        OPTIONS.setPrettyFlow(true);
+        OPTIONS.setSplitLines(false);
+        OPTIONS.setIndent(2);
+        OPTIONS.setIndicatorIndent(0);
+        for (String key : new String[] {"name", "version", "description", "load", "author", "authors", "website", "main", "database",
+            "depend", "softdepend", "loadbefore", "prefix", "commands", "aliases", "permission", "usage", "permissions", "default",
+            "children"}) {
+            KEYS.put(key, string(key));
+        }
+    }
+
+    /**
+     * The emitter to write the events to.
+     */
+    private final Emitter _emitter;
+
+    /**
+     * Creates a new writer writing to the given writer.
+     *
+     * @param writer The writer to write to
+     */
+    PluginYmlWriter(Writer writer) {
+        _emitter = new Emitter(writer, OPTIONS);
+    }
+
+    /**
+     * Writes the given metadata as a single yaml document.
+     *
+     * @param meta The metadata to write
+     * @throws IOException if the writer fails
+     */
+    void write(PluginMetadata meta) throws IOException {
+        _emitter.emit(new StreamStartEvent(null, null));
+        _emitter.emit(new DocumentStartEvent(null, null, OPTIONS.isExplicitStart(), OPTIONS.getVersion(), OPTIONS.getTags()));
+        _emitter.emit(MAPPING_START);
+
+        key("name");
+        _emitter.emit(string(meta.getName()));
+        entry("version", meta.getVersion());
+        entry("description", meta.getDescription());
+        if (meta.getLoadOn() != null) {
+            key("load");
+            _emitter.emit(string(meta.getLoadOn().name()));
+        }
+        if (meta.getAuthors().size() == 1) {
+            entry("author", meta.getAuthors().iterator().next());
+        } else if (!meta.getAuthors().isEmpty()) {
+            key("authors");
+            list(meta.getAuthors());
+        }
+        entry("website", meta.getWebsite());
+        key("main");
+        _emitter.emit(meta.getMain() != null ? string(meta.getMain()) : NULL);
+        if (meta.getDatabase() != null) {
+            key("database");
+            _emitter.emit(meta.getDatabase() ? TRUE : FALSE);
+        }
+        if (!meta.getDependencies().isEmpty()) {
+            dependencies("depend", meta, DependencyType.DEPEND);
+            dependencies("softdepend", meta, DependencyType.SOFTDEPEND);
+            dependencies("loadbefore", meta, DependencyType.LOADBEFORE);
+        }
+        entry("prefix", meta.getPrefix());
+
+        if (!meta.getCommands().isEmpty()) {
+            key("commands");
+            _emitter.emit(MAPPING_START);
+            PluginCommand[] commands = meta.getCommands().toArray(new PluginCommand[0]);
+            Arrays.sort(commands, Comparator.comparing(PluginCommand::getName));
+            for (PluginCommand command : commands) {
+                _emitter.emit(string(command.getName()));
+                _emitter.emit(MAPPING_START);
+                entry("description", command.getDescription());
+                if (!command.getAliases().isEmpty()) {
+                    key("aliases");
+                    list(command.getAliases());
+                }
+                entry("permission", command.getPermission());
+                entry("usage", command.getUsage());
+                _emitter.emit(MAPPING_END);
+            }
+            _emitter.emit(MAPPING_END);
+        }
+
+        if (!meta.getPermissions().isEmpty()) {
+            key("permissions");
+            _emitter.emit(MAPPING_START);
+            PluginPermission[] permissions = meta.getPermissions().toArray(new PluginPermission[0]);
+            Arrays.sort(permissions, Comparator.comparing(PluginPermission::getName));
+            for (PluginPermission permission : permissions) {
+                _emitter.emit(string(permission.getName()));
+                _emitter.emit(MAPPING_START);
+                entry("description", permission.getDescription());
+                if (permission.getDefault() != null) {
+                    key("default");
+                    _emitter.emit(string(permission.getDefault().name().toLowerCase()));
+                }
+                if (!permission.getChilds().isEmpty()) {
+                    key("children");
+                    _emitter.emit(MAPPING_START);
+                    String[] children = permission.getChilds().keySet().toArray(new String[0]);
+                    Arrays.sort(children);
+                    for (String child : children) {
+                        _emitter.emit(string(child));
+                        _emitter.emit(permission.getChilds().get(child) ? TRUE : FALSE);
+                    }
+                    _emitter.emit(MAPPING_END);
+                }
+                _emitter.emit(MAPPING_END);
+            }
+            _emitter.emit(MAPPING_END);
+        }
+
+        _emitter.emit(MAPPING_END);
+        _emitter.emit(new DocumentEndEvent(null, null, OPTIONS.isExplicitEnd()));
+        _emitter.emit(new StreamEndEvent(null, null));
+    }
+
+    private void key(String key) throws IOException {
+        _emitter.emit(KEYS.get(key));
+    }
+
+    private void entry(String key, String value) throws IOException {
+        if (!Strings.isNullOrEmpty(value)) {
+            key(key);
+            _emitter.emit(string(value));
+        }
+    }
+
+    private void list(Iterable<String> values) throws IOException {
+        _emitter.emit(SEQUENCE_START);
+        for (String value : values) {
+            _emitter.emit(string(value));
+        }
+        _emitter.emit(SEQUENCE_END);
+    }
+
+    private void dependencies(String key, PluginMetadata meta, DependencyType type) throws IOException {
+        key(key);
+        _emitter.emit(SEQUENCE_START);
+        for (PluginDependency dependency : meta.getDependencies()) {
+            if (dependency.getType() == type) {
+                _emitter.emit(string(dependency.getName()));
+            }
+        }
+        _emitter.emit(SEQUENCE_END);
+    }
+
+    /**
+     * Creates the event of a string scalar the same way the representer
+     * represents strings.
+     */
+    private static ScalarEvent string(String value) {
+        Tag tag = Tag.STR;
+        ScalarStyle style = ScalarStyle.PLAIN;
+        if (!StreamReader.isPrintable(value)) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (!new String(bytes, StandardCharsets.UTF_8).equals(value)) {
+                throw new YAMLException("invalid string value has occurred");
+            }
+            tag = Tag.BINARY;
+            value = String.valueOf(Base64Coder.encode(bytes));
+            style = ScalarStyle.LITERAL;
+        }
+        if (MULTILINE_PATTERN.matcher(value).find()) {
+            style = ScalarStyle.LITERAL;
+        }
+        return scalar(tag, value, style);
+    }
+
+    /**
+     * Creates the event of a scalar the same way the serializer does.
+     */
+    private static ScalarEvent scalar(Tag tag, String value, ScalarStyle style) {
+        ImplicitTuple implicit = new ImplicitTuple(tag.equals(RESOLVER.resolve(NodeId.scalar, value, true)),
+                tag.equals(RESOLVER.resolve(NodeId.scalar, value, false)));
+        return new ScalarEvent(null, tag.getValue(), implicit, value, null, null, style);
+    }
+}
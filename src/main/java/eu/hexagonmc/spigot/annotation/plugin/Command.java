@@ -22,15 +22,27 @@
  */
 package eu.hexagonmc.spigot.annotation.plugin;
 
+import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
+/**
+ * A command of a spigot plugin.
+ *
+ * </p> Either listed in {@link Plugin.Spigot#commands()} or placed on a method
+ * of the plugin main-class. For annotated methods a
+ * {@code <main>$CommandDispatcher} executor is generated calling the methods
+ * directly. The parameters of such a method may be any of
+ * {@code CommandSender}, {@code Command}, {@code String} for the label and
+ * {@code String[]} for the arguments in any order. The method returns a
+ * {@code boolean} or {@code void}, which is treated as {@code true}.
+ */
 @Documented
 @Retention(RUNTIME)
-@Target({})
+@Target(METHOD)
 public @interface Command {
 
     /**
@@ -60,4 +72,12 @@ public @interface Command {
      * @return the usage message
      */
     String usage() default "";
+
+    /**
+     * The literals accepted as first argument of this command, offered by the
+     * generated tab completion. Not written to the plugin metadata.
+     *
+     * @return the sub-command list
+     */
+    String[] subcommands() default {};
 }
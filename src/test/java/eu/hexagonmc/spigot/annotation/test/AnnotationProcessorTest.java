@@ -22,7 +22,9 @@
  */
 package eu.hexagonmc.spigot.annotation.test;
 
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.testing.compile.CompilationSubject.assertThat;
+import static org.junit.Assert.fail;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
@@ -30,19 +32,40 @@ import com.google.testing.compile.Compilation;
 import com.google.testing.compile.Compiler;
 import com.google.testing.compile.JavaFileObjects;
 import eu.hexagonmc.spigot.annotation.AnnotationProcessor;
+import eu.hexagonmc.spigot.annotation.meta.CompletionTrie;
+import eu.hexagonmc.spigot.annotation.meta.PermissionTable;
+import eu.hexagonmc.spigot.annotation.meta.PluginBinary;
 import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataLoader;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
 import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
 public class AnnotationProcessorTest {
 
@@ -127,6 +150,89 @@ public class AnnotationProcessorTest {
         assertThat(compilation).succeeded();
     }
 
+    @Test
+    public void testIncrementalRegistration() throws IOException {
+        URL url = getClass().getResource("/META-INF/gradle/incremental.annotation.processors");
+        assertThat(url).isNotNull();
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        assertThat(lines).contains(AnnotationProcessor.class.getName() + ",aggregating");
+    }
+
+    @Test
+    public void testGeneratedResource() throws IOException {
+        URL url = getClass().getResource("/TestPlugin.java");
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        lines.replaceAll(line -> {
+            line = line.replace("/* data */", "");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestPlugin", lines);
+        Compilation compilation = _compiler.compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedFile(StandardLocation.CLASS_OUTPUT, "", PluginYml.FILENAME_SPIGOT);
+    }
+
+    @Test
+    public void testDeterministicOutput() throws IOException {
+        URL url = getClass().getResource("/TestPlugin.java");
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        lines.replaceAll(line -> {
+            line = line.replace("/* data */", "");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestPlugin", lines);
+        Compilation compilation = _compiler
+                .withOptions("-AmetaDeterministic=true")
+                .compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedFile(StandardLocation.CLASS_OUTPUT, "", PluginYml.FILENAME_SPIGOT)
+                .contentsAsUtf8String().startsWith("# Auto-generated yaml file, generated by ");
+    }
+
+    @Test
+    public void testUnchangedOutputNotRewritten() throws IOException {
+        URL url = getClass().getResource("/TestPlugin.java");
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        List<String> newLines;
+
+        newLines = new ArrayList<>(lines);
+        newLines.replaceAll(line -> {
+            line = line.replace("/* data */", ", version = \"1.0.0\"");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        final JavaFileObject fileObject1 = JavaFileObjects.forSourceLines("TestPlugin", newLines);
+
+        newLines = new ArrayList<>(lines);
+        newLines.replaceAll(line -> {
+            line = line.replace("/* data */", ", version = \"1.0.1\"");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        final JavaFileObject fileObject2 = JavaFileObjects.forSourceLines("TestPlugin", newLines);
+
+        Path file = Files.createTempFile("plugin", "yaml");
+        try {
+            FileTime time = FileTime.fromMillis(1000000L);
+            Compiler compiler = _compiler.withOptions("-AmetaOutputFileSpigot=" + file.toString());
+
+            assertThat(compiler.withProcessors(new AnnotationProcessor()).compile(fileObject1)).succeeded();
+            assertThat(PluginYml.read(file).getVersion()).isEqualTo("1.0.0");
+            Files.setLastModifiedTime(file, time);
+
+            assertThat(compiler.withProcessors(new AnnotationProcessor()).compile(fileObject1)).succeeded();
+            assertThat(Files.getLastModifiedTime(file)).isEqualTo(time);
+
+            assertThat(compiler.withProcessors(new AnnotationProcessor()).compile(fileObject2)).succeeded();
+            assertThat(Files.getLastModifiedTime(file)).isNotEqualTo(time);
+            assertThat(PluginYml.read(file).getVersion()).isEqualTo("1.0.1");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
     @Test
     public void testSpigotFull() throws IOException {
         URL url = getClass().getResource("/TestPlugin.java");
@@ -301,4 +407,523 @@ public class AnnotationProcessorTest {
                 .compile(fileObject1, fileObject2);
         assertThat(compilation).succeeded();
     }
+
+    @Test
+    public void testExtraFilesCache() throws IOException {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.setVersion("1.0.0");
+        meta.addAuthor("Zartec");
+        PluginPermission perm = new PluginPermission("test.perm");
+        perm.addChild("test.child", true);
+        meta.addPermission(perm);
+        Path file = Files.createTempFile("plugin", "yaml");
+        Path cache = Files.createTempDirectory("cache");
+        Path output = Files.createTempFile("plugin", "yaml");
+        PluginYml.write(file, meta);
+
+        URL url = getClass().getResource("/TestPlugin.java");
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        lines.replaceAll(line -> {
+            line = line.replace("/* data */", "");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestPlugin", lines);
+        Compiler compiler = _compiler.withOptions("-AextraMetaFilesSpigot=" + file.toString(),
+                "-AextraMetaCache=" + cache.toString(),
+                "-AmetaOutputFileSpigot=" + output.toString());
+
+        assertThat(compiler.withProcessors(new AnnotationProcessor()).compile(fileObject)).succeeded();
+        assertThat(PluginYml.read(output).getVersion()).isEqualTo("1.0.0");
+        assertThat(PluginYml.read(output).getPermissions()).containsExactlyElementsIn(meta.getPermissions());
+        try (Stream<Path> files = Files.list(cache)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+
+        // Same size and modification time, the cached copy is used
+        FileTime time = Files.getLastModifiedTime(file);
+        meta.setVersion("2.0.0");
+        PluginYml.write(file, meta);
+        Files.setLastModifiedTime(file, time);
+        assertThat(compiler.withProcessors(new AnnotationProcessor()).compile(fileObject)).succeeded();
+        assertThat(PluginYml.read(output).getVersion()).isEqualTo("1.0.0");
+
+        // Changed modification time, the file is parsed again
+        Files.setLastModifiedTime(file, FileTime.fromMillis(time.toMillis() + 10000L));
+        assertThat(compiler.withProcessors(new AnnotationProcessor()).compile(fileObject)).succeeded();
+        assertThat(PluginYml.read(output).getVersion()).isEqualTo("2.0.0");
+    }
+
+    @Test
+    public void testInvalidValues() throws IOException {
+        URL url = getClass().getResource("/TestPlugin.java");
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        List<String> nameLines = new ArrayList<>(lines);
+        nameLines.replaceAll(line -> {
+            line = line.replace("@Plugin(name = \"test\"/* data */)", "@Plugin(name = \"in valid\")");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        Compilation compilation = _compiler.compile(JavaFileObjects.forSourceLines("TestPlugin", nameLines));
+        assertThat(compilation).hadWarningContaining("Plugin name 'in valid' must match pattern");
+
+        List<String> valueLines = new ArrayList<>(lines);
+        valueLines.replaceAll(line -> {
+            line = line.replace("/* data */", ", dependencies = @Dependency(name = \"\"),"
+                    + "spigot = @Spigot(authors = \"\", commands = @Command(name = \"\"), permissions = @Permission(name = \"\"))");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        compilation = _compiler.withProcessors(new AnnotationProcessor())
+                .compile(JavaFileObjects.forSourceLines("TestPlugin", valueLines));
+        assertThat(compilation).hadWarningContaining("Dependency name should not be empty.");
+        assertThat(compilation).hadWarningContaining("Empty author is not allowed");
+        assertThat(compilation).hadWarningContaining("Empty command name is not allowed");
+        assertThat(compilation).hadWarningContaining("Empty permission name is not allowed");
+    }
+
+    @Test
+    public void testGeneratedMetadataClass() throws IOException {
+        URL url = getClass().getResource("/TestPlugin.java");
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        lines.replaceAll(line -> {
+            line = line.replace("/* data */", ","
+                    + "version = \"1.0.0\","
+                    + "description = \"desc \\\"quoted\\\"\\n\\u00e4\","
+                    + "dependencies = {"
+                    + "  @Dependency(name = \"test\", type = DependencyType.SOFTDEPEND)"
+                    + "},"
+                    + "spigot = @Spigot"
+                    + "("
+                    + "  authors = {\"Zartec\", \"ghac\"},"
+                    + "  load = LoadOn.STARTUP,"
+                    + "  commands = {"
+                    + "    @Command(name = \"test\", aliases = {\"t\"}, permission = \"test.perm\")"
+                    + "  },"
+                    + "  permissions = {"
+                    + "    @Permission(name = \"test.perm\", def = PermissionDefault.OP,"
+                    + "      children = {@PermissionChild(name = \"test.child\", value = false)})"
+                    + "  }"
+                    + ")");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestPlugin", lines);
+        Path output = Files.createTempFile("plugin", "yaml");
+        Compilation compilation = _compiler
+                .withOptions("-AmetaGenerateClass=true", "-AmetaOutputFileSpigot=" + output.toString())
+                .compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("TestPlugin$Metadata");
+
+        Path directory = Files.createTempDirectory("classes");
+        for (JavaFileObject file : compilation.generatedFiles()) {
+            String path = file.toUri().getPath();
+            if (path.startsWith("/CLASS_OUTPUT/")) {
+                Path target = directory.resolve(path.substring("/CLASS_OUTPUT/".length()));
+                try (InputStream in = file.openInputStream()) {
+                    Files.copy(in, target);
+                }
+            }
+        }
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader())) {
+            PluginMetadata generated = PluginMetadataLoader.loadGenerated(loader, PluginYml.FILENAME_SPIGOT);
+            assertThat(generated).isNotNull();
+            assertThat(generated.getDescription()).isEqualTo("desc \"quoted\"\n\u00e4");
+            assertThat(generated).isEqualTo(PluginYml.read(output));
+            assertThat(PluginMetadataLoader.load(loader, PluginYml.FILENAME_SPIGOT)).isEqualTo(generated);
+        }
+    }
+
+    @Test
+    public void testGeneratedPermissionsClass() throws Exception {
+        URL url = getClass().getResource("/TestPlugin.java");
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        lines.replaceAll(line -> {
+            line = line.replace("/* data */", ","
+                    + "version = \"1.0.0\","
+                    + "spigot = @Spigot"
+                    + "("
+                    + "  permissions = {"
+                    + "    @Permission(name = \"test.perm\", children = {@PermissionChild(name = \"test.child\", value = true)}),"
+                    + "    @Permission(name = \"test-perm\"),"
+                    + "    @Permission(name = \"count\"),"
+                    + "    @Permission(name = \"1.*\")"
+                    + "  }"
+                    + ")");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestPlugin", lines);
+        Compilation compilation = _compiler.compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation.generatedSourceFile("TestPlugin$Permissions").isPresent()).isFalse();
+
+        Path output = Files.createTempFile("plugin", "yaml");
+        compilation = _compiler
+                .withProcessors(new AnnotationProcessor())
+                .withOptions("-AmetaGeneratePermissions=true", "-AmetaOutputFileSpigot=" + output.toString())
+                .compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("TestPlugin$Permissions");
+
+        Path classes = writeClasses(compilation);
+        PermissionTable table = new PermissionTable(PluginYml.read(output));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> permissions = loader.loadClass("TestPlugin$Permissions");
+            assertThat(permissions.getField("COUNT").get(null)).isEqualTo(table.size());
+            assertThat(permissions.getField("TEST_PERM").get(null)).isEqualTo("test-perm");
+            assertThat(permissions.getField("TEST_PERM_").get(null)).isEqualTo("test.perm");
+            assertThat(permissions.getField("TEST_CHILD").get(null)).isEqualTo("test.child");
+            assertThat(permissions.getField("COUNT_").get(null)).isEqualTo("count");
+            assertThat(permissions.getField("_1__").get(null)).isEqualTo("1.*");
+            assertThat(permissions.getField("TEST_PERM__ID").get(null)).isEqualTo(table.getId("test.perm"));
+            assertThat(permissions.getField("TEST_CHILD_ID").get(null)).isEqualTo(table.getId("test.child"));
+            Method id = permissions.getMethod("id", String.class);
+            Method name = permissions.getMethod("name", int.class);
+            for (int i = 0; i < table.size(); i++) {
+                assertThat(name.invoke(null, i)).isEqualTo(table.getName(i));
+                assertThat(id.invoke(null, table.getName(i))).isEqualTo(i);
+            }
+            assertThat(id.invoke(null, "Test.Perm")).isEqualTo(table.getId("test.perm"));
+            assertThat(id.invoke(null, "unknown")).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    public void testGeneratedPermissionsClassLarge() throws Exception {
+        StringBuilder permissions = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            permissions.append(i == 0 ? "" : ",").append("@Permission(name = \"test.node").append(i).append("\")");
+        }
+        Compilation compilation = _compiler
+                .withOptions("-AmetaGeneratePermissions=true")
+                .compile(JavaFileObjects.forSourceLines("TestPlugin",
+                        "import eu.hexagonmc.spigot.annotation.plugin.Permission;",
+                        "import eu.hexagonmc.spigot.annotation.plugin.Plugin;",
+                        "import eu.hexagonmc.spigot.annotation.plugin.Plugin.Spigot;",
+                        "import org.bukkit.plugin.java.JavaPlugin;",
+                        "@Plugin(name = \"test\", spigot = @Spigot(permissions = {" + permissions + "}))",
+                        "public class TestPlugin extends JavaPlugin {",
+                        "}"));
+        assertThat(compilation).succeeded();
+
+        Path classes = writeClasses(compilation);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> generated = loader.loadClass("TestPlugin$Permissions");
+            int count = (int) generated.getField("COUNT").get(null);
+            assertThat(count).isAtLeast(10000);
+            Method id = generated.getMethod("id", String.class);
+            Method name = generated.getMethod("name", int.class);
+            for (int i = 0; i < count; i++) {
+                assertThat(id.invoke(null, name.invoke(null, i))).isEqualTo(i);
+            }
+            assertThat(id.invoke(null, "test.node9999")).isEqualTo(generated.getField("TEST_NODE9999_ID").get(null));
+        }
+    }
+
+    @Test
+    public void testBinaryOutput() throws IOException {
+        URL url = getClass().getResource("/TestPlugin.java");
+        List<String> lines = Resources.readLines(url, Charsets.UTF_8);
+        lines.replaceAll(line -> {
+            line = line.replace("/* data */", ", version = \"1.0.0\"");
+            line = line.replace("/* extends */", "extends JavaPlugin");
+            return line;
+        });
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestPlugin", lines);
+        Compilation compilation = _compiler
+                .withOptions("-AmetaBinary=true")
+                .compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedFile(StandardLocation.CLASS_OUTPUT, "", PluginBinary.FILENAME_SPIGOT);
+
+        Path directory = Files.createTempDirectory("meta");
+        Path output = directory.resolve(PluginYml.FILENAME_SPIGOT);
+        compilation = _compiler
+                .withProcessors(new AnnotationProcessor())
+                .withOptions("-AmetaBinary=true", "-AmetaOutputFileSpigot=" + output.toString())
+                .compile(fileObject);
+        assertThat(compilation).succeeded();
+        PluginMetadata meta = PluginBinary.read(directory.resolve(PluginBinary.FILENAME_SPIGOT));
+        assertThat(meta.getVersion()).isEqualTo("1.0.0");
+        assertThat(meta).isEqualTo(PluginYml.read(output));
+    }
+
+    @Test
+    public void testCommandMethods() throws Exception {
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestPlugin",
+                "import eu.hexagonmc.spigot.annotation.plugin.Command;",
+                "import eu.hexagonmc.spigot.annotation.plugin.Plugin;",
+                "import eu.hexagonmc.spigot.annotation.plugin.Plugin.Spigot;",
+                "import org.bukkit.command.CommandSender;",
+                "import org.bukkit.plugin.java.JavaPlugin;",
+                "@Plugin(name = \"test\", version = \"1.0.0\", spigot = @Spigot(commands = @Command(name = \"other\")))",
+                "public class TestPlugin extends JavaPlugin {",
+                "    public static String last;",
+                "    @Command(name = \"first\", aliases = {\"f\", \"other\"}, permission = \"test.first\")",
+                "    public static boolean first(String[] args, CommandSender sender) {",
+                "        last = \"first:\" + args.length + \":\" + sender.getName();",
+                "        return args.length > 0;",
+                "    }",
+                "    @Command(name = \"second\")",
+                "    static void second(String label) {",
+                "        last = \"second:\" + label;",
+                "    }",
+                "    @Command(name = \"third\")",
+                "    public boolean third(org.bukkit.command.Command command) {",
+                "        return true;",
+                "    }",
+                "}");
+        Path directory = Files.createTempDirectory("meta");
+        Path output = directory.resolve(PluginYml.FILENAME_SPIGOT);
+        Compilation compilation = _compiler
+                .withOptions("-AmetaOutputFileSpigot=" + output.toString())
+                .compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("TestPlugin$CommandDispatcher");
+
+        PluginMetadata meta = PluginYml.read(output);
+        assertThat(meta.getCommand("other")).isNotNull();
+        assertThat(meta.getCommand("first").getAliases()).containsExactly("f", "other");
+        assertThat(meta.getCommand("first").getPermission()).isEqualTo("test.first");
+        assertThat(meta.getCommand("second")).isNotNull();
+        assertThat(meta.getCommand("third")).isNotNull();
+
+        Path classes = writeClasses(compilation);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> plugin = loader.loadClass("TestPlugin");
+            Class<?> dispatcherClass = loader.loadClass("TestPlugin$CommandDispatcher");
+            Object dispatcher = dispatcherClass.getConstructor(plugin).newInstance((Object) null);
+            Method dispatch = dispatcherClass.getMethod("dispatch", String.class, CommandSender.class,
+                    org.bukkit.command.Command.class, String.class, String[].class);
+            CommandSender sender = (CommandSender) Proxy.newProxyInstance(loader, new Class<?>[] {CommandSender.class},
+                    (proxy, method, args) -> method.getName().equals("getName") ? "sender" : null);
+
+            assertThat(dispatch.invoke(dispatcher, "first", sender, null, "first", new String[] {"a"})).isEqualTo(true);
+            assertThat(plugin.getField("last").get(null)).isEqualTo("first:1:sender");
+            assertThat(dispatch.invoke(dispatcher, "f", sender, null, "f", new String[0])).isEqualTo(false);
+            assertThat(plugin.getField("last").get(null)).isEqualTo("first:0:sender");
+            assertThat(dispatch.invoke(dispatcher, "second", sender, null, "label", new String[0])).isEqualTo(true);
+            assertThat(plugin.getField("last").get(null)).isEqualTo("second:label");
+            // The alias colliding with a command name is not dispatched
+            assertThat(dispatch.invoke(dispatcher, "other", sender, null, "other", new String[0])).isEqualTo(false);
+            assertThat(dispatch.invoke(dispatcher, "unknown", sender, null, "unknown", new String[0])).isEqualTo(false);
+        }
+    }
+
+    @Test
+    public void testGeneratedCompletionsClass() throws Exception {
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestPlugin",
+                "import eu.hexagonmc.spigot.annotation.plugin.Command;",
+                "import eu.hexagonmc.spigot.annotation.plugin.Plugin;",
+                "import eu.hexagonmc.spigot.annotation.plugin.Plugin.Spigot;",
+                "import org.bukkit.plugin.java.JavaPlugin;",
+                "@Plugin(name = \"test\", version = \"1.0.0\", spigot = @Spigot(commands = {",
+                "    @Command(name = \"warp\", aliases = {\"w\", \"spawn\"}, subcommands = {\"set\", \"list\", \"delete\"}),",
+                "    @Command(name = \"spawn\")}))",
+                "public class TestPlugin extends JavaPlugin {",
+                "    @Command(name = \"home\", subcommands = {\"set\", \"Sethome\"})",
+                "    public void home() {",
+                "    }",
+                "}");
+        Compilation compilation = _compiler
+                .withOptions("-AmetaGenerateCompletions=true")
+                .compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("TestPlugin$Completions");
+
+        Path classes = writeClasses(compilation);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> completions = loader.loadClass("TestPlugin$Completions");
+            CompletionTrie commands = (CompletionTrie) completions.getField("COMMANDS").get(null);
+            assertThat(commands.getWords()).containsExactly("home", "spawn", "w", "warp").inOrder();
+            Method subcommands = completions.getMethod("subcommands", String.class);
+            assertThat(((CompletionTrie) subcommands.invoke(null, "warp")).complete("")).containsExactly("delete", "list", "set").inOrder();
+            assertThat(((CompletionTrie) subcommands.invoke(null, "w")).complete("l")).containsExactly("list");
+            assertThat(((CompletionTrie) subcommands.invoke(null, "home")).complete("se")).containsExactly("set", "Sethome").inOrder();
+            // The name of spawn takes precedence over the alias of warp
+            assertThat(subcommands.invoke(null, "spawn")).isSameAs(CompletionTrie.EMPTY);
+        }
+    }
+
+    @Test
+    public void testGeneratedCompletionsClassLarge() throws Exception {
+        StringBuilder commands = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            commands.append("@Command(name = \"cmd").append(i).append("\", aliases = \"c").append(i).append("\"),");
+        }
+        StringBuilder subcommands = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            subcommands.append(i == 0 ? "" : ",").append("\"sub").append(i).append("\"");
+        }
+        Compilation compilation = _compiler
+                .withOptions("-AmetaGenerateCompletions=true")
+                .compile(JavaFileObjects.forSourceLines("TestPlugin",
+                        "import eu.hexagonmc.spigot.annotation.plugin.Command;",
+                        "import eu.hexagonmc.spigot.annotation.plugin.Plugin;",
+                        "import eu.hexagonmc.spigot.annotation.plugin.Plugin.Spigot;",
+                        "import org.bukkit.plugin.java.JavaPlugin;",
+                        "@Plugin(name = \"test\", spigot = @Spigot(commands = {" + commands
+                                + "@Command(name = \"big\", subcommands = {" + subcommands + "})}))",
+                        "public class TestPlugin extends JavaPlugin {",
+                        "}"));
+        assertThat(compilation).succeeded();
+
+        Path classes = writeClasses(compilation);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> completions = loader.loadClass("TestPlugin$Completions");
+            CompletionTrie trie = (CompletionTrie) completions.getField("COMMANDS").get(null);
+            assertThat(trie.size()).isEqualTo(10001);
+            assertThat(trie.complete("cmd4999")).containsExactly("cmd4999");
+            Method method = completions.getMethod("subcommands", String.class);
+            assertThat(((CompletionTrie) method.invoke(null, "big")).size()).isEqualTo(2000);
+            assertThat(((CompletionTrie) method.invoke(null, "big")).complete("sub199")).containsExactly("sub199", "sub1990", "sub1991",
+                    "sub1992", "sub1993", "sub1994", "sub1995", "sub1996", "sub1997", "sub1998", "sub1999").inOrder();
+        }
+    }
+
+    @Test
+    public void testCommandMethodsInvalid() {
+        String[][] methods = {
+            {"@Command(name = \"test\") private void test() {}", "must not be private"},
+            {"@Command(name = \"test\") public int test() { return 0; }", "must return boolean or void"},
+            {"@Command(name = \"test\") public void test(Object value) {}", "parameters must be distinct"},
+            {"@Command(name = \"test\") public void test(String[] first, String[] second) {}", "parameters must be distinct"},
+            {"@Command(name = \"test\") public void test() throws Exception {}", "must not throw checked exceptions"},
+            {"@Command(name = \"test\") public void test() {} @Command(name = \"test\") public void other() {}", "Duplicate command 'test'"}};
+        for (String[] method : methods) {
+            Compilation compilation = _compiler.withProcessors(new AnnotationProcessor()).compile(JavaFileObjects.forSourceLines("TestPlugin",
+                    "import eu.hexagonmc.spigot.annotation.plugin.Command;",
+                    "import eu.hexagonmc.spigot.annotation.plugin.Plugin;",
+                    "import org.bukkit.plugin.java.JavaPlugin;",
+                    "@Plugin(name = \"test\")",
+                    "public class TestPlugin extends JavaPlugin {",
+                    "    " + method[0],
+                    "}"));
+            assertThat(compilation).failed();
+            assertThat(compilation).hadErrorContaining(method[1]);
+        }
+    }
+
+    @Test
+    public void testCommandMethodOutsidePlugin() {
+        Compilation compilation = _compiler.compile(JavaFileObjects.forSourceLines("TestClass",
+                "import eu.hexagonmc.spigot.annotation.plugin.Command;",
+                "public class TestClass {",
+                "    @Command(name = \"test\") public void test() {}",
+                "}"));
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorContaining("not declared in a class annotated with @Plugin");
+    }
+
+    @Test
+    public void testEventRegistration() throws Exception {
+        JavaFileObject fileObject = JavaFileObjects.forSourceLines("TestListener",
+                "import eu.hexagonmc.spigot.annotation.event.EventPriority;",
+                "import eu.hexagonmc.spigot.annotation.event.Listen;",
+                "import org.bukkit.event.Event;",
+                "import org.bukkit.event.HandlerList;",
+                "import org.bukkit.event.Listener;",
+                "public class TestListener implements Listener {",
+                "    public static String last;",
+                "    @Listen(priority = EventPriority.HIGH, ignoreCancelled = true)",
+                "    public void handle(TestEvent event) {",
+                "        last = \"handle\";",
+                "    }",
+                "    @Listen",
+                "    static void fail(OtherEvent event) {",
+                "        throw new IllegalStateException();",
+                "    }",
+                "    public static class TestEvent extends Event {",
+                "        public HandlerList getHandlers() { return null; }",
+                "    }",
+                "    public static class OtherEvent extends Event {",
+                "        public HandlerList getHandlers() { return null; }",
+                "    }",
+                "}");
+        Compilation compilation = _compiler.compile(fileObject);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("TestListener$EventRegistration");
+
+        Path classes = writeClasses(compilation);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> listenerClass = loader.loadClass("TestListener");
+            Listener listener = (Listener) listenerClass.newInstance();
+            List<Object[]> registered = new ArrayList<>();
+            PluginManager manager = (PluginManager) Proxy.newProxyInstance(loader, new Class<?>[] {PluginManager.class},
+                    (proxy, method, args) -> registered.add(args));
+            Server server = (Server) Proxy.newProxyInstance(loader, new Class<?>[] {Server.class},
+                    (proxy, method, args) -> method.getName().equals("getPluginManager") ? manager : null);
+            Plugin plugin = (Plugin) Proxy.newProxyInstance(loader, new Class<?>[] {Plugin.class},
+                    (proxy, method, args) -> method.getName().equals("getServer") ? server : null);
+            loader.loadClass("TestListener$EventRegistration").getMethod("register", listenerClass, Plugin.class).invoke(null, listener, plugin);
+
+            assertThat(registered).hasSize(2);
+            Object[] handle = registered.get(0);
+            assertThat(handle[0]).isEqualTo(loader.loadClass("TestListener$TestEvent"));
+            assertThat(handle[1]).isSameAs(listener);
+            assertThat(handle[2]).isEqualTo(EventPriority.HIGH);
+            assertThat(handle[4]).isSameAs(plugin);
+            assertThat(handle[5]).isEqualTo(true);
+            Event event = (Event) loader.loadClass("TestListener$TestEvent").newInstance();
+            Event other = (Event) loader.loadClass("TestListener$OtherEvent").newInstance();
+            // Events of other types are ignored
+            ((EventExecutor) handle[3]).execute(listener, other);
+            assertThat(listenerClass.getField("last").get(null)).isNull();
+            ((EventExecutor) handle[3]).execute(listener, event);
+            assertThat(listenerClass.getField("last").get(null)).isEqualTo("handle");
+
+            Object[] fail = registered.get(1);
+            assertThat(fail[2]).isEqualTo(EventPriority.NORMAL);
+            assertThat(fail[5]).isEqualTo(false);
+            try {
+                ((EventExecutor) fail[3]).execute(listener, other);
+                fail();
+            } catch (EventException e) {
+                assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+            }
+        }
+    }
+
+    @Test
+    public void testEventRegistrationInvalid() {
+        String[][] listeners = {
+            {"implements Listener { @Listen private void handle(TestEvent event) {}", "must not be private"},
+            {"implements Listener { @Listen public void handle() {}", "exactly one parameter"},
+            {"implements Listener { @Listen public void handle(String event) {}", "exactly one parameter"},
+            {"implements Listener { @Listen public boolean handle(TestEvent event) { return true; }", "must return void"},
+            {"{ @Listen public void handle(TestEvent event) {}", "must implement org.bukkit.event.Listener"}};
+        for (String[] listener : listeners) {
+            Compilation compilation = _compiler.withProcessors(new AnnotationProcessor()).compile(JavaFileObjects.forSourceLines("TestListener",
+                    "import eu.hexagonmc.spigot.annotation.event.Listen;",
+                    "import org.bukkit.event.Event;",
+                    "import org.bukkit.event.HandlerList;",
+                    "import org.bukkit.event.Listener;",
+                    "public class TestListener " + listener[0],
+                    "    public static class TestEvent extends Event {",
+                    "        public HandlerList getHandlers() { return null; }",
+                    "    }",
+                    "}"));
+            assertThat(compilation).failed();
+            assertThat(compilation).hadErrorContaining(listener[1]);
+        }
+    }
+
+    /**
+     * Copies the classes compiled by the given compilation into a new
+     * directory so they can be loaded.
+     */
+    private static Path writeClasses(Compilation compilation) throws IOException {
+        Path classes = Files.createTempDirectory("classes");
+        for (JavaFileObject file : compilation.generatedFiles()) {
+            String path = file.toUri().getPath();
+            if (path.startsWith("/CLASS_OUTPUT/") && path.endsWith(".class")) {
+                try (InputStream in = file.openInputStream()) {
+                    Files.copy(in, classes.resolve(path.substring("/CLASS_OUTPUT/".length())));
+                }
+            }
+        }
+        return classes;
+    }
 }
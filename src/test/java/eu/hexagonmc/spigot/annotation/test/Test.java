@@ -22,11 +22,22 @@
  */
 package eu.hexagonmc.spigot.annotation.test;
 
+import eu.hexagonmc.spigot.annotation.test.meta.CompletionTrieTest;
 import eu.hexagonmc.spigot.annotation.test.meta.DependencyTypeTest;
+import eu.hexagonmc.spigot.annotation.test.meta.MetadataInternerTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PermissionTableTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PluginBinaryTest;
 import eu.hexagonmc.spigot.annotation.test.meta.PluginCommandTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PluginDependencyGraphTest;
 import eu.hexagonmc.spigot.annotation.test.meta.PluginDependencyTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PluginMetadataDiffTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PluginMetadataLoaderTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PluginMetadataOverlayTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PluginMetadataRegistryTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PluginMetadataSnapshotTest;
 import eu.hexagonmc.spigot.annotation.test.meta.PluginMetadataTest;
 import eu.hexagonmc.spigot.annotation.test.meta.PluginPermissionTest;
+import eu.hexagonmc.spigot.annotation.test.meta.PluginScannerTest;
 import eu.hexagonmc.spigot.annotation.test.meta.PluginYmlTest;
 import org.junit.runner.JUnitCore;
 
@@ -40,6 +51,17 @@ public class Test {
                 PluginCommandTest.class,
                 PluginDependencyTest.class,
                 PluginYmlTest.class,
+                PluginMetadataLoaderTest.class,
+                PluginBinaryTest.class,
+                PluginScannerTest.class,
+                PluginDependencyGraphTest.class,
+                PermissionTableTest.class,
+                PluginMetadataSnapshotTest.class,
+                PluginMetadataOverlayTest.class,
+                PluginMetadataDiffTest.class,
+                PluginMetadataRegistryTest.class,
+                MetadataInternerTest.class,
+                CompletionTrieTest.class,
                 AnnotationProcessorTest.class);
     }
 
@@ -0,0 +1,104 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import eu.hexagonmc.spigot.annotation.meta.CompletionTrie;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class CompletionTrieTest {
+
+    @Test
+    public void testComplete() {
+        CompletionTrie trie = CompletionTrie.of("spawn", "sethome", "set", "Setwarp", "home", "set", "s");
+
+        assertThat(trie.size()).isEqualTo(6);
+        assertThat(trie.getWords()).containsExactly("home", "s", "set", "sethome", "Setwarp", "spawn").inOrder();
+        assertThat(trie.complete("")).isEqualTo(trie.getWords());
+        assertThat(trie.complete("s")).containsExactly("s", "set", "sethome", "Setwarp", "spawn").inOrder();
+        assertThat(trie.complete("SET")).containsExactly("set", "sethome", "Setwarp").inOrder();
+        assertThat(trie.complete("setw")).containsExactly("Setwarp");
+        assertThat(trie.complete("sethome")).containsExactly("sethome");
+        assertThat(trie.complete("sethomes")).isEmpty();
+        assertThat(trie.complete("x")).isEmpty();
+        assertThat(trie.count("se")).isEqualTo(3);
+        assertThat(trie.count("x")).isEqualTo(0);
+        assertThat(trie.complete("h", new ArrayList<>())).containsExactly("home");
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(CompletionTrie.of()).isSameAs(CompletionTrie.EMPTY);
+        assertThat(CompletionTrie.EMPTY.size()).isEqualTo(0);
+        assertThat(CompletionTrie.EMPTY.complete("")).isEmpty();
+        assertThat(CompletionTrie.EMPTY.complete("a")).isEmpty();
+    }
+
+    @Test
+    public void testCommands() {
+        PluginMetadata meta = new PluginMetadata("test");
+        PluginCommand command = new PluginCommand("teleport");
+        command.addAlias("tp");
+        meta.addCommand(command);
+        meta.addCommand(new PluginCommand("tell"));
+
+        CompletionTrie trie = CompletionTrie.of(meta);
+        assertThat(trie.getWords()).containsExactly("teleport", "tell", "tp").inOrder();
+        assertThat(trie.complete("te")).containsExactly("teleport", "tell").inOrder();
+    }
+
+    @Test
+    public void testMatchesFilter() {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            words.add(word(random, 1 + random.nextInt(6)));
+        }
+        CompletionTrie trie = CompletionTrie.of(words);
+        for (int i = 0; i < 1000; i++) {
+            String prefix = word(random, random.nextInt(4));
+            List<String> expected = trie.getWords().stream()
+                    .filter(word -> word.toLowerCase(Locale.ROOT).startsWith(prefix.toLowerCase(Locale.ROOT)))
+                    .collect(Collectors.toList());
+            assertThat(trie.complete(prefix)).containsExactlyElementsIn(expected).inOrder();
+        }
+    }
+
+    private static String word(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = (char) ('a' + random.nextInt(4));
+            builder.append(random.nextBoolean() ? c : Character.toUpperCase(c));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Interner;
+import eu.hexagonmc.spigot.annotation.meta.MetadataInterner;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+public class MetadataInternerTest {
+
+    private static final String YAML = ""
+            + "name: test\n"
+            + "author: Zartec\n"
+            + "depend: [Vault]\n"
+            + "commands:\n"
+            + "  test:\n"
+            + "    usage: /<command>\n"
+            + "permissions:\n"
+            + "  test.admin:\n"
+            + "    children:\n"
+            + "      test.user: true\n";
+
+    @After
+    public void cleanup() {
+        MetadataInterner.setInterner(MetadataInterner.NONE);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUtilityClass() {
+        new MetadataInterner();
+    }
+
+    @Test
+    public void testNone() {
+        assertThat(MetadataInterner.getInterner()).isSameAs(MetadataInterner.NONE);
+        String value = new String("test");
+        assertThat(MetadataInterner.intern(value)).isSameAs(value);
+        assertThat(MetadataInterner.intern(null)).isNull();
+        PluginMetadata first = PluginYml.read(new StringReader(YAML));
+        PluginMetadata second = PluginYml.read(new StringReader(YAML));
+        assertThat(first.getAuthors().iterator().next()).isNotSameAs(second.getAuthors().iterator().next());
+    }
+
+    @Test
+    public void testWeak() {
+        MetadataInterner.setInterner(MetadataInterner.weak());
+        PluginMetadata first = PluginYml.read(new StringReader(YAML));
+        PluginMetadata second = PluginYml.read(new StringReader(YAML));
+        assertThat(first).isEqualTo(second);
+        assertThat(first.getName()).isSameAs(second.getName());
+        assertThat(first.getAuthors().iterator().next()).isSameAs(second.getAuthors().iterator().next());
+        assertThat(first.getDependency("Vault").getName()).isSameAs(second.getDependency("Vault").getName());
+        assertThat(first.getCommand("test").getUsage()).isSameAs(second.getCommand("test").getUsage());
+        PluginPermission firstPermission = first.getPermission("test.admin");
+        PluginPermission secondPermission = second.getPermission("test.admin");
+        assertThat(firstPermission.getChilds().keySet().iterator().next())
+                .isSameAs(secondPermission.getChilds().keySet().iterator().next());
+    }
+
+    @Test
+    public void testSetters() {
+        MetadataInterner.setInterner(MetadataInterner.weak());
+        PluginCommand first = new PluginCommand(new String("test"));
+        first.addAlias(new String("alias"));
+        first.setPermission(new String("test.perm"));
+        PluginCommand second = new PluginCommand(new String("test"));
+        second.addAlias(new String("alias"));
+        second.setPermission(new String("test.perm"));
+        assertThat(first.getName()).isSameAs(second.getName());
+        assertThat(first.getAliases().iterator().next()).isSameAs(second.getAliases().iterator().next());
+        assertThat(first.getPermission()).isSameAs(second.getPermission());
+    }
+
+    @Test
+    public void testBounded() {
+        Interner<String> interner = MetadataInterner.bounded(3);
+        String value = new String("test");
+        assertThat(interner.intern(value)).isSameAs(value);
+        assertThat(interner.intern(new String("test"))).isSameAs(value);
+        for (int i = 0; i < 100; i++) {
+            interner.intern("value" + i);
+        }
+        assertThat(interner.intern(new String("test"))).isEqualTo("test");
+        assertThat(MetadataInterner.bounded(1).intern(value)).isSameAs(value);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBoundedInvalidSize() {
+        MetadataInterner.bounded(0);
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import eu.hexagonmc.spigot.annotation.meta.PermissionTable;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class PermissionTableTest {
+
+    @Test
+    public void testResolve() {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.addPermission(permission("test.*", "test.admin", true, "test.user", true));
+        meta.addPermission(permission("test.admin", "test.kick", true, "test.guest", false));
+        meta.addPermission(permission("test.user", "test.chat", true));
+        PermissionTable table = new PermissionTable(meta);
+
+        assertThat(table.size()).isEqualTo(6);
+        assertThat(table.resolve("test.*", "test.*")).isTrue();
+        assertThat(table.resolve("test.*", "test.kick")).isTrue();
+        assertThat(table.resolve("test.*", "test.chat")).isTrue();
+        assertThat(table.resolve("test.*", "test.guest")).isFalse();
+        assertThat(table.resolve("test.user", "test.kick")).isNull();
+        assertThat(table.resolve("test.kick", "test.kick")).isTrue();
+        assertThat(table.resolve("test.kick", "test.chat")).isNull();
+        assertThat(table.resolve("unknown", "unknown")).isTrue();
+        assertThat(table.resolve("unknown", "test.kick")).isNull();
+        assertThat(table.getGranted("test.admin")).containsExactly("test.admin", "test.kick").inOrder();
+        assertThat(table.getDenied("test.admin")).containsExactly("test.guest");
+        assertThat(table.getGranted("test.chat")).containsExactly("test.chat");
+        assertThat(table.getDenied("test.chat")).isEmpty();
+        assertThat(table.getCycles()).isEmpty();
+
+        int holder = table.getId("test.*");
+        assertThat(table.getName(holder)).isEqualTo("test.*");
+        assertThat(table.resolve(holder, table.getId("test.kick"))).isTrue();
+        assertThat(table.getId("unknown")).isEqualTo(-1);
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.addPermission(permission("Test.Admin", "test.KICK", true, "Test.Guest", false));
+        meta.addPermission(permission("test.kick", "test.ban", true));
+        PermissionTable table = new PermissionTable(meta);
+        assertThat(table.size()).isEqualTo(4);
+        assertThat(table.getName(table.getId("TEST.ADMIN"))).isEqualTo("test.admin");
+        assertThat(table.getId("Test.Kick")).isEqualTo(table.getId("test.kick"));
+        assertThat(table.resolve("test.admin", "Test.Ban")).isTrue();
+        assertThat(table.resolve("TEST.ADMIN", "test.guest")).isFalse();
+        assertThat(table.resolve("Unknown", "UNKNOWN")).isTrue();
+        assertThat(table.getGranted("Test.Admin")).containsExactly("test.admin", "test.ban", "test.kick").inOrder();
+        assertThat(table.getDenied("Test.Admin")).containsExactly("test.guest");
+        assertThat(table.getGranted("Unknown")).containsExactly("unknown");
+    }
+
+    @Test
+    public void testNegation() {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.addPermission(permission("a", "b", false));
+        meta.addPermission(permission("b", "c", true, "d", false));
+        PermissionTable table = new PermissionTable(meta);
+        assertThat(table.resolve("a", "b")).isFalse();
+        assertThat(table.resolve("a", "c")).isFalse();
+        assertThat(table.resolve("a", "d")).isTrue();
+    }
+
+    @Test
+    public void testShortestPathAndTies() {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.addPermission(permission("root", "a", true, "b", true, "x", false));
+        meta.addPermission(permission("a", "x", true, "y", true));
+        meta.addPermission(permission("b", "y", false));
+        PermissionTable table = new PermissionTable(meta);
+        assertThat(table.resolve("root", "x")).isFalse();
+        assertThat(table.resolve("root", "y")).isFalse();
+        assertThat(table.resolve("a", "y")).isTrue();
+    }
+
+    @Test
+    public void testCycles() {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.addPermission(permission("a", "b", true));
+        meta.addPermission(permission("b", "c", true));
+        meta.addPermission(permission("c", "a", false, "d", true));
+        meta.addPermission(permission("e", "e", true));
+        PermissionTable table = new PermissionTable(meta);
+        assertThat(table.getCycles()).containsExactly(Arrays.asList("a", "b", "c"), Arrays.asList("e")).inOrder();
+        assertThat(table.resolve("a", "a")).isTrue();
+        assertThat(table.resolve("a", "d")).isTrue();
+        assertThat(table.resolve("b", "a")).isFalse();
+        assertThat(table.resolve("e", "e")).isTrue();
+    }
+
+    @Test
+    public void testMerge() {
+        PluginMetadata first = new PluginMetadata("first");
+        first.addPermission(permission("shared", "a", true, "b", true));
+        PluginMetadata second = new PluginMetadata("second");
+        second.addPermission(permission("shared", "b", false, "c", true));
+        PermissionTable table = new PermissionTable(Arrays.asList(first, second));
+        assertThat(table.getGranted("shared")).containsExactly("a", "c", "shared").inOrder();
+        assertThat(table.getDenied("shared")).containsExactly("b");
+    }
+
+    private static PluginPermission permission(String name, Object... children) {
+        PluginPermission permission = new PluginPermission(name);
+        for (int i = 0; i < children.length; i += 2) {
+            permission.addChild((String) children[i], (Boolean) children[i + 1]);
+        }
+        return permission;
+    }
+}
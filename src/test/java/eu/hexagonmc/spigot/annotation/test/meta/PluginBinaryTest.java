@@ -0,0 +1,250 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import eu.hexagonmc.spigot.annotation.meta.DependencyType;
+import eu.hexagonmc.spigot.annotation.meta.LoadOn;
+import eu.hexagonmc.spigot.annotation.meta.PermissionDefault;
+import eu.hexagonmc.spigot.annotation.meta.PluginBinary;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginDependency;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class PluginBinaryTest {
+
+    private PluginMetadata _meta;
+
+    @Before
+    public void init() {
+        _meta = new PluginMetadata("test");
+        _meta.setMain(getClass().getName());
+        _meta.setLoadOn(LoadOn.STARTUP);
+        _meta.setDatabase(false);
+        _meta.setPrefix("test");
+        _meta.setDescription("desc äöü 😀");
+        _meta.setVersion("1.0.0");
+        _meta.setWebsite("https://hexagonmc.eu");
+        _meta.addAuthor("Zartec");
+        _meta.addAuthor("ghac");
+        PluginCommand cmd = new PluginCommand("test");
+        cmd.setDescription("desc");
+        cmd.addAlias("test1");
+        cmd.addAlias("test2");
+        cmd.setPermission("test.perm");
+        cmd.setUsage("usage");
+        _meta.addCommand(cmd);
+        PluginDependency dep;
+        dep = new PluginDependency("test1");
+        dep.setType(DependencyType.DEPEND);
+        _meta.addDependency(dep);
+        dep = new PluginDependency("test2");
+        dep.setType(DependencyType.SOFTDEPEND);
+        _meta.addDependency(dep);
+        dep = new PluginDependency("test3");
+        _meta.addDependency(dep);
+        PluginPermission perm = new PluginPermission("test.perm");
+        perm.setDescription("desc");
+        perm.setDefault(PermissionDefault.NO_OP);
+        perm.addChild("test.child", true);
+        perm.addChild("test.other", false);
+        _meta.addPermission(perm);
+        _meta.addPermission(new PluginPermission("test.child"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUtilityClass() {
+        new PluginBinary();
+    }
+
+    @Test
+    public void testRoundTripSimple() throws IOException {
+        PluginMetadata meta = new PluginMetadata("test");
+        assertThat(read(write(meta))).isEqualTo(meta);
+    }
+
+    @Test
+    public void testRoundTripFull() throws IOException {
+        assertThat(read(write(_meta))).isEqualTo(_meta);
+    }
+
+    @Test
+    public void testRoundTripLarge() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            PluginPermission perm = new PluginPermission("test.perm" + i);
+            perm.setDefault(PermissionDefault.OP);
+            perm.addChild("test.child", true);
+            _meta.addPermission(perm);
+        }
+        byte[] data = write(_meta);
+        assertThat(read(data)).isEqualTo(_meta);
+    }
+
+    @Test
+    public void testStringTable() throws IOException {
+        PluginMetadata meta = new PluginMetadata("test");
+        byte[] small = write(meta);
+        meta.setDescription("test");
+        meta.setPrefix("test");
+        meta.setWebsite("test");
+        // Repeated strings are only referenced, references take as much space
+        // as null values
+        assertThat(write(meta).length).isEqualTo(small.length);
+    }
+
+    @Test
+    public void testStableOrder() throws IOException {
+        PluginMetadata first = new PluginMetadata("test");
+        PluginMetadata second = new PluginMetadata("test");
+        // The removed entries grow the hash tables of the second metadata,
+        // which changes the iteration order
+        for (int i = 0; i < 1000; i++) {
+            second.addCommand(new PluginCommand("removed" + i));
+            second.addPermission(new PluginPermission("removed" + i));
+        }
+        for (int i = 0; i < 50; i++) {
+            first.addCommand(new PluginCommand(i + ".cmd"));
+            second.addCommand(new PluginCommand((49 - i) + ".cmd"));
+            PluginPermission perm = new PluginPermission(i + ".perm");
+            perm.addChild(i + ".child", true);
+            perm.addChild(i + ".other", false);
+            first.addPermission(perm);
+            perm = new PluginPermission((49 - i) + ".perm");
+            perm.addChild((49 - i) + ".other", false);
+            perm.addChild((49 - i) + ".child", true);
+            second.addPermission(perm);
+        }
+        for (int i = 0; i < 1000; i++) {
+            second.removeCommand(new PluginCommand("removed" + i));
+            second.removePermission(new PluginPermission("removed" + i));
+        }
+        assertThat(second).isEqualTo(first);
+        assertThat(write(second)).isEqualTo(write(first));
+    }
+
+    @Test
+    public void testEnumNames() throws IOException {
+        // Enum constants are stored by name so reordering them does not
+        // change the meaning of written files
+        String data = new String(write(_meta), StandardCharsets.UTF_8);
+        assertThat(data).contains(LoadOn.STARTUP.name());
+        assertThat(data).contains(DependencyType.SOFTDEPEND.name());
+        assertThat(data).contains(PermissionDefault.NO_OP.name());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTrailingBytes() throws IOException {
+        byte[] data = Arrays.copyOf(write(_meta), write(_meta).length + 1);
+        int length = ByteBuffer.wrap(data, 5, 4).getInt() + 1;
+        ByteBuffer.wrap(data, 5, 4).putInt(length);
+        read(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidMagic() throws IOException {
+        byte[] data = write(_meta);
+        data[0] = 0;
+        read(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidVersion() throws IOException {
+        byte[] data = write(_meta);
+        data[4] = (byte) (PluginBinary.VERSION + 1);
+        read(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        byte[] data = write(_meta);
+        read(Arrays.copyOf(data, data.length - 10));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativeCount() throws IOException {
+        byte[] data = write(_meta);
+        // The string count at the start of the payload as varint -1
+        data[9] = (byte) 0xff;
+        data[10] = (byte) 0xff;
+        data[11] = (byte) 0xff;
+        data[12] = (byte) 0xff;
+        data[13] = 0x0f;
+        read(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOversizedCount() throws IOException {
+        byte[] data = write(_meta);
+        // The string count at the start of the payload as varint 2^31 - 1
+        data[9] = (byte) 0xff;
+        data[10] = (byte) 0xff;
+        data[11] = (byte) 0xff;
+        data[12] = (byte) 0xff;
+        data[13] = 0x07;
+        read(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOversizedLength() throws IOException {
+        byte[] data = write(_meta);
+        data[5] = 0x7f;
+        data[6] = (byte) 0xff;
+        data[7] = (byte) 0xff;
+        data[8] = (byte) 0xff;
+        read(data);
+    }
+
+    @Test
+    public void testFileIo() throws IOException {
+        Path file = Files.createTempFile("plugin", "bin");
+        try {
+            PluginBinary.write(file, _meta);
+            assertThat(PluginBinary.read(file)).isEqualTo(_meta);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static byte[] write(PluginMetadata meta) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PluginBinary.write(out, meta);
+        return out.toByteArray();
+    }
+
+    private static PluginMetadata read(byte[] data) throws IOException {
+        return PluginBinary.read(new ByteArrayInputStream(data));
+    }
+}
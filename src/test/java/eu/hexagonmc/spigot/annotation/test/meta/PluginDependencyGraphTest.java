@@ -0,0 +1,164 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import eu.hexagonmc.spigot.annotation.meta.DependencyType;
+import eu.hexagonmc.spigot.annotation.meta.PluginDependency;
+import eu.hexagonmc.spigot.annotation.meta.PluginDependencyGraph;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PluginDependencyGraphTest {
+
+    @Test
+    public void testLoadOrder() {
+        PluginDependencyGraph graph = new PluginDependencyGraph(Arrays.asList(
+                plugin("d", "b", DependencyType.DEPEND, "c", DependencyType.SOFTDEPEND),
+                plugin("c", "a", DependencyType.DEPEND),
+                plugin("b", "a", DependencyType.DEPEND),
+                plugin("a"),
+                plugin("e", "a", DependencyType.LOADBEFORE)));
+        assertThat(names(graph.getLoadOrder())).containsExactly("e", "a", "b", "c", "d").inOrder();
+        assertThat(graph.getWaves()).hasSize(4);
+        assertThat(names(graph.getWaves().get(0))).containsExactly("e");
+        assertThat(names(graph.getWaves().get(1))).containsExactly("a");
+        assertThat(names(graph.getWaves().get(2))).containsExactly("b", "c").inOrder();
+        assertThat(names(graph.getWaves().get(3))).containsExactly("d");
+        assertThat(graph.getWave("d")).isEqualTo(3);
+        assertThat(graph.getLoadedBefore("d")).containsExactly("b", "c").inOrder();
+        assertThat(graph.getLoadedAfter("a")).containsExactly("b", "c").inOrder();
+        assertThat(graph.getUnloadable()).isEmpty();
+        assertThat(graph.getCycles()).isEmpty();
+    }
+
+    @Test
+    public void testMissing() {
+        PluginDependencyGraph graph = new PluginDependencyGraph(Arrays.asList(
+                plugin("a", "missing", DependencyType.DEPEND),
+                plugin("b", "a", DependencyType.DEPEND),
+                plugin("c", "a", DependencyType.SOFTDEPEND, "other", DependencyType.SOFTDEPEND),
+                plugin("d", "other", DependencyType.LOADBEFORE)));
+        assertThat(graph.getMissing()).containsExactly("a", Collections.singleton("missing"));
+        assertThat(graph.getUnloadable()).containsExactly("a", "b");
+        assertThat(names(graph.getLoadOrder())).containsExactly("c", "d").inOrder();
+        assertThat(graph.getWaves()).hasSize(1);
+        assertThat(graph.isLoadable("a")).isFalse();
+        assertThat(graph.isLoadable("c")).isTrue();
+        assertThat(graph.isLoadable("unknown")).isFalse();
+    }
+
+    @Test
+    public void testNullType() {
+        PluginDependencyGraph graph = new PluginDependencyGraph(Arrays.asList(
+                plugin("a", "missing", null),
+                plugin("b", "c", null),
+                plugin("c")));
+        assertThat(graph.getUnloadable()).containsExactly("a");
+        assertThat(names(graph.getLoadOrder())).containsExactly("c", "b").inOrder();
+    }
+
+    @Test
+    public void testCycles() {
+        PluginDependencyGraph graph = new PluginDependencyGraph(Arrays.asList(
+                plugin("a", "b", DependencyType.DEPEND),
+                plugin("b", "c", DependencyType.SOFTDEPEND),
+                plugin("c", "a", DependencyType.DEPEND),
+                plugin("d", "d", DependencyType.SOFTDEPEND),
+                plugin("e", "a", DependencyType.DEPEND),
+                plugin("f", "a", DependencyType.SOFTDEPEND),
+                plugin("g")));
+        assertThat(graph.getCycles()).containsExactly(Arrays.asList("a", "b", "c"), Collections.singletonList("d")).inOrder();
+        assertThat(graph.getUnloadable()).isEmpty();
+        assertThat(names(graph.getLoadOrder())).containsExactly("b", "a", "c", "d", "e", "f", "g").inOrder();
+        assertThat(graph.getLoadedBefore("b")).isEmpty();
+        assertThat(graph.getWave("c")).isEqualTo(2);
+    }
+
+    @Test
+    public void testRequiredCycles() {
+        PluginDependencyGraph graph = new PluginDependencyGraph(Arrays.asList(
+                plugin("a", "b", DependencyType.DEPEND),
+                plugin("b", "a", DependencyType.DEPEND),
+                plugin("c", "a", DependencyType.DEPEND),
+                plugin("d", "a", DependencyType.SOFTDEPEND),
+                plugin("e", "f", DependencyType.LOADBEFORE),
+                plugin("f", "e", DependencyType.LOADBEFORE)));
+        assertThat(graph.getCycles()).containsExactly(Arrays.asList("a", "b"), Arrays.asList("e", "f")).inOrder();
+        assertThat(graph.getUnloadable()).containsExactly("a", "b", "c");
+        assertThat(names(graph.getLoadOrder())).containsExactly("d", "e", "f").inOrder();
+        assertThat(graph.getWaves()).hasSize(1);
+    }
+
+    @Test
+    public void testSoftCycle() {
+        PluginDependencyGraph graph = new PluginDependencyGraph(Arrays.asList(
+                plugin("b", "a", DependencyType.SOFTDEPEND),
+                plugin("a", "b", DependencyType.SOFTDEPEND)));
+        assertThat(graph.getCycles()).containsExactly(Arrays.asList("a", "b"));
+        assertThat(graph.getUnloadable()).isEmpty();
+        assertThat(names(graph.getLoadOrder())).containsExactly("a", "b").inOrder();
+        assertThat(graph.getWaves()).hasSize(1);
+        assertThat(graph.getWave("b")).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicate() {
+        new PluginDependencyGraph(Arrays.asList(plugin("a"), plugin("a")));
+    }
+
+    @Test
+    public void testLargeChain() {
+        List<PluginMetadata> plugins = new ArrayList<>();
+        plugins.add(plugin("p00000"));
+        for (int i = 1; i < 20000; i++) {
+            plugins.add(plugin(String.format("p%05d", i), String.format("p%05d", i - 1), DependencyType.DEPEND));
+        }
+        Collections.reverse(plugins);
+        PluginDependencyGraph graph = new PluginDependencyGraph(plugins);
+        assertThat(graph.getCycles()).isEmpty();
+        assertThat(graph.getWaves()).hasSize(20000);
+        assertThat(graph.getLoadOrder().get(19999).getName()).isEqualTo("p19999");
+    }
+
+    private static PluginMetadata plugin(String name, Object... dependencies) {
+        PluginMetadata meta = new PluginMetadata(name);
+        for (int i = 0; i < dependencies.length; i += 2) {
+            PluginDependency dependency = new PluginDependency((String) dependencies[i]);
+            dependency.setType((DependencyType) dependencies[i + 1]);
+            meta.addDependency(dependency);
+        }
+        return meta;
+    }
+
+    private static List<String> names(List<PluginMetadata> plugins) {
+        return plugins.stream().map(PluginMetadata::getName).collect(Collectors.toList());
+    }
+}
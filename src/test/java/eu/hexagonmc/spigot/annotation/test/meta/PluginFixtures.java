@@ -0,0 +1,93 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import eu.hexagonmc.spigot.annotation.meta.PluginBinary;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Creates the plugin metadata and jar files used by the scanner and registry
+ * tests.
+ */
+final class PluginFixtures {
+
+    private PluginFixtures() {
+    }
+
+    static PluginMetadata createMeta(String name, String version) {
+        PluginMetadata meta = new PluginMetadata(name);
+        meta.setMain("eu.hexagonmc." + name + ".Main");
+        meta.setVersion(version);
+        return meta;
+    }
+
+    static Path createJar(Path jar, String filename, PluginMetadata meta, boolean binary) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry(filename));
+            Writer writer = new OutputStreamWriter(new NonClosingStream(out), StandardCharsets.UTF_8);
+            PluginYml.write(writer, meta);
+            writer.flush();
+            out.closeEntry();
+            if (binary) {
+                out.putNextEntry(new ZipEntry(PluginYml.FILENAME_SPIGOT.equals(filename)
+                        ? PluginBinary.FILENAME_SPIGOT : PluginBinary.FILENAME_BUNGEE));
+                ByteArrayOutputStream data = new ByteArrayOutputStream();
+                PluginBinary.write(data, meta);
+                out.write(data.toByteArray());
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static class NonClosingStream extends OutputStream {
+
+        private final OutputStream _out;
+
+        NonClosingStream(OutputStream out) {
+            _out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            _out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            _out.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import eu.hexagonmc.spigot.annotation.meta.DependencyType;
+import eu.hexagonmc.spigot.annotation.meta.PermissionDefault;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginDependency;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataDiff;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataDiff.Change;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataDiff.Field;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataDiff.Kind;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataDiff.Property;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
+import org.junit.Test;
+
+import java.util.List;
+
+public class PluginMetadataDiffTest {
+
+    @Test
+    public void testEqual() {
+        PluginMetadataDiff diff = PluginMetadataDiff.of(create(), create());
+        assertThat(diff.isEmpty()).isTrue();
+        assertThat(diff.getProperties()).isEmpty();
+        assertThat(diff.getCommands()).isEmpty();
+        assertThat(diff.getPermissions()).isEmpty();
+        assertThat(diff.getDependencies()).isEmpty();
+    }
+
+    @Test
+    public void testProperties() {
+        PluginMetadata after = create();
+        after.setVersion("2.0.0");
+        after.addAuthor("Other");
+        after.setDatabase(null);
+        PluginMetadataDiff diff = PluginMetadataDiff.of(create(), after);
+        assertThat(diff.isEmpty()).isFalse();
+        assertThat(diff.getProperties()).containsExactly(Property.VERSION, Property.AUTHORS, Property.DATABASE);
+        assertThat(diff.getCommands()).isEmpty();
+    }
+
+    @Test
+    public void testCommands() {
+        PluginMetadata after = create();
+        after.getCommand("changed").addAlias("new");
+        after.getCommand("changed").setUsage("other");
+        after.removeCommand(after.getCommand("removed"));
+        after.addCommand(new PluginCommand("added"));
+        PluginMetadataDiff diff = PluginMetadataDiff.of(create(), after);
+        assertThat(diff.getProperties()).isEmpty();
+        List<Change<PluginCommand>> changes = diff.getCommands();
+        assertThat(changes).hasSize(3);
+        Change<PluginCommand> changed = find(changes, "changed");
+        assertThat(changed.getKind()).isEqualTo(Kind.CHANGED);
+        assertThat(changed.getFields()).containsExactly(Field.ALIASES, Field.USAGE);
+        assertThat(changed.getBefore().getAliases()).containsExactly("c");
+        assertThat(changed.getAfter()).isSameAs(after.getCommand("changed"));
+        Change<PluginCommand> removed = find(changes, "removed");
+        assertThat(removed.getKind()).isEqualTo(Kind.REMOVED);
+        assertThat(removed.getAfter()).isNull();
+        assertThat(removed.getFields()).isEmpty();
+        Change<PluginCommand> added = find(changes, "added");
+        assertThat(added.getKind()).isEqualTo(Kind.ADDED);
+        assertThat(added.getBefore()).isNull();
+    }
+
+    @Test
+    public void testPermissions() {
+        PluginMetadata after = create();
+        after.getPermission("test.admin").setDefault(PermissionDefault.TRUE);
+        after.getPermission("test.admin").addChild("test.other", false);
+        after.getPermission("test.user").setDescription("changed");
+        PluginMetadataDiff diff = PluginMetadataDiff.of(create(), after);
+        assertThat(diff.getPermissions()).hasSize(2);
+        assertThat(find(diff.getPermissions(), "test.admin").getFields()).containsExactly(Field.DEFAULT, Field.CHILDREN);
+        assertThat(find(diff.getPermissions(), "test.user").getFields()).containsExactly(Field.DESCRIPTION);
+    }
+
+    @Test
+    public void testDependencies() {
+        PluginMetadata after = create();
+        after.getDependency("a").setType(DependencyType.SOFTDEPEND);
+        after.removeDependency(after.getDependency("b"));
+        PluginMetadataDiff diff = PluginMetadataDiff.of(create(), after);
+        assertThat(diff.getDependencies()).hasSize(2);
+        assertThat(find(diff.getDependencies(), "a").getFields()).containsExactly(Field.TYPE);
+        assertThat(find(diff.getDependencies(), "b").getKind()).isEqualTo(Kind.REMOVED);
+        assertThat(diff.toString()).contains("REMOVED");
+    }
+
+    private static <T> Change<T> find(List<Change<T>> changes, String name) {
+        for (Change<T> change : changes) {
+            if (change.getName().equals(name)) {
+                return change;
+            }
+        }
+        throw new AssertionError("No change for " + name);
+    }
+
+    private static PluginMetadata create() {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.setVersion("1.0.0");
+        meta.addAuthor("Zartec");
+        meta.setDatabase(true);
+        PluginDependency dependency = new PluginDependency("a");
+        dependency.setType(DependencyType.DEPEND);
+        meta.addDependency(dependency);
+        meta.addDependency(new PluginDependency("b"));
+        PluginCommand command = new PluginCommand("changed");
+        command.addAlias("c");
+        command.setUsage("usage");
+        meta.addCommand(command);
+        meta.addCommand(new PluginCommand("removed"));
+        meta.addCommand(new PluginCommand("same"));
+        PluginPermission permission = new PluginPermission("test.admin");
+        permission.setDefault(PermissionDefault.OP);
+        permission.addChild("test.user", true);
+        meta.addPermission(permission);
+        meta.addPermission(new PluginPermission("test.user"));
+        return meta;
+    }
+}
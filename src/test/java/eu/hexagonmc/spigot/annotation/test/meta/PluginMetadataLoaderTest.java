@@ -0,0 +1,108 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataLoader;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+public class PluginMetadataLoaderTest {
+
+    private Path _directory;
+    private URLClassLoader _loader;
+
+    @Before
+    public void init() throws IOException {
+        _directory = Files.createTempDirectory("plugin");
+        _loader = new URLClassLoader(new URL[] {_directory.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        _loader.close();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUtilityClass() {
+        new PluginMetadataLoader();
+    }
+
+    @Test
+    public void testLoadMissing() throws IOException {
+        assertThat(PluginMetadataLoader.load(_loader, PluginYml.FILENAME_SPIGOT)).isNull();
+    }
+
+    @Test
+    public void testLoadYaml() throws IOException {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.setMain(getClass().getName());
+        PluginYml.write(_directory.resolve(PluginYml.FILENAME_SPIGOT), meta);
+        assertThat(PluginMetadataLoader.loadGenerated(_loader, PluginYml.FILENAME_SPIGOT)).isNull();
+        assertThat(PluginMetadataLoader.load(_loader, PluginYml.FILENAME_SPIGOT)).isEqualTo(meta);
+    }
+
+    @Test
+    public void testLoadGenerated() throws IOException {
+        PluginMetadata meta = new PluginMetadata("other");
+        meta.setMain(getClass().getName());
+        PluginYml.write(_directory.resolve(PluginYml.FILENAME_SPIGOT), meta);
+        Files.write(_directory.resolve(PluginYml.FILENAME_SPIGOT + PluginMetadataLoader.INDEX_SUFFIX),
+                Collections.singleton(GeneratedMetadata.class.getName()), StandardCharsets.UTF_8);
+        assertThat(PluginMetadataLoader.load(_loader, PluginYml.FILENAME_SPIGOT)).isEqualTo(new GeneratedMetadata().get());
+    }
+
+    @Test
+    public void testLoadGeneratedInvalid() throws IOException {
+        PluginMetadata meta = new PluginMetadata("test");
+        meta.setMain(getClass().getName());
+        PluginYml.write(_directory.resolve(PluginYml.FILENAME_SPIGOT), meta);
+        Files.write(_directory.resolve(PluginYml.FILENAME_SPIGOT + PluginMetadataLoader.INDEX_SUFFIX),
+                Collections.singleton("does.not.Exist"), StandardCharsets.UTF_8);
+        assertThat(PluginMetadataLoader.load(_loader, PluginYml.FILENAME_SPIGOT)).isEqualTo(meta);
+    }
+
+    public static class GeneratedMetadata implements Supplier<PluginMetadata> {
+
+        @Override
+        public PluginMetadata get() {
+            PluginMetadata meta = new PluginMetadata("test");
+            meta.setMain(PluginMetadataLoaderTest.class.getName());
+            meta.setVersion("1.0.0");
+            return meta;
+        }
+    }
+}
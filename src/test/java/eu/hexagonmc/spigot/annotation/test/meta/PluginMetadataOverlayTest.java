@@ -0,0 +1,148 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import eu.hexagonmc.spigot.annotation.meta.DependencyType;
+import eu.hexagonmc.spigot.annotation.meta.LoadOn;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginDependency;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataOverlay;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class PluginMetadataOverlayTest {
+
+    private PluginMetadata _base;
+    private PluginMetadata _shared;
+    private PluginMetadata _top;
+
+    @Before
+    public void init() {
+        _base = new PluginMetadata("base");
+        _base.setVersion("1.0.0");
+        _base.setDescription("base");
+        _base.setLoadOn(LoadOn.STARTUP);
+        _base.addAuthor("Zartec");
+        _base.setWebsite("https://hexagonmc.eu");
+        _base.setDatabase(true);
+        _base.addDependency(dependency("a", DependencyType.DEPEND));
+        _base.addDependency(dependency("b", DependencyType.DEPEND));
+        _base.addCommand(command("base", "base"));
+        _base.addCommand(command("shared", "base"));
+        _base.addPermission(new PluginPermission("base.perm"));
+
+        _shared = new PluginMetadata("shared");
+        _shared.setVersion("2.0.0");
+        _shared.addAuthor("Other");
+        _shared.addAuthor("Third");
+        _shared.setPrefix("shared");
+        _shared.addDependency(dependency("c", DependencyType.LOADBEFORE));
+        _shared.addDependency(dependency("a", DependencyType.SOFTDEPEND));
+        _shared.addCommand(command("shared", "shared"));
+        _shared.addPermission(new PluginPermission("shared.perm"));
+
+        _top = new PluginMetadata("top");
+        _top.setMain("eu.hexagonmc.Main");
+        _top.setDatabase(false);
+        _top.addCommand(command("top", "top"));
+    }
+
+    @Test
+    public void testLookup() {
+        PluginMetadataOverlay overlay = new PluginMetadataOverlay(Arrays.asList(_base, _shared, _top));
+        assertThat(overlay.getName()).isEqualTo("top");
+        assertThat(overlay.getVersion()).isEqualTo("2.0.0");
+        assertThat(overlay.getDescription()).isEqualTo("base");
+        assertThat(overlay.getLoadOn()).isEqualTo(LoadOn.STARTUP);
+        assertThat(overlay.getAuthors()).containsExactly("Other", "Third").inOrder();
+        assertThat(overlay.getWebsite()).isEqualTo("https://hexagonmc.eu");
+        assertThat(overlay.getMain()).isEqualTo("eu.hexagonmc.Main");
+        assertThat(overlay.getDatabase()).isFalse();
+        assertThat(overlay.getPrefix()).isEqualTo("shared");
+        assertThat(overlay.getDependency("a").getType()).isEqualTo(DependencyType.SOFTDEPEND);
+        assertThat(overlay.getDependency("b").getType()).isEqualTo(DependencyType.DEPEND);
+        assertThat(overlay.getDependency("d")).isNull();
+        assertThat(overlay.getCommand("shared").getUsage()).isEqualTo("shared");
+        assertThat(overlay.getCommand("base").getUsage()).isEqualTo("base");
+        assertThat(overlay.getCommand("unknown")).isNull();
+        assertThat(overlay.getPermission("base.perm")).isNotNull();
+        assertThat(overlay.getCommands()).hasSize(3);
+        assertThat(overlay.getPermissions()).hasSize(2);
+        assertThat(overlay.getDependencies().stream().map(PluginDependency::getName).toArray()).asList()
+                .containsExactly("a", "b", "c").inOrder();
+    }
+
+    @Test
+    public void testFlatten() {
+        PluginMetadataOverlay overlay = new PluginMetadataOverlay();
+        assertThat(overlay.isEmpty()).isTrue();
+        assertThat(overlay.flatten()).isNull();
+        overlay.push(_base);
+        overlay.push(_shared);
+        overlay.push(_top);
+        assertThat(overlay.getLayers()).containsExactly(_base, _shared, _top).inOrder();
+
+        PluginMetadata flat = overlay.flatten();
+        PluginMetadata merged = new PluginMetadata("merged");
+        merged.accept(_base);
+        merged.accept(_shared);
+        merged.accept(_top);
+        assertThat(flat).isEqualTo(merged);
+        assertThat(flat.toString()).isEqualTo(merged.toString());
+        assertThat(_base.getName()).isEqualTo("base");
+        assertThat(_base.getCommands()).hasSize(2);
+    }
+
+    @Test
+    public void testLayerChanges() {
+        PluginMetadataOverlay overlay = new PluginMetadataOverlay(Arrays.asList(_base, _top));
+        assertThat(overlay.getAuthors()).containsExactly("Zartec");
+        _top.addAuthor("Top");
+        _top.setVersion("3.0.0");
+        assertThat(overlay.getAuthors()).containsExactly("Top");
+        assertThat(overlay.getVersion()).isEqualTo("3.0.0");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAuthorsUnmodifiable() {
+        new PluginMetadataOverlay(Arrays.asList(_base)).getAuthors().add("test");
+    }
+
+    private static PluginDependency dependency(String name, DependencyType type) {
+        PluginDependency dependency = new PluginDependency(name);
+        dependency.setType(type);
+        return dependency;
+    }
+
+    private static PluginCommand command(String name, String usage) {
+        PluginCommand command = new PluginCommand(name);
+        command.setUsage(usage);
+        return command;
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+import static eu.hexagonmc.spigot.annotation.test.meta.PluginFixtures.createJar;
+import static eu.hexagonmc.spigot.annotation.test.meta.PluginFixtures.createMeta;
+
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataDiff;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataRegistry;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class PluginMetadataRegistryTest {
+
+    private Path _directory;
+    private PluginMetadataRegistry _registry;
+    private final List<String> _events = new ArrayList<>();
+
+    @Before
+    public void init() throws IOException {
+        _directory = Files.createTempDirectory("plugins");
+        write("first.yml", createMeta("first", "1.0.0"));
+        createJar(_directory.resolve("second.jar"), PluginYml.FILENAME_SPIGOT, createMeta("second", "1.0.0"), false);
+        Files.write(_directory.resolve("ignored.txt"), "ignored".getBytes(StandardCharsets.UTF_8));
+        _registry = new PluginMetadataRegistry(_directory, PluginYml.FILENAME_SPIGOT);
+        _registry.addListener(new PluginMetadataRegistry.Listener() {
+
+            @Override
+            public void added(Path path, PluginMetadata meta) {
+                _events.add("added " + meta.getName());
+            }
+
+            @Override
+            public void removed(Path path, PluginMetadata meta) {
+                _events.add("removed " + meta.getName());
+            }
+
+            @Override
+            public void changed(Path path, PluginMetadata before, PluginMetadata after, PluginMetadataDiff diff) {
+                _events.add("changed " + after.getName() + " " + diff.getProperties() + " " + diff.getCommands().size());
+            }
+
+            @Override
+            public void failed(Path path, Exception error) {
+                _events.add("failed " + path.getFileName());
+            }
+        });
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        _registry.close();
+    }
+
+    @Test
+    public void testInitialScan() {
+        assertThat(_registry.getMetadata().keySet())
+                .containsExactly(_directory.resolve("first.yml"), _directory.resolve("second.jar")).inOrder();
+        assertThat(_registry.get(_directory.resolve("first.yml")).getName()).isEqualTo("first");
+        assertThat(_registry.get(Paths.get("second.jar")).getName()).isEqualTo("second");
+        assertThat(_registry.get(Paths.get("missing.jar"))).isNull();
+        assertThat(_registry.getByName("second").getMain()).isEqualTo("eu.hexagonmc.second.Main");
+        assertThat(_registry.getByName("unknown")).isNull();
+        assertThat(_registry.getErrors()).isEmpty();
+    }
+
+    @Test
+    public void testRescan() throws IOException {
+        assertThat(_registry.rescan()).isEqualTo(0);
+
+        PluginMetadata changed = createMeta("first", "2.0.0");
+        changed.addCommand(new PluginCommand("test"));
+        write("first.yml", changed);
+        write("third.yml", createMeta("third", "1.0.0"));
+        Files.delete(_directory.resolve("second.jar"));
+        Files.write(_directory.resolve("broken.yml"), "name: [".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(_registry.rescan()).isEqualTo(4);
+        assertThat(_events).containsExactly("failed broken.yml", "changed first [VERSION] 1", "removed second", "added third").inOrder();
+        assertThat(_registry.getErrors().keySet()).containsExactly(_directory.resolve("broken.yml"));
+        assertThat(_registry.getByName("first").getVersion()).isEqualTo("2.0.0");
+        assertThat(_registry.getByName("second")).isNull();
+
+        _events.clear();
+        assertThat(_registry.rescan()).isEqualTo(0);
+        assertThat(_events).isEmpty();
+    }
+
+    @Test
+    public void testUnchangedContent() throws IOException {
+        Path path = _directory.resolve("first.yml");
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() - 10000));
+        assertThat(_registry.rescan()).isEqualTo(0);
+        assertThat(_events).isEmpty();
+    }
+
+    @Test
+    public void testWatch() throws IOException, InterruptedException {
+        write("third.yml", createMeta("third", "1.0.0"));
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (_registry.getByName("third") == null && System.nanoTime() < end) {
+            _registry.poll(100, TimeUnit.MILLISECONDS);
+        }
+        assertThat(_registry.getByName("third")).isNotNull();
+        assertThat(_events).contains("added third");
+        assertThat(_registry.poll()).isEqualTo(0);
+    }
+
+    private void write(String name, PluginMetadata meta) throws IOException {
+        StringWriter writer = new StringWriter();
+        PluginYml.write(writer, meta);
+        Files.write(_directory.resolve(name), writer.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import eu.hexagonmc.spigot.annotation.meta.DependencyType;
+import eu.hexagonmc.spigot.annotation.meta.LoadOn;
+import eu.hexagonmc.spigot.annotation.meta.PermissionDefault;
+import eu.hexagonmc.spigot.annotation.meta.PluginCommand;
+import eu.hexagonmc.spigot.annotation.meta.PluginDependency;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadataSnapshot;
+import eu.hexagonmc.spigot.annotation.meta.PluginPermission;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PluginMetadataSnapshotTest {
+
+    private PluginMetadata _meta;
+
+    @Before
+    public void init() {
+        _meta = create("test");
+    }
+
+    @Test
+    public void testFreeze() {
+        PluginMetadataSnapshot snapshot = _meta.freeze();
+        assertThat(snapshot.getName()).isEqualTo("test");
+        assertThat(snapshot.getVersion()).isEqualTo("1.0.0");
+        assertThat(snapshot.getDescription()).isEqualTo("desc");
+        assertThat(snapshot.getLoadOn()).isEqualTo(LoadOn.STARTUP);
+        assertThat(snapshot.getAuthors()).containsExactly("Zartec", "Other").inOrder();
+        assertThat(snapshot.getWebsite()).isEqualTo("https://hexagonmc.eu");
+        assertThat(snapshot.getMain()).isEqualTo("eu.hexagonmc.Main");
+        assertThat(snapshot.getDatabase()).isTrue();
+        assertThat(snapshot.getPrefix()).isEqualTo("prefix");
+        assertThat(snapshot.getDependencies()).hasSize(2);
+        assertThat(snapshot.getDependency("b").getType()).isEqualTo(DependencyType.SOFTDEPEND);
+        assertThat(snapshot.getDependency("c")).isNull();
+        assertThat(snapshot.getCommands()).hasSize(3);
+        assertThat(snapshot.getCommands().get(0).getName()).isEqualTo("a");
+        assertThat(snapshot.getCommand("b").getAliases()).containsExactly("b1", "b2").inOrder();
+        assertThat(snapshot.getCommand("b").getUsage()).isEqualTo("/<command>");
+        assertThat(snapshot.getCommand("d")).isNull();
+        assertThat(snapshot.getPermission("test.admin").getDefault()).isEqualTo(PermissionDefault.OP);
+        assertThat(snapshot.getPermission("test.admin").getChilds()).containsExactly("test.user", true);
+        assertThat(snapshot.getPermission("test.unknown")).isNull();
+    }
+
+    @Test
+    public void testToMetadata() {
+        PluginMetadataSnapshot snapshot = _meta.freeze();
+        assertThat(snapshot.toMetadata()).isEqualTo(_meta);
+        assertThat(snapshot.toMetadata().freeze()).isEqualTo(snapshot);
+        assertThat(snapshot.hashCode()).isEqualTo(create("test").freeze().hashCode());
+        assertThat(snapshot).isNotEqualTo(create("other").freeze());
+    }
+
+    @Test
+    public void testDetached() {
+        PluginMetadataSnapshot snapshot = _meta.freeze();
+        _meta.setVersion("2.0.0");
+        _meta.getCommands().iterator().next().addAlias("new");
+        _meta.addPermission(new PluginPermission("test.new"));
+        assertThat(snapshot).isEqualTo(create("test").freeze());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        _meta.freeze().getCommand("a").getAliases().add("test");
+    }
+
+    @Test
+    public void testShared() {
+        PluginMetadata meta = new PluginMetadata("empty");
+        PluginMetadataSnapshot first = meta.freeze();
+        PluginMetadataSnapshot second = create("other").freeze();
+        PluginMetadataSnapshot third = create("third").freeze();
+        assertThat(first.getCommands()).isSameAs(new PluginMetadata("other").freeze().getCommands());
+        assertThat(second.getWebsite()).isSameAs(third.getWebsite());
+        assertThat(second.getCommand("b").getUsage()).isSameAs(third.getCommand("b").getUsage());
+        assertThat(second.getDependency("a")).isSameAs(third.getDependency("a"));
+        assertThat(second.getPermission("test.admin").getDescription())
+                .isSameAs(third.getPermission("test.admin").getDescription());
+    }
+
+    private static PluginMetadata create(String name) {
+        PluginMetadata meta = new PluginMetadata(name);
+        meta.setVersion("1.0.0");
+        meta.setDescription("desc");
+        meta.setLoadOn(LoadOn.STARTUP);
+        meta.addAuthor("Zartec");
+        meta.addAuthor("Other");
+        meta.setWebsite(new String("https://hexagonmc.eu"));
+        meta.setMain("eu.hexagonmc.Main");
+        meta.setDatabase(true);
+        meta.setPrefix("prefix");
+        PluginDependency dependency = new PluginDependency(new String("a"));
+        dependency.setType(DependencyType.DEPEND);
+        meta.addDependency(dependency);
+        dependency = new PluginDependency("b");
+        dependency.setType(DependencyType.SOFTDEPEND);
+        meta.addDependency(dependency);
+        for (String commandName : new String[] {"c", "a", "b"}) {
+            PluginCommand command = new PluginCommand(commandName);
+            command.addAlias(commandName + "1");
+            command.addAlias(commandName + "2");
+            command.setUsage(new String("/<command>"));
+            meta.addCommand(command);
+        }
+        PluginPermission permission = new PluginPermission("test.admin");
+        permission.setDescription(new String("Admin permission"));
+        permission.setDefault(PermissionDefault.OP);
+        permission.addChild("test.user", true);
+        meta.addPermission(permission);
+        meta.addPermission(new PluginPermission("test.user"));
+        return meta;
+    }
+}
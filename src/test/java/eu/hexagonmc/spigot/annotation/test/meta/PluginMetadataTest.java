@@ -123,7 +123,9 @@ public class PluginMetadataTest {
         PluginDependency dep = new PluginDependency("test");
 
         _meta.addDependency(dep);
+        assertThat(_meta.getDependency("test")).isSameAs(dep);
         assertThat(_meta.removeDependency(dep)).isTrue();
+        assertThat(_meta.getDependency("test")).isNull();
         assertThat(_meta.removeDependency(dep)).isFalse();
     }
 
@@ -172,7 +174,9 @@ public class PluginMetadataTest {
         PluginCommand cmd = new PluginCommand("test");
 
         _meta.addCommand(cmd);
+        assertThat(_meta.getCommand("test")).isSameAs(cmd);
         assertThat(_meta.removeCommand(cmd)).isTrue();
+        assertThat(_meta.getCommand("test")).isNull();
         assertThat(_meta.removeCommand(cmd)).isFalse();
     }
 
@@ -220,7 +224,9 @@ public class PluginMetadataTest {
         PluginPermission perm = new PluginPermission("test");
 
         _meta.addPermission(perm);
+        assertThat(_meta.getPermission("test")).isSameAs(perm);
         assertThat(_meta.removePermission(perm)).isTrue();
+        assertThat(_meta.getPermission("test")).isNull();
         assertThat(_meta.removePermission(perm)).isFalse();
     }
 
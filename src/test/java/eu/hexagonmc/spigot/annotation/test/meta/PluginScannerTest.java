@@ -0,0 +1,96 @@
+/**
+ *
+ * Copyright (C) 2017 - 2018  HexagonMc <https://github.com/HexagonMC>
+ * Copyright (C) 2017 - 2018  Zartec <zartec@mccluster.eu>
+ *
+ *     This file is part of Spigot-Annotations.
+ *
+ *     Spigot-Annotations is free software:
+ *     you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Spigot-Annotations is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Spigot-Annotations.
+ *     If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.hexagonmc.spigot.annotation.test.meta;
+
+import static com.google.common.truth.Truth.assertThat;
+import static eu.hexagonmc.spigot.annotation.test.meta.PluginFixtures.createJar;
+import static eu.hexagonmc.spigot.annotation.test.meta.PluginFixtures.createMeta;
+
+import eu.hexagonmc.spigot.annotation.meta.PluginMetadata;
+import eu.hexagonmc.spigot.annotation.meta.PluginScanner;
+import eu.hexagonmc.spigot.annotation.meta.PluginYml;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class PluginScannerTest {
+
+    private Path _directory;
+
+    @Before
+    public void init() throws IOException {
+        _directory = Files.createTempDirectory("plugins");
+    }
+
+    @Test
+    public void testReadYaml() throws IOException {
+        PluginMetadata meta = createMeta("test", "1.0.0");
+        Path jar = createJar(_directory.resolve("test.jar"), PluginYml.FILENAME_SPIGOT, meta, false);
+        assertThat(PluginScanner.read(jar, PluginYml.FILENAME_SPIGOT)).isEqualTo(meta);
+    }
+
+    @Test
+    public void testReadBinary() throws IOException {
+        PluginMetadata meta = createMeta("test", "1.0.0");
+        Path jar = createJar(_directory.resolve("test.jar"), PluginYml.FILENAME_BUNGEE, meta, true);
+        assertThat(PluginScanner.read(jar, PluginYml.FILENAME_BUNGEE)).isEqualTo(meta);
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void testReadMissing() throws IOException {
+        Path jar = createJar(_directory.resolve("test.jar"), PluginYml.FILENAME_BUNGEE, createMeta("test", "1.0.0"), false);
+        PluginScanner.read(jar, PluginYml.FILENAME_SPIGOT);
+    }
+
+    @Test
+    public void testScanDirectory() throws IOException {
+        List<PluginMetadata> metas = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            PluginMetadata meta = createMeta("test" + i, "1.0.0");
+            metas.add(meta);
+            createJar(_directory.resolve(String.format("test%02d.jar", i)), PluginYml.FILENAME_SPIGOT, meta, i % 2 == 0);
+        }
+        createJar(_directory.resolve("bungee.jar"), PluginYml.FILENAME_BUNGEE, createMeta("bungee", "1.0.0"), false);
+        Files.write(_directory.resolve("broken.jar"), "broken".getBytes(StandardCharsets.UTF_8));
+        Files.write(_directory.resolve("ignored.txt"), "ignored".getBytes(StandardCharsets.UTF_8));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            PluginScanner.Result result = new PluginScanner(executor).scanDirectory(_directory, PluginYml.FILENAME_SPIGOT);
+            assertThat(result.getMetadata().values()).containsExactlyElementsIn(metas).inOrder();
+            assertThat(result.getErrors().keySet()).containsExactly(_directory.resolve("broken.jar"), _directory.resolve("bungee.jar"));
+            assertThat(result.getErrors().get(_directory.resolve("bungee.jar"))).isInstanceOf(NoSuchFileException.class);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
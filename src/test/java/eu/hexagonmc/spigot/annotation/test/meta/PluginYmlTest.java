@@ -25,6 +25,8 @@ package eu.hexagonmc.spigot.annotation.test.meta;
 import static com.google.common.truth.Truth.assertThat;
 import static eu.hexagonmc.spigot.annotation.test.meta.PluginMetadataSubject.assertThat;
 
+import com.google.common.base.Strings;
+import eu.hexagonmc.spigot.annotation.AnnotationProcessor;
 import eu.hexagonmc.spigot.annotation.meta.DependencyType;
 import eu.hexagonmc.spigot.annotation.meta.LoadOn;
 import eu.hexagonmc.spigot.annotation.meta.PermissionDefault;
@@ -36,6 +38,11 @@ import eu.hexagonmc.spigot.annotation.meta.PluginYml;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.DumperOptions.FlowStyle;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.reader.StreamReader;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -45,12 +52,27 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class PluginYmlTest {
 
@@ -195,6 +217,297 @@ public class PluginYmlTest {
         assertThat(meta).isEqualTo(_meta);
     }
 
+    @Test
+    public void testReadSkipsUnknownAndMistyped() {
+        String data = ""
+                + "unknown:\n"
+                + "  nested: [a, {b: c}]\n"
+                + "name: test\n"
+                + "main: 1\n"
+                + "version: 1.0\n"
+                + "description: ~\n"
+                + "database: 'true'\n"
+                + "authors: [b, 2, a]\n"
+                + "author: first\n"
+                + "commands:\n"
+                + "  test:\n"
+                + "    aliases: [x]\n"
+                + "    custom: value\n"
+                + "  other:\n"
+                + "permissions:\n"
+                + "  test:\n"
+                + "    default: [op]\n"
+                + "    children:\n"
+                + "      a: true\n"
+                + "      b: 'false'\n"
+                + "      c: ~\n";
+        PluginMetadata meta = PluginYml.read(new StringReader(data));
+        assertThat(meta).isNotNull();
+        assertThat(meta.getName()).isEqualTo("test");
+        assertThat(meta.getMain()).isNull();
+        assertThat(meta.getVersion()).isNull();
+        assertThat(meta.getDescription()).isNull();
+        assertThat(meta.getDatabase()).isNull();
+        assertThat(meta.getAuthors()).containsExactly("first", "b", "a").inOrder();
+        assertThat(meta.getCommands()).hasSize(2);
+        PluginPermission perm = meta.getPermissions().iterator().next();
+        assertThat(perm.getDefault()).isNull();
+        assertThat(perm.getChilds()).containsExactly("a", true);
+    }
+
+    @Test
+    public void testReadAnchorsAndMerge() {
+        String data = ""
+                + "name: &name test\n"
+                + "prefix: *name\n"
+                + "database: yes\n"
+                + "commands:\n"
+                + "  base: &base\n"
+                + "    description: desc\n"
+                + "    usage: usage\n"
+                + "  copy: *base\n"
+                + "  merged:\n"
+                + "    <<: *base\n"
+                + "    permission: test.perm\n"
+                + "depend: &deps [a, b]\n"
+                + "softdepend: [c]\n";
+        PluginMetadata meta = PluginYml.read(new StringReader(data));
+        assertThat(meta).isNotNull();
+        assertThat(meta.getPrefix()).isEqualTo("test");
+        assertThat(meta.getDatabase()).isTrue();
+        assertThat(meta.getCommands()).hasSize(3);
+        for (PluginCommand command : meta.getCommands()) {
+            assertThat(command.getDescription()).isEqualTo("desc");
+            assertThat(command.getUsage()).isEqualTo("usage");
+            assertThat(command.getPermission()).isEqualTo(command.getName().equals("merged") ? "test.perm" : null);
+        }
+        assertThat(meta.getDependencies().stream().map(PluginDependency::getName).toArray()).asList()
+                .containsExactly("a", "b", "c").inOrder();
+    }
+
+    @Test
+    public void testReadMergeExplicitWins() {
+        String data = ""
+                + "name: test\n"
+                + "commands:\n"
+                + "  base: &base\n"
+                + "    description: desc\n"
+                + "    usage: merged\n"
+                + "    permission: merged\n"
+                + "  before:\n"
+                + "    usage: explicit\n"
+                + "    <<: *base\n"
+                + "  after:\n"
+                + "    <<: *base\n"
+                + "    permission: explicit\n"
+                + "  inner: &inner\n"
+                + "    <<: *base\n"
+                + "    usage: inner\n"
+                + "  nested:\n"
+                + "    <<: *inner\n"
+                + "    description: explicit\n";
+        PluginMetadata meta = PluginYml.read(new StringReader(data));
+        assertThat(meta.getCommand("before").getUsage()).isEqualTo("explicit");
+        assertThat(meta.getCommand("before").getPermission()).isEqualTo("merged");
+        assertThat(meta.getCommand("after").getUsage()).isEqualTo("merged");
+        assertThat(meta.getCommand("after").getPermission()).isEqualTo("explicit");
+        assertThat(meta.getCommand("nested").getDescription()).isEqualTo("explicit");
+        assertThat(meta.getCommand("nested").getUsage()).isEqualTo("inner");
+        assertThat(meta.getCommand("nested").getPermission()).isEqualTo("merged");
+        assertMergedLikeMapReader(data, meta);
+    }
+
+    @Test
+    public void testReadMergeSequence() throws IOException {
+        String data = ""
+                + "name: test\n"
+                + "permissions:\n"
+                + "  first: &first\n"
+                + "    description: first\n"
+                + "  second: &second\n"
+                + "    description: second\n"
+                + "    default: op\n"
+                + "    children: {a: true}\n"
+                + "  merged:\n"
+                + "    <<: [*first, *second]\n"
+                + "    children: {b: false}\n";
+        PluginMetadata meta = PluginYml.read(new StringReader(data));
+        PluginPermission merged = meta.getPermission("merged");
+        assertThat(merged.getDescription()).isEqualTo("first");
+        assertThat(merged.getDefault()).isEqualTo(PermissionDefault.OP);
+        assertThat(merged.getChilds()).containsExactly("b", false);
+        assertThat(PluginYml.readLazy(new StringReader(data))).isEqualTo(meta);
+        assertMergedLikeMapReader(data, meta);
+    }
+
+    /**
+     * Checks the command and permission values against the mappings SnakeYAML
+     * builds for the document.
+     */
+    @SuppressWarnings("unchecked")
+    private static void assertMergedLikeMapReader(String data, PluginMetadata meta) {
+        Map<String, Object> map = (Map<String, Object>) new Yaml().load(data);
+        Map<String, Map<String, Object>> commands = (Map<String, Map<String, Object>>) map.getOrDefault("commands", Collections.emptyMap());
+        for (PluginCommand command : meta.getCommands()) {
+            Map<String, Object> values = commands.get(command.getName());
+            assertThat(command.getDescription()).isEqualTo(values.get("description"));
+            assertThat(command.getUsage()).isEqualTo(values.get("usage"));
+            assertThat(command.getPermission()).isEqualTo(values.get("permission"));
+        }
+        Map<String, Map<String, Object>> permissions = (Map<String, Map<String, Object>>) map.getOrDefault("permissions", Collections.emptyMap());
+        for (PluginPermission permission : meta.getPermissions()) {
+            Map<String, Object> values = permissions.get(permission.getName());
+            assertThat(permission.getDescription()).isEqualTo(values.get("description"));
+            assertThat(permission.getChilds()).isEqualTo(values.getOrDefault("children", Collections.emptyMap()));
+        }
+    }
+
+    @Test
+    public void testReadNoName() {
+        assertThat(PluginYml.read(new StringReader("version: 1.0.0\n"))).isNull();
+        assertThat(PluginYml.read(new StringReader("- name\n"))).isNull();
+        assertThat(PluginYml.read(new StringReader("name: [test]\n"))).isNull();
+    }
+
+    @Test(expected = YAMLException.class)
+    public void testReadUndefinedAlias() {
+        PluginYml.read(new StringReader("name: *test\n"));
+    }
+
+    @Test(expected = YAMLException.class)
+    public void testReadMultipleDocuments() {
+        PluginYml.read(new StringReader("name: test\n---\nname: other\n"));
+    }
+
+    @Test(expected = YAMLException.class)
+    public void testReadInvalid() {
+        PluginYml.read(new StringReader("name: test\n  broken: [\n"));
+    }
+
+    @Test
+    public void testReadLazy() throws IOException {
+        StringWriter writer = new StringWriter();
+        PluginYml.write(writer, _meta);
+        PluginMetadata meta = PluginYml.readLazy(new StringReader(writer.toString()));
+        assertThat(meta.getName()).isEqualTo("test");
+        assertThat(meta.getDependencies()).hasSize(3);
+        assertThat(meta).isEqualTo(_meta);
+        assertThat(meta.toString()).isEqualTo(_meta.toString());
+    }
+
+    @Test
+    public void testReadLazySections() throws IOException {
+        String data = ""
+                + "description: %smiley% \u00e4\n"
+                + "commands: {flow: {aliases: [f]}, other: {usage: %smiley%}}\n"
+                + "name: test\n"
+                + "permissions:\n"
+                + "    # comment\n"
+                + "    test:\n"
+                + "        default: op\n"
+                + "        children:\n"
+                + "            a: true\n"
+                + "\n"
+                + "main: test.Main\n";
+        data = data.replace("%smiley%", new String(Character.toChars(0x1F600)));
+        PluginMetadata meta = PluginYml.readLazy(new StringReader(data));
+        assertThat(meta).isEqualTo(PluginYml.read(new StringReader(data)));
+        assertThat(meta.getMain()).isEqualTo("test.Main");
+        assertThat(meta.getCommands()).hasSize(2);
+        assertThat(meta.getPermissions().iterator().next().getChilds()).containsExactly("a", true);
+    }
+
+    @Test
+    public void testReadLazyDefersErrors() throws IOException {
+        String data = ""
+                + "name: test\n"
+                + "permissions:\n"
+                + "  test:\n"
+                + "    default: invalid\n";
+        PluginMetadata meta = PluginYml.readLazy(new StringReader(data));
+        assertThat(meta.getName()).isEqualTo("test");
+        try {
+            meta.getPermissions();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testReadLazyKeepsFailure() throws IOException {
+        String data = ""
+                + "name: test\n"
+                + "commands:\n"
+                + "  first:\n"
+                + "    usage: usage\n"
+                + "  second:\n"
+                + "    aliases: [same, same]\n";
+        PluginMetadata meta = PluginYml.readLazy(new StringReader(data));
+        try {
+            meta.getCommands();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            meta.getCommands();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class);
+        }
+        try {
+            meta.getPermissions();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testReadLazyCallerHoldsMonitor() throws IOException {
+        String data = ""
+                + "name: test\n"
+                + "commands:\n"
+                + "  test:\n"
+                + "    usage: usage\n";
+        PluginMetadata meta = PluginYml.readLazy(new StringReader(data));
+        synchronized (meta) {
+            assertThat(meta.getCommands()).hasSize(1);
+        }
+        assertThat(meta.getCommands()).hasSize(1);
+    }
+
+    @Test
+    public void testReadLazyAnchors() throws IOException {
+        String data = ""
+                + "name: test\n"
+                + "commands:\n"
+                + "  base: &base\n"
+                + "    usage: usage\n"
+                + "permissions:\n"
+                + "  test:\n"
+                + "    description: *base\n";
+        PluginMetadata meta = PluginYml.readLazy(new StringReader(data));
+        assertThat(meta).isEqualTo(PluginYml.read(new StringReader(data)));
+    }
+
+    @Test(expected = YAMLException.class)
+    public void testReadLazyInvalid() throws IOException {
+        PluginYml.readLazy(new StringReader("name: test\ncommands:\n  test: [\n"));
+    }
+
+    @Test
+    public void testReadLazyPath() throws IOException {
+        Path path = Files.createTempFile("plugin", ".yml");
+        try {
+            PluginYml.write(path, _meta);
+            assertThat(PluginYml.readLazy(path)).isEqualTo(_meta);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
     @Test
     public void testWriteFull() throws IOException {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
@@ -221,17 +534,17 @@ public class PluginYmlTest {
                 + "prefix: test\n"
                 + "commands:\n"
                 + "  test:\n"
+                + "    description: desc\n"
                 + "    aliases:\n"
                 + "    - test1\n"
-                + "    usage: usage\n"
-                + "    description: desc\n"
                 + "    permission: test.perm\n"
+                + "    usage: usage\n"
                 + "permissions:\n"
                 + "  test:\n"
+                + "    description: desc\n"
                 + "    default: op\n"
                 + "    children:\n"
-                + "      test.perm: true\n"
-                + "    description: desc\n");
+                + "      test.perm: true\n");
     }
 
     @Test
@@ -270,18 +583,228 @@ public class PluginYmlTest {
                 + "prefix: test\n"
                 + "commands:\n"
                 + "  test:\n"
+                + "    description: desc\n"
                 + "    aliases:\n"
                 + "    - test1\n"
                 + "    - test2\n"
-                + "    usage: usage\n"
-                + "    description: desc\n"
                 + "    permission: test.perm\n"
+                + "    usage: usage\n"
                 + "permissions:\n"
                 + "  test:\n"
+                + "    description: desc\n"
                 + "    default: op\n"
                 + "    children:\n"
-                + "      test.perm: true\n"
-                + "    description: desc\n");
+                + "      test.perm: true\n");
+    }
+
+    @Test
+    public void testWriteDeterministic() throws IOException {
+        PluginMetadata first = new PluginMetadata("test");
+        first.setMain(getClass().getName());
+        PluginMetadata second = new PluginMetadata("test");
+        second.setMain(getClass().getName());
+        for (int i = 0; i < 50; i++) {
+            first.addCommand(new PluginCommand("cmd" + i));
+            second.addCommand(new PluginCommand("cmd" + (49 - i)));
+            PluginPermission perm = new PluginPermission("perm" + i);
+            perm.addChild("child" + i, true);
+            perm.addChild("child" + (i + 1), false);
+            first.addPermission(perm);
+            perm = new PluginPermission("perm" + (49 - i));
+            perm.addChild("child" + (50 - i), false);
+            perm.addChild("child" + (49 - i), true);
+            second.addPermission(perm);
+        }
+
+        StringWriter firstWriter = new StringWriter();
+        PluginYml.write(firstWriter, first, null);
+        StringWriter secondWriter = new StringWriter();
+        PluginYml.write(secondWriter, second, null);
+        assertThat(firstWriter.toString()).isEqualTo(secondWriter.toString());
+        assertThat(firstWriter.toString()).startsWith("# Auto-generated yaml file, generated by ");
+        assertThat(firstWriter.toString().indexOf("cmd10:")).isLessThan(firstWriter.toString().indexOf("cmd2:"));
+    }
+
+    @Test
+    public void testWriteDate() throws IOException {
+        StringWriter writer = new StringWriter();
+        PluginYml.write(writer, _meta, new Date(0));
+        assertThat(writer.toString()).startsWith("# Auto-generated yaml file, generated at 1970/01/01 00:00:00 by ");
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        StringWriter expectedWriter = new StringWriter();
+        PluginYml.write(expectedWriter, _meta, new Date(86400000L));
+        String expected = expectedWriter.toString();
+        PluginMetadata expectedMeta = PluginYml.read(new BufferedReader(new StringReader(expected)));
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 200; j++) {
+                        StringWriter writer = new StringWriter();
+                        if ((thread + j) % 2 == 0) {
+                            PluginYml.write(writer, _meta, new Date(86400000L));
+                            assertThat(writer.toString()).isEqualTo(expected);
+                        } else {
+                            PluginYml.write(writer, _meta, new Date(thread * 1000L));
+                            assertThat(writer.toString()).startsWith(String.format(
+                                    "# Auto-generated yaml file, generated at 1970/01/01 00:00:%02d by ", thread));
+                        }
+                        PluginMetadata meta = PluginYml.read(new BufferedReader(new StringReader(expected)));
+                        assertThat(meta).isEqualTo(expectedMeta);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteMatchesRepresenter() throws IOException {
+        assertWriteMatchesRepresenter(_meta, true);
+        assertWriteMatchesRepresenter(new PluginMetadata("minimal"), true);
+
+        String[] values = {"plain", "with space", "colon: value", "hash # comment", "#start", "- dash", "[flow]", "{flow}",
+            "'single'", "\"double\"", "back\\slash", " leading", "trailing ", "yes", "No", "null", "~", "123", "1.5", "0x1F",
+            "2018-01-01", "<<", "*alias", "&anchor", "!tag", "%percent", "@at", "`tick", "a|b", "a>b", "?", ":", "-",
+            "multi\nline", "trailing\n", "\nleading", "crlf\r\nline", "tab\there", "äöü ß", "emoji 😀", "\u2028separator",
+            "long " + Strings.repeat("word ", 60), "control\u0001char", "bell\u0007"};
+        for (String value : values) {
+            PluginMetadata meta = new PluginMetadata("test");
+            meta.setVersion(value);
+            meta.setDescription(value);
+            meta.setWebsite(value);
+            meta.setMain(value);
+            meta.setPrefix(value);
+            meta.addAuthor(value);
+            meta.addAuthor("second");
+            PluginCommand cmd = new PluginCommand(value);
+            cmd.setDescription(value);
+            cmd.addAlias(value);
+            cmd.setPermission(value);
+            cmd.setUsage(value);
+            meta.addCommand(cmd);
+            meta.addCommand(new PluginCommand("empty"));
+            PluginPermission perm = new PluginPermission(value);
+            perm.setDescription(value);
+            perm.setDefault(PermissionDefault.NO_OP);
+            perm.addChild(value, false);
+            perm.addChild("other", true);
+            meta.addPermission(perm);
+            PluginDependency dep = new PluginDependency(value);
+            dep.setType(DependencyType.SOFTDEPEND);
+            meta.addDependency(dep);
+            assertWriteMatchesRepresenter(meta, StreamReader.isPrintable(value));
+        }
+    }
+
+    private static void assertWriteMatchesRepresenter(PluginMetadata meta, boolean roundTrip) throws IOException {
+        StringWriter writer = new StringWriter();
+        PluginYml.write(writer, meta, null);
+        String yaml = writer.toString();
+        String header = "# Auto-generated yaml file, generated by " + AnnotationProcessor.class.getName() + "\n\n";
+        assertThat(yaml).isEqualTo(header + representerWrite(meta));
+        if (roundTrip) {
+            assertThat(PluginYml.read(new StringReader(yaml))).isEqualTo(meta);
+        }
+    }
+
+    /**
+     * Reference implementation writing the metadata through the SnakeYAML
+     * representer, the way {@link PluginYml} did before writing the events
+     * directly.
+     */
+    private static String representerWrite(PluginMetadata meta) {
+        Map<String, Object> metaMap = new LinkedHashMap<>();
+        metaMap.put("name", meta.getName());
+        if (!Strings.isNullOrEmpty(meta.getVersion())) {
+            metaMap.put("version", meta.getVersion());
+        }
+        if (!Strings.isNullOrEmpty(meta.getDescription())) {
+            metaMap.put("description", meta.getDescription());
+        }
+        if (meta.getLoadOn() != null) {
+            metaMap.put("load", meta.getLoadOn().name());
+        }
+        if (meta.getAuthors().size() == 1) {
+            metaMap.put("author", meta.getAuthors().iterator().next());
+        } else if (!meta.getAuthors().isEmpty()) {
+            metaMap.put("authors", new ArrayList<>(meta.getAuthors()));
+        }
+        if (!Strings.isNullOrEmpty(meta.getWebsite())) {
+            metaMap.put("website", meta.getWebsite());
+        }
+        metaMap.put("main", meta.getMain());
+        if (meta.getDatabase() != null) {
+            metaMap.put("database", meta.getDatabase());
+        }
+        if (!meta.getDependencies().isEmpty()) {
+            for (DependencyType type : DependencyType.values()) {
+                metaMap.put(type.name().toLowerCase(), meta.getDependencies().stream()
+                        .filter(dep -> dep.getType() == type).map(PluginDependency::getName).collect(Collectors.toList()));
+            }
+        }
+        if (!Strings.isNullOrEmpty(meta.getPrefix())) {
+            metaMap.put("prefix", meta.getPrefix());
+        }
+        if (!meta.getCommands().isEmpty()) {
+            Map<String, Object> commands = new TreeMap<>();
+            meta.getCommands().forEach(cmd -> {
+                Map<String, Object> valueMap = new LinkedHashMap<>();
+                if (!Strings.isNullOrEmpty(cmd.getDescription())) {
+                    valueMap.put("description", cmd.getDescription());
+                }
+                if (!cmd.getAliases().isEmpty()) {
+                    valueMap.put("aliases", new ArrayList<>(cmd.getAliases()));
+                }
+                if (!Strings.isNullOrEmpty(cmd.getPermission())) {
+                    valueMap.put("permission", cmd.getPermission());
+                }
+                if (!Strings.isNullOrEmpty(cmd.getUsage())) {
+                    valueMap.put("usage", cmd.getUsage());
+                }
+                commands.put(cmd.getName(), valueMap);
+            });
+            metaMap.put("commands", commands);
+        }
+        if (!meta.getPermissions().isEmpty()) {
+            Map<String, Object> permissions = new TreeMap<>();
+            meta.getPermissions().forEach(perm -> {
+                Map<String, Object> valueMap = new LinkedHashMap<>();
+                if (!Strings.isNullOrEmpty(perm.getDescription())) {
+                    valueMap.put("description", perm.getDescription());
+                }
+                if (perm.getDefault() != null) {
+                    valueMap.put("default", perm.getDefault().name().toLowerCase());
+                }
+                if (!perm.getChilds().isEmpty()) {
+                    valueMap.put("children", new TreeMap<>(perm.getChilds()));
+                }
+                permissions.put(perm.getName(), valueMap);
+            });
+            metaMap.put("permissions", permissions);
+        }
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(FlowStyle.BLOCK);
+        options.setPrettyFlow(true);
+        options.setSplitLines(false);
+        options.setIndent(2);
+        options.setIndicatorIndent(0);
+        return new Yaml(options).dump(metaMap);
     }
 
     @Test